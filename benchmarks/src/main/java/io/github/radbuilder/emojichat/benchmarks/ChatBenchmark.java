@@ -0,0 +1,92 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link EmojiHandler#toEmojiFromChat(String)}, with fix-emoji-coloring off and on.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatBenchmark {
+	/**
+	 * The {@link Corpus} to translate.
+	 */
+	@Param
+	public Corpus corpus;
+	/**
+	 * The fix-emoji-coloring config value.
+	 */
+	@Param({"false", "true"})
+	public boolean fixColoring;
+	/**
+	 * EmojiChat, without a server.
+	 */
+	private HeadlessEmojiChat plugin;
+	/**
+	 * The emoji handler being benchmarked.
+	 */
+	private EmojiHandler emojiHandler;
+	/**
+	 * The corpus messages.
+	 */
+	private String[] messages;
+	/**
+	 * The index of the next message.
+	 */
+	private int next;
+	
+	/**
+	 * Loads EmojiChat and generates the corpus.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		plugin = new HeadlessEmojiChat(Collections.singletonMap("fix-emoji-coloring", fixColoring));
+		emojiHandler = plugin.getEmojiHandler();
+		messages = corpus.generate(emojiHandler);
+	}
+	
+	/**
+	 * Stops EmojiChat.
+	 *
+	 * @throws Exception If the data folder couldn't be deleted.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		plugin.close();
+	}
+	
+	/**
+	 * Translates the next message from chat.
+	 *
+	 * @return The translated message.
+	 */
+	@Benchmark
+	public String toEmojiFromChat() {
+		return emojiHandler.toEmojiFromChat(messages[next++ & (Corpus.SIZE - 1)]);
+	}
+}
@@ -0,0 +1,662 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.metrics.LatencyHistogram;
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Finds how much chat EmojiChat can keep up with. Simulated players join a {@link SimulatedServer} and send chat messages,
+ * sign lines and commands through the real listener, each at a set rate, then the load test reports the throughput,
+ * the tail latency and the GC pressure.
+ * <p>
+ * Latency is measured from when each event was due to be sent, so events stuck waiting (i.e. for the main thread) count
+ * the time they waited. Every result is checked against what the same event gave before the players joined, and
+ * reload-every sends /emojichat reload from the console while they're sending, so reloading can't get in their way.
+ * The load test fails if any result is different, an event or task threw an exception, or a reload didn't finish.
+ * <p>
+ * Build with mvn package, then run i.e. java -cp benchmarks/target/benchmarks.jar
+ * io.github.radbuilder.emojichat.benchmarks.ChatLoadTest players=200 rate=1 reload-every=5. See {@link #USAGE} for the options.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class ChatLoadTest {
+	/**
+	 * The options, with their defaults.
+	 */
+	private static final String USAGE = "Options (all optional): players=50 rate=2 warmup=5 duration=30 reload-every=0 fix-emoji-coloring=false"
+			+ " mix=chat:80,sign:10,command:10 corpus=shortcut_heavy:70,no_emoji:25,spam:5\n"
+			+ "  rate is events per second per player (0 sends as fast as possible), warmup, duration and reload-every are in"
+			+ " seconds (reload-every=0 never reloads), and mix and corpus are weights";
+	/**
+	 * The number of players.
+	 */
+	private final int players;
+	/**
+	 * How many events each player sends per second, or 0 to send as fast as possible.
+	 */
+	private final double rate;
+	/**
+	 * How many seconds to send events for before measuring.
+	 */
+	private final int warmupSeconds;
+	/**
+	 * How many seconds to measure for.
+	 */
+	private final int durationSeconds;
+	/**
+	 * How many seconds between reloads, or 0 to never reload.
+	 */
+	private final int reloadEverySeconds;
+	/**
+	 * The fix-emoji-coloring config value.
+	 */
+	private final boolean fixColoring;
+	/**
+	 * The weight of each {@link LoadEvent}.
+	 */
+	private final int[] eventWeights;
+	/**
+	 * The weight of each {@link Corpus}.
+	 */
+	private final int[] corpusWeights;
+	/**
+	 * Each {@link LoadEvent} as many times as its weight, to pick from.
+	 */
+	private final LoadEvent[] eventMix;
+	/**
+	 * Each {@link Corpus} as many times as its weight, to pick from.
+	 */
+	private final Corpus[] corpusMix;
+	/**
+	 * The text sent, by {@link LoadEvent}, then {@link Corpus}, then index.
+	 */
+	private final String[][][][] inputs;
+	/**
+	 * The results each text gave before the players joined, by {@link LoadEvent}, then {@link Corpus}, then index.
+	 */
+	private final String[][][][] expected;
+	/**
+	 * The number of events measured, by {@link LoadEvent}.
+	 */
+	private final LongAdder[] events;
+	/**
+	 * The latency of the events measured, by {@link LoadEvent}.
+	 */
+	private final LatencyHistogram[] latency;
+	/**
+	 * The latency of every event measured.
+	 */
+	private final LatencyHistogram totalLatency;
+	/**
+	 * The number of results that were different than expected over the whole run, by {@link LoadEvent}.
+	 */
+	private final LongAdder[] wrongResults;
+	/**
+	 * The number of events that threw an exception over the whole run, by {@link LoadEvent}.
+	 */
+	private final LongAdder[] errors;
+	/**
+	 * The first exception thrown.
+	 */
+	private final AtomicReference<Throwable> firstError;
+	/**
+	 * The first wrong result.
+	 */
+	private final AtomicReference<String> firstWrongResult;
+	/**
+	 * The number of reloads sent.
+	 */
+	private final AtomicInteger reloadsRequested;
+	/**
+	 * The number of reloads that finished.
+	 */
+	private final AtomicInteger reloadsDone;
+	/**
+	 * The number of reloads that failed.
+	 */
+	private final AtomicInteger reloadsFailed;
+	
+	/**
+	 * Creates the load test with the specified options.
+	 *
+	 * @param options The options, i.e. players=200.
+	 * @throws IllegalArgumentException If an option is unknown or invalid.
+	 */
+	ChatLoadTest(ToolOptions options) {
+		players = options.getInt("players", 50, 1);
+		rate = options.getDouble("rate", 2D);
+		warmupSeconds = options.getInt("warmup", 5, 0);
+		durationSeconds = options.getInt("duration", 30, 1);
+		reloadEverySeconds = options.getInt("reload-every", 0, 0);
+		fixColoring = options.getBoolean("fix-emoji-coloring", false);
+		eventWeights = getWeights(options, "mix", "chat:80,sign:10,command:10", LoadEvent.class);
+		corpusWeights = getWeights(options, "corpus", "shortcut_heavy:70,no_emoji:25,spam:5", Corpus.class);
+		options.checkAllRead();
+		if (!options.getArguments().isEmpty()) {
+			throw new IllegalArgumentException("Options are key=value, not '" + options.getArguments().get(0) + "'");
+		}
+		
+		eventMix = createMix(eventWeights, LoadEvent.class);
+		corpusMix = createMix(corpusWeights, Corpus.class);
+		inputs = new String[LoadEvent.values().length][Corpus.values().length][][];
+		expected = new String[LoadEvent.values().length][Corpus.values().length][][];
+		events = new LongAdder[LoadEvent.values().length];
+		latency = new LatencyHistogram[LoadEvent.values().length];
+		wrongResults = new LongAdder[LoadEvent.values().length];
+		errors = new LongAdder[LoadEvent.values().length];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = new LongAdder();
+			latency[i] = new LatencyHistogram();
+			wrongResults[i] = new LongAdder();
+			errors[i] = new LongAdder();
+		}
+		totalLatency = new LatencyHistogram();
+		firstError = new AtomicReference<>();
+		firstWrongResult = new AtomicReference<>();
+		reloadsRequested = new AtomicInteger();
+		reloadsDone = new AtomicInteger();
+		reloadsFailed = new AtomicInteger();
+	}
+	
+	/**
+	 * Runs the load test with the options specified as key=value, and exits with 0 if it passed, 1 if it failed, or
+	 * 2 if the options are invalid.
+	 *
+	 * @param args The options, i.e. players=200.
+	 * @throws Exception If the load test couldn't run.
+	 */
+	public static void main(String[] args) throws Exception {
+		ChatLoadTest loadTest;
+		try {
+			loadTest = new ChatLoadTest(new ToolOptions(args));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+		System.exit(loadTest.run() ? 0 : 1);
+	}
+	
+	/**
+	 * Runs the load test and prints the report.
+	 *
+	 * @return True if the load test passed, false otherwise.
+	 * @throws Exception If the load test couldn't run.
+	 */
+	public boolean run() throws Exception {
+		Logger logger = Logger.getLogger("EmojiChat Load Test");
+		SimulatedServer server = new SimulatedServer(logger, this::onConsoleMessage);
+		Map<String, Object> config = new HashMap<>();
+		config.put("emojis-on-signs", true);
+		config.put("emojis-in-commands", true);
+		config.put("fix-emoji-coloring", fixColoring);
+		SimulatedEmojiChat plugin = new SimulatedEmojiChat(server, config);
+		server.registerCommands(plugin);
+		server.runOnMainThread(plugin::enable);
+		
+		Player[] onlinePlayers = new Player[players];
+		try {
+			for (int i = 0; i < players; i++) {
+				Player player = server.createPlayer("Player" + i);
+				server.runOnMainThread(() -> server.callEvent(new PlayerJoinEvent(player, player.getName() + " joined the game")));
+				onlinePlayers[i] = player;
+			}
+			prepare(server, plugin.getEmojiHandler(), onlinePlayers[0]);
+			
+			logger.info("Sending events from " + players + " players for " + (warmupSeconds + durationSeconds) + " seconds...");
+			GcSnapshot[] gc = send(server, onlinePlayers);
+			return report(gc[0], gc[1], server.getTaskErrors());
+		} finally {
+			server.runOnMainThread(() -> {
+				for (Player player : onlinePlayers) {
+					if (player != null) {
+						server.callEvent(new PlayerQuitEvent(player, player.getName() + " left the game"));
+					}
+				}
+				try {
+					plugin.close();
+				} catch (IOException e) {
+					logger.warning("Couldn't delete the data folder: " + e.getMessage());
+				}
+			});
+			server.shutdown();
+		}
+	}
+	
+	/**
+	 * Creates the text for every event and corpus in the mix, and fires each one once to get the expected results.
+	 * The events are fired one at a time, so which thread they're fired on doesn't matter.
+	 *
+	 * @param server The server.
+	 * @param emojiHandler The {@link EmojiHandler} to generate the corpora from.
+	 * @param player The player who fires the events.
+	 */
+	private void prepare(SimulatedServer server, EmojiHandler emojiHandler, Player player) {
+		String[][] messages = new String[Corpus.values().length][];
+		for (LoadEvent kind : LoadEvent.values()) {
+			if (eventWeights[kind.ordinal()] == 0) {
+				continue;
+			}
+			for (Corpus picked : Corpus.values()) {
+				Corpus corpus = kind.getCorpus(picked);
+				if (corpusWeights[picked.ordinal()] == 0 || inputs[kind.ordinal()][corpus.ordinal()] != null) {
+					continue;
+				}
+				if (messages[corpus.ordinal()] == null) {
+					messages[corpus.ordinal()] = corpus.generate(emojiHandler);
+				}
+				
+				String[][] text = new String[Corpus.SIZE][];
+				String[][] results = new String[Corpus.SIZE][];
+				for (int i = 0; i < Corpus.SIZE; i++) {
+					text[i] = kind.createText(messages[corpus.ordinal()], i);
+					Event event = kind.create(player, text[i]);
+					server.callEvent(event);
+					results[i] = kind.getResult(event);
+				}
+				inputs[kind.ordinal()][corpus.ordinal()] = text;
+				expected[kind.ordinal()][corpus.ordinal()] = results;
+			}
+		}
+	}
+	
+	/**
+	 * Has every player send events for the warmup and the duration, and reloads every reload-every seconds.
+	 *
+	 * @param server The server.
+	 * @param onlinePlayers The players.
+	 * @return The GC snapshots from the start and the end of the duration.
+	 * @throws InterruptedException If interrupted while waiting for the players.
+	 */
+	private GcSnapshot[] send(SimulatedServer server, Player[] onlinePlayers) throws InterruptedException {
+		long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100L); // Give every player time to start
+		long measureStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+		
+		Thread[] threads = new Thread[onlinePlayers.length];
+		for (int i = 0; i < threads.length; i++) {
+			Player player = onlinePlayers[i];
+			Random random = new Random(i); // Same events every run
+			threads[i] = new Thread(() -> play(server, player, random, start, measureStart, end), player.getName());
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		
+		ScheduledExecutorService reloader = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "Reloader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		if (reloadEverySeconds > 0) {
+			long firstReload = start + TimeUnit.SECONDS.toNanos(reloadEverySeconds) - System.nanoTime();
+			reloader.scheduleAtFixedRate(() -> reload(server), firstReload, TimeUnit.SECONDS.toNanos(reloadEverySeconds), TimeUnit.NANOSECONDS);
+		}
+		
+		sleepUntil(measureStart);
+		GcSnapshot before = new GcSnapshot();
+		sleepUntil(end);
+		GcSnapshot after = new GcSnapshot();
+		reloader.shutdown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		reloader.awaitTermination(30L, TimeUnit.SECONDS);
+		
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+		while (reloadsDone.get() + reloadsFailed.get() < reloadsRequested.get() && System.nanoTime() < deadline) { // Let the last reload finish
+			Thread.sleep(50L);
+		}
+		return new GcSnapshot[] {before, after};
+	}
+	
+	/**
+	 * Sends events as the specified player until the end.
+	 *
+	 * @param server The server.
+	 * @param player The player.
+	 * @param random The random to pick the events with.
+	 * @param start When to start sending events, from {@link System#nanoTime()}.
+	 * @param measureStart When to start measuring events.
+	 * @param end When to stop sending events.
+	 */
+	private void play(SimulatedServer server, Player player, Random random, long start, long measureStart, long end) {
+		long interval = rate > 0D ? (long) (TimeUnit.SECONDS.toNanos(1L) / rate) : 0L;
+		long due = start + (long) (random.nextDouble() * interval); // Spread the players out over the first interval
+		try {
+			while (true) {
+				if (interval > 0L) {
+					sleepUntil(due);
+				} else {
+					due = System.nanoTime();
+				}
+				if (due >= end) {
+					return;
+				}
+				
+				LoadEvent kind = eventMix[random.nextInt(eventMix.length)];
+				Corpus corpus = kind.getCorpus(corpusMix[random.nextInt(corpusMix.length)]);
+				fire(server, player, kind, corpus, random.nextInt(Corpus.SIZE), due, due >= measureStart);
+				due += interval;
+			}
+		} catch (InterruptedException ignored) { // Stopped early
+		}
+	}
+	
+	/**
+	 * Fires an event, on the player's thread or the main thread depending on the event, then checks and counts it.
+	 *
+	 * @param server The server.
+	 * @param player The player.
+	 * @param kind The event to fire.
+	 * @param corpus The corpus the text is from.
+	 * @param index The index of the text.
+	 * @param due When the event was due to be sent, from {@link System#nanoTime()}.
+	 * @param measure If the event's latency should be counted.
+	 * @throws InterruptedException If interrupted while waiting for the main thread.
+	 */
+	private void fire(SimulatedServer server, Player player, LoadEvent kind, Corpus corpus, int index, long due, boolean measure) throws InterruptedException {
+		Event event = kind.create(player, inputs[kind.ordinal()][corpus.ordinal()][index]);
+		try {
+			if (kind.isAsync()) {
+				server.callEvent(event);
+			} else {
+				server.runOnMainThread(() -> server.callEvent(event));
+			}
+		} catch (RuntimeException e) {
+			errors[kind.ordinal()].increment();
+			firstError.compareAndSet(null, e);
+			return;
+		}
+		long nanos = System.nanoTime() - due;
+		
+		String[] result = kind.getResult(event);
+		String[] expectedResult = expected[kind.ordinal()][corpus.ordinal()][index];
+		if (!Arrays.equals(result, expectedResult)) {
+			wrongResults[kind.ordinal()].increment();
+			firstWrongResult.compareAndSet(null, kind + " " + Arrays.toString(inputs[kind.ordinal()][corpus.ordinal()][index])
+					+ " gave " + Arrays.toString(result) + " instead of " + Arrays.toString(expectedResult));
+		}
+		if (measure) {
+			events[kind.ordinal()].increment();
+			latency[kind.ordinal()].record(nanos);
+			totalLatency.record(nanos);
+		}
+	}
+	
+	/**
+	 * Sends /emojichat reload from the console, on the main thread.
+	 *
+	 * @param server The server.
+	 */
+	private void reload(SimulatedServer server) {
+		reloadsRequested.incrementAndGet();
+		try {
+			server.runOnMainThread(() -> server.dispatchCommand(server.getConsoleSender(), "emojichat reload"));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			reloadsFailed.incrementAndGet();
+			firstError.compareAndSet(null, e);
+		}
+	}
+	
+	/**
+	 * Counts the replies to /emojichat reload, and logs anything else sent to the console.
+	 *
+	 * @param message The message sent to the console.
+	 */
+	private void onConsoleMessage(String message) {
+		if (message.contains("EmojiChat config reloaded")) {
+			reloadsDone.incrementAndGet();
+		} else if (message.contains("couldn't reload")) {
+			reloadsFailed.incrementAndGet();
+		} else {
+			Logger.getLogger("EmojiChat Load Test").info(ChatColor.stripColor(message));
+		}
+	}
+	
+	/**
+	 * Prints the report.
+	 *
+	 * @param before The GC snapshot from the start of the duration.
+	 * @param after The GC snapshot from the end of the duration.
+	 * @param taskErrors The number of server tasks that threw an exception.
+	 * @return True if the load test passed, false otherwise.
+	 */
+	private boolean report(GcSnapshot before, GcSnapshot after, long taskErrors) {
+		System.out.println();
+		System.out.printf(Locale.ROOT, "%d players sending %s for %ds after a %ds warmup%s, fix-emoji-coloring %s%n", players,
+				rate > 0D ? rate + " events/s each" : "as fast as they can", durationSeconds, warmupSeconds,
+				reloadEverySeconds > 0 ? ", reloading every " + reloadEverySeconds + "s" : "", fixColoring ? "on" : "off");
+		System.out.println("mix " + describeWeights(eventWeights, LoadEvent.values()) + ", corpus " + describeWeights(corpusWeights, Corpus.values()));
+		System.out.println();
+		System.out.printf(Locale.ROOT, "%-8s %10s %10s %10s %10s %10s %10s %8s %8s%n", "event", "events", "events/s", "p50", "p99", "p99.9", "max", "wrong", "errors");
+		long totalEvents = 0L;
+		long totalWrong = 0L;
+		long totalErrors = 0L;
+		for (LoadEvent kind : LoadEvent.values()) {
+			if (eventWeights[kind.ordinal()] == 0) {
+				continue;
+			}
+			printRow(kind.name().toLowerCase(Locale.ROOT), events[kind.ordinal()].sum(), latency[kind.ordinal()], wrongResults[kind.ordinal()].sum(), errors[kind.ordinal()].sum());
+			totalEvents += events[kind.ordinal()].sum();
+			totalWrong += wrongResults[kind.ordinal()].sum();
+			totalErrors += errors[kind.ordinal()].sum();
+		}
+		printRow("total", totalEvents, totalLatency, totalWrong, totalErrors);
+		System.out.println();
+		
+		if (reloadEverySeconds > 0) {
+			System.out.printf(Locale.ROOT, "reloads: %d sent, %d done, %d failed%n", reloadsRequested.get(), reloadsDone.get(), reloadsFailed.get());
+		}
+		long gcMillis = after.collectionMillis - before.collectionMillis;
+		System.out.printf(Locale.ROOT, "gc: %d collections taking %dms (%.2f%% of the duration)", after.collections - before.collections,
+				gcMillis, gcMillis * 100D / TimeUnit.SECONDS.toMillis(durationSeconds));
+		if (before.allocatedBytes >= 0L && after.allocatedBytes >= 0L) {
+			long allocated = after.allocatedBytes - before.allocatedBytes;
+			System.out.printf(Locale.ROOT, ", %.1f MB/s allocated, %d bytes per event", allocated / 1e6 / durationSeconds,
+					totalEvents == 0L ? 0L : allocated / totalEvents);
+		}
+		System.out.println();
+		if (taskErrors > 0L) {
+			System.out.println("server tasks that threw an exception: " + taskErrors);
+		}
+		
+		int unfinishedReloads = reloadsRequested.get() - reloadsDone.get() - reloadsFailed.get();
+		boolean passed = totalWrong == 0L && totalErrors == 0L && taskErrors == 0L && reloadsFailed.get() == 0 && unfinishedReloads == 0;
+		if (firstWrongResult.get() != null) {
+			System.out.println("first wrong result: " + firstWrongResult.get());
+		}
+		if (firstError.get() != null) {
+			System.out.println("first exception:");
+			firstError.get().printStackTrace(System.out);
+		}
+		if (unfinishedReloads > 0) {
+			System.out.println("reloads that didn't finish: " + unfinishedReloads);
+		}
+		System.out.println(passed ? "PASSED" : "FAILED");
+		return passed;
+	}
+	
+	/**
+	 * Prints a row of the report.
+	 *
+	 * @param name The row name.
+	 * @param count The number of events measured.
+	 * @param histogram The latency of the events measured.
+	 * @param wrong The number of wrong results.
+	 * @param errors The number of exceptions.
+	 */
+	private void printRow(String name, long count, LatencyHistogram histogram, long wrong, long errors) {
+		System.out.printf(Locale.ROOT, "%-8s %10d %10.0f %10s %10s %10s %10s %8d %8d%n", name, count, (double) count / durationSeconds,
+				formatNanos(histogram.getPercentile(0.5D)), formatNanos(histogram.getPercentile(0.99D)),
+				formatNanos(histogram.getPercentile(0.999D)), formatNanos(histogram.getPercentile(1D)), wrong, errors);
+	}
+	
+	/**
+	 * Formats a duration in microseconds, or milliseconds if it's at least 1ms.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The formatted duration, i.e. 12.3us.
+	 */
+	private static String formatNanos(long nanos) {
+		return nanos < 1_000_000L ? String.format(Locale.ROOT, "%.1fus", nanos / 1e3) : String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+	}
+	
+	/**
+	 * Describes the specified weights, i.e. "chat 80, sign 10, command 10".
+	 *
+	 * @param weights The weights.
+	 * @param values The values the weights are for.
+	 * @return The description.
+	 */
+	private static String describeWeights(int[] weights, Enum<?>[] values) {
+		StringBuilder description = new StringBuilder();
+		for (Enum<?> value : values) {
+			if (weights[value.ordinal()] > 0) {
+				description.append(description.length() == 0 ? "" : ", ").append(value.name().toLowerCase(Locale.ROOT)).append(' ').append(weights[value.ordinal()]);
+			}
+		}
+		return description.toString();
+	}
+	
+	/**
+	 * Sleeps until the specified time.
+	 *
+	 * @param time The time, from {@link System#nanoTime()}.
+	 * @throws InterruptedException If interrupted while sleeping.
+	 */
+	private static void sleepUntil(long time) throws InterruptedException {
+		long now;
+		while ((now = System.nanoTime()) < time) {
+			LockSupport.parkNanos(time - now);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+	
+	/**
+	 * Reads the specified weights option, i.e. "chat:80,sign:10", or gets the default weights if it wasn't specified.
+	 * Values that aren't listed have a weight of 0, and values without a weight have a weight of 1.
+	 *
+	 * @param options The options.
+	 * @param key The option.
+	 * @param defaultValue The default weights.
+	 * @param type The enum the weights are for.
+	 * @param <E> The enum the weights are for.
+	 * @return The weight of each enum value, by ordinal.
+	 * @throws IllegalArgumentException If the weights are invalid.
+	 */
+	private static <E extends Enum<E>> int[] getWeights(ToolOptions options, String key, String defaultValue, Class<E> type) {
+		String value = options.get(key, defaultValue);
+		int[] weights = new int[type.getEnumConstants().length];
+		int total = 0;
+		for (String entry : value.split(",")) {
+			String[] parts = entry.trim().split(":");
+			try {
+				int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+				if (parts.length > 2 || weight < 0) {
+					throw new IllegalArgumentException();
+				}
+				weights[Enum.valueOf(type, parts[0].trim().toUpperCase(Locale.ROOT).replace('-', '_')).ordinal()] = weight;
+				total += weight;
+			} catch (IllegalArgumentException e) { // Unknown value or invalid weight
+				throw new IllegalArgumentException("Invalid " + key + " entry '" + entry + "', use one of "
+						+ Arrays.toString(type.getEnumConstants()).toLowerCase(Locale.ROOT) + " with a weight of at least 0");
+			}
+		}
+		if (total == 0) {
+			throw new IllegalArgumentException(key + " needs a weight above 0");
+		}
+		return weights;
+	}
+	
+	/**
+	 * Creates an array with each enum value as many times as its weight, to pick from at random.
+	 *
+	 * @param weights The weight of each enum value, by ordinal.
+	 * @param type The enum.
+	 * @param <E> The enum.
+	 * @return The array.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <E extends Enum<E>> E[] createMix(int[] weights, Class<E> type) {
+		E[] mix = (E[]) Array.newInstance(type, Arrays.stream(weights).sum());
+		int position = 0;
+		for (E value : type.getEnumConstants()) {
+			for (int i = 0; i < weights[value.ordinal()]; i++) {
+				mix[position++] = value;
+			}
+		}
+		return mix;
+	}
+	
+	/**
+	 * The GC and allocation counters at one point in time.
+	 */
+	private static class GcSnapshot {
+		/**
+		 * The number of garbage collections so far.
+		 */
+		private final long collections;
+		/**
+		 * The time spent in garbage collections so far, in milliseconds.
+		 */
+		private final long collectionMillis;
+		/**
+		 * The bytes allocated so far by the threads that are still running, or -1 if the JVM can't tell.
+		 */
+		private final long allocatedBytes;
+		
+		/**
+		 * Takes the snapshot.
+		 */
+		private GcSnapshot() {
+			long collections = 0L;
+			long collectionMillis = 0L;
+			for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+				collections += Math.max(0L, collector.getCollectionCount()); // -1 if the collector can't tell
+				collectionMillis += Math.max(0L, collector.getCollectionTime());
+			}
+			this.collections = collections;
+			this.collectionMillis = collectionMillis;
+			
+			long allocatedBytes = -1L;
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+				allocatedBytes = 0L;
+				for (long bytes : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+					allocatedBytes += Math.max(0L, bytes); // -1 for threads that stopped
+				}
+			}
+			this.allocatedBytes = allocatedBytes;
+		}
+	}
+}
@@ -0,0 +1,455 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.metrics.EmojiStats;
+import io.github.radbuilder.emojichat.metrics.LatencyRecorder;
+import io.github.radbuilder.emojichat.metrics.LatencyStage;
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.TranslationCache;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a chat log through the {@link EmojiHandler} in a tight loop, so plugin versions can be compared on the
+ * messages players really send. The log can be a server's latest.log, where chat messages (&lt;name&gt; message) are
+ * replayed as chat and commands (name issued server command: /command) as commands, or a plain text file, where every
+ * line is a chat message.
+ * <p>
+ * The messages are translated with the production config (config=path to a server's config.yml, or the default
+ * config.yml), translation cache included, and the replay reports the messages per second, the time per message and
+ * what each message matched. The slowest messages are then timed one by one with the cache off, with the time each
+ * {@link LatencyStage} took.
+ * <p>
+ * Build with mvn package, then run i.e. java -cp benchmarks/target/benchmarks.jar
+ * io.github.radbuilder.emojichat.benchmarks.ChatLogReplay logs/latest.log config=plugins/EmojiChat/config.yml. See
+ * {@link #USAGE} for the options.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class ChatLogReplay {
+	/**
+	 * The arguments and options, with their defaults.
+	 */
+	private static final String USAGE = "Usage: ChatLogReplay <chat log> [config=<config.yml>] [warmup=3] [duration=10] [slowest=10] [shortcuts=true]\n"
+			+ "  The chat log is a latest.log or plain text lines, warmup and duration are in seconds, and shortcuts=false"
+			+ " replays players that toggled shortcuts off";
+	/**
+	 * A latest.log line, i.e. "[12:34:56] [Server thread/INFO]: " or "[12:34:56 INFO]: ", followed by the logged text.
+	 */
+	private static final Pattern LOG_LINE = Pattern.compile("^\\[\\d{1,2}:\\d{2}:\\d{2}(?: [A-Z]+)?\\](?: \\[[^\\]]*\\])?: (.*)$");
+	/**
+	 * A logged chat message, i.e. "&lt;Notch&gt; hi :)", with the message in group 1.
+	 */
+	private static final Pattern CHAT_LINE = Pattern.compile("^(?:\\[[^\\]]*\\] ?)*<[^>]+> (.*)$");
+	/**
+	 * A logged command, i.e. "Notch issued server command: /msg jeb_ hi :)", with the command in group 1.
+	 */
+	private static final Pattern COMMAND_LINE = Pattern.compile("^\\S+ issued server command: (/.*)$");
+	/**
+	 * How many times each of the slowest messages is timed for the stage breakdown.
+	 */
+	private static final int BREAKDOWN_REPEATS = 200;
+	/**
+	 * How many times every distinct message is translated with the cache off before the slowest are picked.
+	 */
+	private static final int SLOWEST_WARMUP_PASSES = 20;
+	/**
+	 * The messages to replay, in order.
+	 */
+	private final List<String> messages;
+	/**
+	 * The {@link EmojiSurface} of each message in {@link #messages}.
+	 */
+	private final List<EmojiSurface> surfaces;
+	/**
+	 * The number of log lines that weren't chat messages or commands.
+	 */
+	private int skippedLines;
+	/**
+	 * The config.yml, or null to use the default config.yml.
+	 */
+	private final File configFile;
+	/**
+	 * How many seconds to replay for before measuring.
+	 */
+	private final int warmupSeconds;
+	/**
+	 * How many seconds to measure for.
+	 */
+	private final int durationSeconds;
+	/**
+	 * How many of the slowest messages to report.
+	 */
+	private final int slowest;
+	/**
+	 * If shortcuts should be translated.
+	 */
+	private final boolean useShortcuts;
+	
+	/**
+	 * Creates the replay with the specified arguments and options.
+	 *
+	 * @param options The chat log and the options, i.e. duration=30.
+	 * @throws IllegalArgumentException If the chat log is missing, or an option is unknown or invalid.
+	 */
+	ChatLogReplay(ToolOptions options) {
+		if (options.getArguments().size() != 1) {
+			throw new IllegalArgumentException("Specify one chat log to replay");
+		}
+		String config = options.get("config", null);
+		configFile = config == null ? null : new File(config);
+		warmupSeconds = options.getInt("warmup", 3, 0);
+		durationSeconds = options.getInt("duration", 10, 1);
+		slowest = options.getInt("slowest", 10, 0);
+		useShortcuts = options.getBoolean("shortcuts", true);
+		options.checkAllRead();
+		if (configFile != null && !configFile.isFile()) {
+			throw new IllegalArgumentException("The config " + configFile + " doesn't exist");
+		}
+		
+		messages = new ArrayList<>();
+		surfaces = new ArrayList<>();
+	}
+	
+	/**
+	 * Replays the specified chat log, and exits with 2 if the arguments are invalid.
+	 *
+	 * @param args The chat log and the options, i.e. duration=30.
+	 * @throws Exception If the chat log couldn't be read or replayed.
+	 */
+	public static void main(String[] args) throws Exception {
+		ToolOptions options = new ToolOptions(args);
+		ChatLogReplay replay;
+		try {
+			replay = new ChatLogReplay(options);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+		
+		File log = new File(options.getArguments().get(0));
+		replay.read(log);
+		if (replay.messages.isEmpty()) {
+			System.err.println("There aren't any chat messages or commands in " + log);
+			System.exit(2);
+		}
+		replay.run();
+	}
+	
+	/**
+	 * Reads the chat messages and commands from the specified chat log. Bytes that aren't UTF-8 are replaced, like the
+	 * server does when reading chat.
+	 *
+	 * @param log The chat log.
+	 * @throws IOException If the chat log couldn't be read.
+	 */
+	private void read(File log) throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(log), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				readLine(line);
+			}
+		}
+	}
+	
+	/**
+	 * Reads a chat message or command from the specified line, or skips it if it's neither.
+	 *
+	 * @param line The line, from a latest.log or a plain text file.
+	 */
+	private void readLine(String line) {
+		Matcher logLine = LOG_LINE.matcher(line);
+		if (!logLine.matches()) { // Plain text, every line is a chat message
+			if (line.trim().isEmpty()) {
+				skippedLines++;
+			} else {
+				add(line, EmojiSurface.CHAT);
+			}
+			return;
+		}
+		
+		String text = logLine.group(1);
+		Matcher chat = CHAT_LINE.matcher(text);
+		if (chat.matches()) {
+			add(chat.group(1), EmojiSurface.CHAT);
+			return;
+		}
+		Matcher command = COMMAND_LINE.matcher(text);
+		if (command.matches()) {
+			add(command.group(1), EmojiSurface.COMMAND);
+			return;
+		}
+		skippedLines++; // Joins, quits, plugin messages, etc.
+	}
+	
+	/**
+	 * Adds a message to replay.
+	 *
+	 * @param message The message.
+	 * @param surface The {@link EmojiSurface} it was sent on.
+	 */
+	private void add(String message, EmojiSurface surface) {
+		messages.add(message);
+		surfaces.add(surface);
+	}
+	
+	/**
+	 * Replays the chat log, then prints the report.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	private void run() throws Exception {
+		String[] replayed = messages.toArray(new String[0]);
+		EmojiSurface[] replayedSurfaces = surfaces.toArray(new EmojiSurface[0]);
+		
+		HeadlessEmojiChat plugin = new HeadlessEmojiChat(configFile, Collections.emptyMap());
+		HeadlessEmojiChat uncached = new HeadlessEmojiChat(configFile, Collections.singletonMap("translation-cache-size", 0));
+		try {
+			EmojiHandler emojiHandler = plugin.getEmojiHandler();
+			if (warmupSeconds > 0) {
+				System.out.printf(Locale.ROOT, "Warming up for %ds...%n", warmupSeconds);
+				replay(emojiHandler, replayed, replayedSurfaces, TimeUnit.SECONDS.toNanos(warmupSeconds));
+			}
+			System.out.printf(Locale.ROOT, "Replaying for %ds...%n", durationSeconds);
+			
+			EmojiStats stats = plugin.getMetricsHandler();
+			TranslationCache cache = emojiHandler.getCache();
+			StatsSnapshot before = new StatsSnapshot(stats, cache);
+			long start = System.nanoTime();
+			long[] result = replay(emojiHandler, replayed, replayedSurfaces, TimeUnit.SECONDS.toNanos(durationSeconds));
+			long elapsed = System.nanoTime() - start;
+			StatsSnapshot after = new StatsSnapshot(stats, cache);
+			
+			report(result[0], result[1], elapsed, before, after, cache != null);
+			if (slowest > 0) {
+				reportSlowest(uncached.getEmojiHandler(), uncached.getMetricsHandler());
+			}
+		} finally {
+			plugin.close();
+			uncached.close();
+		}
+	}
+	
+	/**
+	 * Translates the messages over and over, in order, for the specified time.
+	 *
+	 * @param emojiHandler The emoji handler.
+	 * @param replayed The messages.
+	 * @param replayedSurfaces The {@link EmojiSurface} of each message.
+	 * @param nanos How long to replay for.
+	 * @return The number of messages translated, then how many of them contained a disabled character.
+	 */
+	private long[] replay(EmojiHandler emojiHandler, String[] replayed, EmojiSurface[] replayedSurfaces, long nanos) {
+		long end = System.nanoTime() + nanos;
+		long translated = 0L;
+		long disabled = 0L;
+		int hash = 0; // So the results are used
+		do {
+			for (int i = 0; i < replayed.length; i++) {
+				String result = emojiHandler.translate(replayed[i], replayedSurfaces[i], useShortcuts);
+				if (result == null) {
+					disabled++;
+				} else {
+					hash += result.length();
+				}
+			}
+			translated += replayed.length;
+		} while (System.nanoTime() < end);
+		if (hash == 42) { // Practically never, but the JIT can't tell
+			System.out.print("");
+		}
+		return new long[] {translated, disabled};
+	}
+	
+	/**
+	 * Prints the throughput part of the report.
+	 *
+	 * @param translated The number of messages translated.
+	 * @param disabled The number of messages that contained a disabled character.
+	 * @param elapsed How long translating took, in nanoseconds.
+	 * @param before The stats from before replaying.
+	 * @param after The stats from after replaying.
+	 * @param cached If the translation cache is enabled.
+	 */
+	private void report(long translated, long disabled, long elapsed, StatsSnapshot before, StatsSnapshot after, boolean cached) {
+		long chat = 0L;
+		for (EmojiSurface surface : surfaces) {
+			if (surface == EmojiSurface.CHAT) {
+				chat++;
+			}
+		}
+		System.out.println();
+		System.out.printf(Locale.ROOT, "%d messages (%d chat, %d commands, %d other lines skipped), config %s, shortcuts %s%n",
+				messages.size(), chat, messages.size() - chat, skippedLines, configFile == null ? "default" : configFile.getPath(), useShortcuts ? "on" : "off");
+		System.out.printf(Locale.ROOT, "%.0f messages/s, %.0fns per message, %d passes over the log%n", translated * 1e9 / elapsed,
+				(double) elapsed / translated, translated / messages.size());
+		
+		long counted = after.messagesTranslated - before.messagesTranslated;
+		long lookups = after.cacheHits + after.cacheMisses - before.cacheHits - before.cacheMisses;
+		System.out.printf(Locale.ROOT, "fast path %s, cache hits %s, disabled characters %s%n", percentage(after.fastPaths - before.fastPaths, counted),
+				cached ? percentage(after.cacheHits - before.cacheHits, lookups) : "off", percentage(disabled, translated));
+		long emojis = after.emojisUsed - before.emojisUsed;
+		long shortcuts = after.shortcutsUsed - before.shortcutsUsed;
+		long escapes = after.escapesUsed - before.escapesUsed;
+		System.out.printf(Locale.ROOT, "per message: %.3f matches (%.3f emojis, %.3f shortcuts, %.3f escapes)%n",
+				(double) (emojis + shortcuts + escapes) / translated, (double) emojis / translated, (double) shortcuts / translated, (double) escapes / translated);
+	}
+	
+	/**
+	 * Times every distinct message with the cache off, then prints the slowest ones with the time each
+	 * {@link LatencyStage} took.
+	 *
+	 * @param emojiHandler The emoji handler, with the translation cache off.
+	 * @param stats The emoji handler's stats.
+	 */
+	private void reportSlowest(EmojiHandler emojiHandler, EmojiStats stats) {
+		Map<String, EmojiSurface> distinct = new LinkedHashMap<>();
+		for (int i = 0; i < messages.size(); i++) {
+			distinct.putIfAbsent(messages.get(i), surfaces.get(i));
+		}
+		for (int i = 0; i < SLOWEST_WARMUP_PASSES; i++) { // The cache was on until now, so the uncached code isn't warm yet
+			for (Map.Entry<String, EmojiSurface> message : distinct.entrySet()) {
+				emojiHandler.translate(message.getKey(), message.getValue(), useShortcuts);
+			}
+		}
+		Map<String, Long> times = new HashMap<>();
+		for (Map.Entry<String, EmojiSurface> message : distinct.entrySet()) {
+			long best = Long.MAX_VALUE;
+			for (int i = 0; i < 5; i++) { // The best of 5, so a GC pause doesn't make a message look slow
+				long start = System.nanoTime();
+				emojiHandler.translate(message.getKey(), message.getValue(), useShortcuts);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			times.put(message.getKey(), best);
+		}
+		List<String> ranked = new ArrayList<>(distinct.keySet());
+		ranked.sort((first, second) -> Long.compare(times.get(second), times.get(first)));
+		
+		System.out.println();
+		System.out.printf(Locale.ROOT, "The %d slowest of %d distinct messages, cache off (p50 of %d runs):%n", Math.min(slowest, ranked.size()),
+				ranked.size(), BREAKDOWN_REPEATS);
+		System.out.printf(Locale.ROOT, "%-8s %10s %10s %14s %7s %7s  %s%n", "surface", LatencyStage.TRANSLATE.getDisplayName(),
+				LatencyStage.SHORTHAND.getDisplayName(), LatencyStage.DISABLED_CHECK.getDisplayName(), "length", "matches", "message");
+		LatencyRecorder latency = stats.getLatency();
+		latency.setEnabled(true);
+		for (String message : ranked.subList(0, Math.min(slowest, ranked.size()))) {
+			EmojiSurface surface = distinct.get(message);
+			long matchesBefore = stats.getEmojisUsed().get() + stats.getShortcutsUsed().get() + stats.getEscapesUsed().get();
+			emojiHandler.translate(message, surface, useShortcuts);
+			long matches = stats.getEmojisUsed().get() + stats.getShortcutsUsed().get() + stats.getEscapesUsed().get() - matchesBefore;
+			
+			latency.reset();
+			for (int i = 0; i < BREAKDOWN_REPEATS; i++) {
+				emojiHandler.translate(message, surface, useShortcuts);
+				emojiHandler.translateShorthand(message);
+				emojiHandler.containsDisabledCharacter(message);
+			}
+			System.out.printf(Locale.ROOT, "%-8s %10s %10s %14s %7d %7d  %s%n", surface.name().toLowerCase(Locale.ROOT),
+					formatNanos(latency.getHistogram(LatencyStage.TRANSLATE, surface).getPercentile(0.5D)),
+					formatNanos(latency.getHistogram(LatencyStage.SHORTHAND, EmojiSurface.CHAT).getPercentile(0.5D)),
+					formatNanos(latency.getHistogram(LatencyStage.DISABLED_CHECK, EmojiSurface.CHAT).getPercentile(0.5D)),
+					message.length(), matches, truncate(message));
+		}
+		latency.setEnabled(false);
+	}
+	
+	/**
+	 * Formats the specified part of the specified total as a percentage.
+	 *
+	 * @param part The part.
+	 * @param total The total.
+	 * @return The percentage, i.e. 12.3%.
+	 */
+	private static String percentage(long part, long total) {
+		return total == 0L ? "n/a" : String.format(Locale.ROOT, "%.1f%%", part * 100D / total);
+	}
+	
+	/**
+	 * Formats a duration in nanoseconds, or microseconds if it's at least 10us.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The formatted duration, i.e. 850ns.
+	 */
+	private static String formatNanos(long nanos) {
+		return nanos < 10_000L ? nanos + "ns" : String.format(Locale.ROOT, "%.1fus", nanos / 1e3);
+	}
+	
+	/**
+	 * Truncates the specified message to fit on one line of the report.
+	 *
+	 * @param message The message.
+	 * @return The message, cut to 60 characters.
+	 */
+	private static String truncate(String message) {
+		return message.length() <= 60 ? message : message.substring(0, 57) + "...";
+	}
+	
+	/**
+	 * The stats at one point of the replay.
+	 */
+	private static class StatsSnapshot {
+		/**
+		 * The number of messages translated.
+		 */
+		private final long messagesTranslated;
+		/**
+		 * The number of messages that took the fast path.
+		 */
+		private final long fastPaths;
+		/**
+		 * The number of emojis used.
+		 */
+		private final long emojisUsed;
+		/**
+		 * The number of shortcuts used.
+		 */
+		private final long shortcutsUsed;
+		/**
+		 * The number of escaped shortcuts used.
+		 */
+		private final long escapesUsed;
+		/**
+		 * The number of translation cache hits, or 0 if it's off.
+		 */
+		private final long cacheHits;
+		/**
+		 * The number of translation cache misses, or 0 if it's off.
+		 */
+		private final long cacheMisses;
+		
+		/**
+		 * Takes a snapshot of the specified stats.
+		 *
+		 * @param stats The stats.
+		 * @param cache The translation cache, or null if it's off.
+		 */
+		private StatsSnapshot(EmojiStats stats, TranslationCache cache) {
+			messagesTranslated = stats.getMessagesTranslated();
+			fastPaths = stats.getFastPathsTaken();
+			emojisUsed = stats.getEmojisUsed().get();
+			shortcutsUsed = stats.getShortcutsUsed().get();
+			escapesUsed = stats.getEscapesUsed().get();
+			cacheHits = cache == null ? 0L : cache.getHits();
+			cacheMisses = cache == null ? 0L : cache.getMisses();
+		}
+	}
+}
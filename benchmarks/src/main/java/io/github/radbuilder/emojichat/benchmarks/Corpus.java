@@ -0,0 +1,212 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import org.bukkit.ChatColor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The kinds of messages the benchmarks translate. Each corpus is generated the same way every run from the loaded
+ * shortcodes and shortcuts, so results can be compared between runs.
+ * <p>
+ * Every corpus except {@link #SPAM} has {@link #SIZE} different messages, more than a 1000 message translation cache
+ * holds, so the benchmarks measure translating rather than cache hits even with the cache enabled.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum Corpus {
+	/**
+	 * Everyday chat without any shortcodes or shortcuts, which should take the fast path.
+	 */
+	NO_EMOJI {
+		@Override
+		String generateMessage(Random random, List<String> shortcodes, List<String> shortcuts) {
+			StringBuilder message = new StringBuilder();
+			appendColor(random, message);
+			appendWords(random, message, 2 + random.nextInt(13));
+			return message.toString();
+		}
+	},
+	/**
+	 * Chat where about half of the words are shortcodes (i.e. :smile:) or shortcuts (i.e. :)).
+	 */
+	SHORTCUT_HEAVY {
+		@Override
+		String generateMessage(Random random, List<String> shortcodes, List<String> shortcuts) {
+			StringBuilder message = new StringBuilder();
+			appendColor(random, message);
+			int words = 3 + random.nextInt(10);
+			for (int i = 0; i < words; i++) {
+				if (i > 0) {
+					message.append(' ');
+				}
+				int kind = random.nextInt(4);
+				if (kind == 0) {
+					message.append(pick(random, shortcodes));
+				} else if (kind == 1) {
+					message.append(pick(random, shortcuts));
+				} else {
+					appendWords(random, message, 1);
+				}
+			}
+			return message.toString();
+		}
+	},
+	/**
+	 * Sign lines as long as a sign can hold, with shortcodes next to each other and between short words.
+	 */
+	SIGN_LINES {
+		@Override
+		String generateMessage(Random random, List<String> shortcodes, List<String> shortcuts) {
+			StringBuilder line = new StringBuilder();
+			int length = 40 + random.nextInt(50);
+			while (line.length() < length) {
+				if (random.nextBoolean()) {
+					line.append(pick(random, shortcodes));
+				} else {
+					line.append(' ');
+					appendWords(random, line, 1);
+					line.append(' ');
+				}
+			}
+			return line.toString();
+		}
+	},
+	/**
+	 * The same few messages sent over and over, each as long as chat allows and made of one repeated shortcode, shortcut or word.
+	 */
+	SPAM {
+		@Override
+		String generateMessage(Random random, List<String> shortcodes, List<String> shortcuts) {
+			String repeated;
+			switch (random.nextInt(3)) {
+				case 0:
+					repeated = pick(random, shortcodes);
+					break;
+				case 1:
+					repeated = pick(random, shortcuts) + " ";
+					break;
+				default:
+					repeated = WORDS[random.nextInt(WORDS.length)] + " ";
+					break;
+			}
+			StringBuilder message = new StringBuilder(MAX_CHAT_LENGTH);
+			while (message.length() + repeated.length() <= MAX_CHAT_LENGTH) {
+				message.append(repeated);
+			}
+			return message.toString();
+		}
+		
+		@Override
+		int getDistinctMessages() {
+			return 16;
+		}
+	};
+	
+	/**
+	 * The number of messages in each corpus. A power of 2, so the benchmarks can cycle through them with a mask.
+	 */
+	public static final int SIZE = 4096;
+	/**
+	 * The longest chat message a player can send.
+	 */
+	private static final int MAX_CHAT_LENGTH = 256;
+	/**
+	 * Common chat words.
+	 */
+	private static final String[] WORDS = {"hi", "hey", "hello", "lol", "gg", "ok", "yes", "no", "the", "a", "is", "it", "to",
+			"you", "i", "we", "they", "this", "that", "and", "or", "but", "what", "where", "who", "how", "why", "anyone",
+			"want", "to", "trade", "diamonds", "iron", "for", "my", "base", "spawn", "shop", "come", "here", "tp", "me",
+			"please", "thanks", "thx", "brb", "afk", "back", "night", "morning", "server", "lag", "laggy", "today", "nice",
+			"build", "house", "farm", "creeper", "blew", "up", "died", "lost", "everything", "found", "village", "nether",
+			"portal", "end", "dragon", "mobs", "sheep", "wool", "redstone", "door", "hopper", "chest", "sell", "buy", "cheap",
+			"100", "64", "2", "?", "!", "..."};
+	
+	/**
+	 * Generates the corpus messages.
+	 *
+	 * @param emojiHandler The {@link EmojiHandler} to get the shortcodes and shortcuts from.
+	 * @return The {@link #SIZE} messages.
+	 */
+	public String[] generate(EmojiHandler emojiHandler) {
+		List<String> shortcodes = new ArrayList<>(emojiHandler.getEmojis().keySet());
+		List<String> shortcuts = new ArrayList<>(emojiHandler.getShortcuts().keySet());
+		Collections.sort(shortcodes); // Same order every run
+		Collections.sort(shortcuts);
+		
+		Random random = new Random(ordinal());
+		String[] distinct = new String[getDistinctMessages()];
+		for (int i = 0; i < distinct.length; i++) {
+			distinct[i] = generateMessage(random, shortcodes, shortcuts);
+		}
+		
+		String[] messages = new String[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			messages[i] = distinct[i % distinct.length];
+		}
+		return messages;
+	}
+	
+	/**
+	 * Generates one message.
+	 *
+	 * @param random The random to use.
+	 * @param shortcodes The shortcodes, i.e. :smile:.
+	 * @param shortcuts The shortcuts, i.e. :).
+	 * @return The message.
+	 */
+	abstract String generateMessage(Random random, List<String> shortcodes, List<String> shortcuts);
+	
+	/**
+	 * Gets the number of different messages in the corpus.
+	 *
+	 * @return The number of different messages.
+	 */
+	int getDistinctMessages() {
+		return SIZE;
+	}
+	
+	/**
+	 * Starts a tenth of messages with a color code, like players with color permissions send.
+	 *
+	 * @param random The random to use.
+	 * @param message The message to append to.
+	 */
+	private static void appendColor(Random random, StringBuilder message) {
+		if (random.nextInt(10) == 0) {
+			message.append(ChatColor.COLOR_CHAR).append("0123456789abcdef".charAt(random.nextInt(16)));
+		}
+	}
+	
+	/**
+	 * Appends the specified number of random words, separated by spaces.
+	 *
+	 * @param random The random to use.
+	 * @param message The message to append to.
+	 * @param words The number of words.
+	 */
+	private static void appendWords(Random random, StringBuilder message, int words) {
+		for (int i = 0; i < words; i++) {
+			if (i > 0) {
+				message.append(' ');
+			}
+			message.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+	}
+	
+	/**
+	 * Picks a random element of the specified list.
+	 *
+	 * @param random The random to use.
+	 * @param list The list to pick from.
+	 * @return The picked element.
+	 */
+	private static String pick(Random random, List<String> list) {
+		return list.get(random.nextInt(list.size()));
+	}
+}
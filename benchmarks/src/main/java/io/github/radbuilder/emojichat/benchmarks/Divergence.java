@@ -0,0 +1,74 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+/**
+ * The intentional differences between the {@link io.github.radbuilder.emojichat.utils.EmojiTranslator} and the 1.8.3
+ * translation in {@link LegacyEmojiTranslator}. {@link TranslationDiffTest} only accepts a different result or count
+ * if the translator and 1.8.3 give identical ones once the parts of the message these are about are replaced with
+ * placeholders, and the result is the one {@link ReferenceEmojiTranslator} gives.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum Divergence {
+	/**
+	 * 1.8.3 threw a StringIndexOutOfBoundsException from translateShorthand when a shortcut was in the message twice,
+	 * overlapping itself (i.e. :1:1: with the :1: shortcut) or right after itself with a backslash as its last character
+	 * (i.e. :\:\ with the :\ shortcut), so the message wasn't sent at all.
+	 */
+	LEGACY_EXCEPTION("1.8.3 threw an exception from translateShorthand (a shortcut overlapping itself), now it's translated"),
+	/**
+	 * Links are copied as-is up to the next whitespace, so :/ and :P in them stay as they are. 1.8.3 escaped the :// of
+	 * links (leaving the backslash in if :/ wasn't a shortcut) and translated everything after it.
+	 */
+	LINKS("links are copied as-is, 1.8.3 translated inside them and could leave http\\:// behind"),
+	/**
+	 * Verbatim regions (verbatim-regions in the config) are copied as-is. 1.8.3 didn't have them.
+	 */
+	VERBATIM_REGIONS("verbatim regions are copied as-is, 1.8.3 didn't have them"),
+	/**
+	 * Color and formatting codes are copied as-is, so &amp;8) is a color code followed by ) instead of &amp; followed by
+	 * the 8) shortcut.
+	 */
+	COLOR_CODES("color codes are copied as-is, 1.8.3 translated shortcuts starting in them (i.e. &8))"),
+	/**
+	 * With fix-emoji-coloring, the chat color put back after each emoji is the first two characters of the message the
+	 * player sent. 1.8.3 took them after replacing shortcuts, so a message starting with &sect; and a shortcut (i.e.
+	 * &sect;&lt;3) got &sect; and the first character of the shortcut's replacement.
+	 */
+	CHAT_COLOR("the chat color after emojis comes from the message sent, 1.8.3 took it after replacing shortcuts"),
+	/**
+	 * Shortcodes and shortcuts are found in one pass, and where they overlap the leftmost (then longest) one wins. 1.8.3
+	 * replaced each one in turn, so the config and list.txt order decided overlaps, and a replacement could make a new
+	 * shortcode or shortcut with the text around it (i.e. :)P became :grinning:P, then :grinning:yum:).
+	 */
+	OVERLAPPING_MATCHES("overlapping or touching matches resolve leftmost-longest in one pass, 1.8.3 replaced one pattern at a time"),
+	/**
+	 * A message with a disabled emoji character is blocked without counting anything. 1.8.3 counted the emojis,
+	 * shortcuts and escapes it translated before blocking it.
+	 */
+	DISABLED_NOT_COUNTED("blocked messages (disabled emoji characters) count nothing, 1.8.3 counted what it translated first");
+	
+	/**
+	 * What's different, for the report.
+	 */
+	private final String description;
+	
+	/**
+	 * Creates the divergence.
+	 *
+	 * @param description What's different, for the report.
+	 */
+	Divergence(String description) {
+		this.description = description;
+	}
+	
+	/**
+	 * Gets what's different, for the report.
+	 *
+	 * @return The description.
+	 */
+	public String getDescription() {
+		return description;
+	}
+}
@@ -0,0 +1,34 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the EmojiChat benchmarks, reporting ops/s and, with the GC profiler, bytes allocated per op (gc.alloc.rate.norm).
+ * <p>
+ * Build with mvn package, then run java -jar benchmarks/target/benchmarks.jar. The usual JMH options can be added,
+ * i.e. "ChatBenchmark -p corpus=SPAM" to only run the chat benchmark over the spam corpus.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiChatBenchmarks {
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args The JMH options.
+	 * @throws CommandLineOptionException If the JMH options are invalid.
+	 * @throws RunnerException If a benchmark failed.
+	 */
+	public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
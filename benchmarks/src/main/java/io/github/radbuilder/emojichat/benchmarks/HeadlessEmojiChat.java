@@ -0,0 +1,170 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.EmojiChat;
+import io.github.radbuilder.emojichat.metrics.MetricsHandler;
+import io.github.radbuilder.emojichat.utils.EmojiChatConfigUpdater;
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import org.bukkit.Server;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * EmojiChat without a server, for the benchmarks. Loads the real list.txt and the default config.yml from the plugin jar
+ * (or a server's config.yml) into a temporary data folder, the same way a server would.
+ * <p>
+ * The server only has a logger, so anything that needs a running server fails straight away instead of being measured.
+ * Because of that, metrics-collection is always OFF (bStats needs a server).
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class HeadlessEmojiChat extends EmojiChat {
+	/**
+	 * The temporary data folder, deleted by {@link #close()}.
+	 */
+	private final File dataFolder;
+	/**
+	 * The metrics data handler.
+	 */
+	private final MetricsHandler metricsHandler;
+	/**
+	 * The emoji handler that stores emoji data.
+	 */
+	private final EmojiHandler emojiHandler;
+	
+	/**
+	 * Loads EmojiChat with the default config.yml, changed by the specified config values.
+	 *
+	 * @param config The config values to change, i.e. fix-emoji-coloring.
+	 * @throws IOException If the data folder couldn't be created.
+	 * @throws InvalidDescriptionException If the plugin.yml is invalid.
+	 */
+	public HeadlessEmojiChat(Map<String, Object> config) throws IOException, InvalidDescriptionException {
+		this(null, config);
+	}
+	
+	/**
+	 * Loads EmojiChat with the specified config.yml, changed by the specified config values. An old config.yml is updated
+	 * first, the same way a server would.
+	 *
+	 * @param configFile The config.yml, i.e. a copy of a server's plugins/EmojiChat/config.yml, or null to use the default config.yml.
+	 * @param config The config values to change, i.e. translation-cache-size.
+	 * @throws IOException If the data folder couldn't be created, or the config.yml couldn't be copied.
+	 * @throws InvalidDescriptionException If the plugin.yml is invalid.
+	 */
+	public HeadlessEmojiChat(File configFile, Map<String, Object> config) throws IOException, InvalidDescriptionException {
+		this(Files.createTempDirectory("emojichat-benchmarks").toFile(), configFile, config);
+	}
+	
+	/**
+	 * Loads EmojiChat into the specified data folder, with the specified config.yml changed by the specified config values.
+	 *
+	 * @param dataFolder The data folder.
+	 * @param configFile The config.yml, or null to use the default config.yml.
+	 * @param config The config values to change.
+	 * @throws IOException If the plugin.yml couldn't be read, or the config.yml couldn't be copied.
+	 * @throws InvalidDescriptionException If the plugin.yml is invalid.
+	 */
+	private HeadlessEmojiChat(File dataFolder, File configFile, Map<String, Object> config) throws IOException, InvalidDescriptionException {
+		super(new JavaPluginLoader(createServer()), loadDescription(), dataFolder, new File(dataFolder, "EmojiChat.jar"));
+		this.dataFolder = dataFolder;
+		
+		if (configFile == null) {
+			saveDefaultConfig(); // The config.yml a new server gets
+		} else {
+			Files.copy(configFile.toPath(), new File(dataFolder, "config.yml").toPath());
+			new EmojiChatConfigUpdater(this); // See if it can be updated
+		}
+		getConfig().set("metrics-collection", "OFF");
+		config.forEach(getConfig()::set);
+		
+		metricsHandler = new MetricsHandler(this);
+		emojiHandler = new EmojiHandler(this);
+	}
+	
+	/**
+	 * Creates a server that only has a logger.
+	 *
+	 * @return The server.
+	 */
+	private static Server createServer() {
+		Logger logger = Logger.getLogger("EmojiChat Benchmarks");
+		return (Server) Proxy.newProxyInstance(Server.class.getClassLoader(), new Class<?>[] {Server.class}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getLogger":
+					return logger;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "HeadlessServer";
+				default:
+					throw new UnsupportedOperationException("There's no server while benchmarking, so " + method.getName() + " can't be used");
+			}
+		});
+	}
+	
+	/**
+	 * Reads the plugin.yml from the plugin jar.
+	 *
+	 * @return The plugin.yml contents.
+	 * @throws IOException If the plugin.yml couldn't be read.
+	 * @throws InvalidDescriptionException If the plugin.yml is invalid.
+	 */
+	static PluginDescriptionFile loadDescription() throws IOException, InvalidDescriptionException {
+		try (InputStream input = EmojiChat.class.getResourceAsStream("/plugin.yml")) {
+			if (input == null) {
+				throw new IOException("plugin.yml isn't on the classpath");
+			}
+			return new PluginDescriptionFile(input);
+		}
+	}
+	
+	/**
+	 * Stops the emoji handler and deletes the data folder.
+	 *
+	 * @throws IOException If the data folder couldn't be deleted.
+	 */
+	public void close() throws IOException {
+		emojiHandler.disable();
+		deleteFolder(dataFolder);
+	}
+	
+	/**
+	 * Deletes the specified folder and everything in it.
+	 *
+	 * @param folder The folder to delete.
+	 * @throws IOException If the folder couldn't be deleted.
+	 */
+	static void deleteFolder(File folder) throws IOException {
+		try (Stream<Path> files = Files.walk(folder.toPath())) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) { // Files before their folders
+				Files.delete(file);
+			}
+		}
+	}
+	
+	@Override
+	public EmojiHandler getEmojiHandler() {
+		return emojiHandler;
+	}
+	
+	@Override
+	public MetricsHandler getMetricsHandler() {
+		return metricsHandler;
+	}
+}
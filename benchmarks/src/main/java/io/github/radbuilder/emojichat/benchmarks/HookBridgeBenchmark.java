@@ -0,0 +1,117 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the translations the DiscordSRV and TelegramChat hooks do: emojis back to shortcodes for messages going to
+ * Discord and Telegram, and shortcodes to emojis for messages coming from them.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HookBridgeBenchmark {
+	/**
+	 * The {@link Corpus} to translate.
+	 */
+	@Param
+	public Corpus corpus;
+	/**
+	 * EmojiChat, without a server.
+	 */
+	private HeadlessEmojiChat plugin;
+	/**
+	 * The emoji handler being benchmarked.
+	 */
+	private EmojiHandler emojiHandler;
+	/**
+	 * The corpus messages.
+	 */
+	private String[] messages;
+	/**
+	 * The corpus messages after {@link EmojiHandler#toEmoji(String)}, like in-game chat going to Discord and Telegram.
+	 */
+	private String[] translatedMessages;
+	/**
+	 * The index of the next message.
+	 */
+	private int next;
+	
+	/**
+	 * Loads EmojiChat and generates the corpus.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		plugin = new HeadlessEmojiChat(Collections.emptyMap());
+		emojiHandler = plugin.getEmojiHandler();
+		messages = corpus.generate(emojiHandler);
+		translatedMessages = new String[messages.length];
+		for (int i = 0; i < messages.length; i++) {
+			translatedMessages[i] = emojiHandler.toEmoji(messages[i]);
+		}
+	}
+	
+	/**
+	 * Stops EmojiChat.
+	 *
+	 * @throws Exception If the data folder couldn't be deleted.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		plugin.close();
+	}
+	
+	/**
+	 * Converts the emojis of the next in-game message back to shortcodes, like it's sent to Discord or Telegram.
+	 *
+	 * @return The message with shortcodes.
+	 */
+	@Benchmark
+	public String toDiscordOrTelegram() {
+		return emojiHandler.fromEmoji(translatedMessages[next++ & (Corpus.SIZE - 1)]);
+	}
+	
+	/**
+	 * Translates the next message like it came from Discord.
+	 *
+	 * @return The translated message.
+	 */
+	@Benchmark
+	public String fromDiscord() {
+		return emojiHandler.toEmoji(messages[next++ & (Corpus.SIZE - 1)], EmojiSurface.DISCORD);
+	}
+	
+	/**
+	 * Translates the next message like it came from Telegram.
+	 *
+	 * @return The translated message.
+	 */
+	@Benchmark
+	public String fromTelegram() {
+		return emojiHandler.toEmoji(messages[next++ & (Corpus.SIZE - 1)], EmojiSurface.TELEGRAM);
+	}
+}
@@ -0,0 +1,214 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.metrics.EmojiStats;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.EmojiTranslator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The 1.8.3 translation, kept as the reference {@link TranslationDiffTest} compares the {@link EmojiTranslator} with:
+ * every emoji shortcode and shortcut is replaced in turn with {@link String#replace(CharSequence, CharSequence)}, and
+ * the listeners ran translateShorthand, then toEmoji, then containsDisabledCharacter on the result.
+ * <p>
+ * The methods are copied as-is, except that the counts go into the specified {@link EmojiStats} for the surface
+ * translated for (1.8.3 only counted lifetime totals), and the colors are the codes ChatColor gave.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class LegacyEmojiTranslator {
+	/**
+	 * ChatColor.WHITE, put before emojis for correct coloring.
+	 */
+	private static final String WHITE = "\u00a7f";
+	/**
+	 * ChatColor.BLACK, put after emojis on signs to go back to the sign text color.
+	 */
+	private static final String BLACK = "\u00a70";
+	/**
+	 * The emojis, in list.txt order.
+	 */
+	private final LinkedHashMap<String, Character> emojis;
+	/**
+	 * Shortcuts for the emojis, if specified.
+	 */
+	private final HashMap<String, String> shortcuts;
+	/**
+	 * Disabled emoji characters to prevent others from using them with the resource pack.
+	 */
+	private final List<Character> disabledCharacters;
+	/**
+	 * If we should fix the emoji's color (colored chat removes emoji coloring)
+	 */
+	private final boolean fixColoring;
+	/**
+	 * Where what's translated is counted.
+	 */
+	private final EmojiStats stats;
+	
+	/**
+	 * Creates the legacy translation with the same emojis, shortcuts, disabled emojis and fix-emoji-coloring as the
+	 * specified translator.
+	 *
+	 * @param translator The translator to copy the emoji data from.
+	 * @param stats Where what's translated is counted.
+	 */
+	public LegacyEmojiTranslator(EmojiTranslator translator, EmojiStats stats) {
+		emojis = new LinkedHashMap<>(translator.getEmojis());
+		shortcuts = new HashMap<>(translator.getShortcuts());
+		disabledCharacters = new ArrayList<>(translator.getDisabledCharacters());
+		fixColoring = translator.fixColoring();
+		this.stats = stats;
+	}
+	
+	/**
+	 * Translates the specified message the way the 1.8.3 listeners did.
+	 *
+	 * @param message The message to translate.
+	 * @param surface The {@link EmojiSurface} the message is for: {@link EmojiSurface#CHAT}, {@link EmojiSurface#SIGN}
+	 * or {@link EmojiSurface#COMMAND}.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @return The translated message, or null if it contains a disabled emoji character.
+	 */
+	public String translate(String message, EmojiSurface surface, boolean useShortcuts) {
+		if (useShortcuts) {
+			message = translateShorthand(message, surface);
+		}
+		switch (surface) {
+			case CHAT:
+				message = toEmojiFromChat(message);
+				break;
+			case SIGN:
+				message = toEmojiFromSign(message);
+				break;
+			default:
+				message = toEmoji(message, surface);
+				break;
+		}
+		return containsDisabledCharacter(message) ? null : message;
+	}
+	
+	/**
+	 * Converts the specified message's shortcuts (i.e. :100:) to emoji.
+	 *
+	 * @param message The message to convert.
+	 * @param surface The {@link EmojiSurface} to count the emojis used for.
+	 * @return The converted message.
+	 */
+	public String toEmoji(String message, EmojiSurface surface) {
+		for (String key : emojis.keySet()) {
+			stats.addEmojiUsed(surface, countMatches(message, key));
+			message = message.replace(key, emojis.get(key).toString());
+		}
+		return message;
+	}
+	
+	/**
+	 * Converts the specified line's shortcuts (i.e. :100:) to emoji from sign.
+	 *
+	 * @param line The line to convert from sign.
+	 * @return The converted line from sign.
+	 */
+	public String toEmojiFromSign(String line) {
+		for (String key : emojis.keySet()) {
+			stats.addEmojiUsed(EmojiSurface.SIGN, countMatches(line, key));
+			line = line.replace(key, WHITE + emojis.get(key) + BLACK); // Sets the emoji color to white for correct coloring
+		}
+		return line;
+	}
+	
+	/**
+	 * Converts the specified message's shortcuts (i.e. :100:) to emoji from chat.
+	 *
+	 * @param message The message to convert from chat.
+	 * @return The converted message from chat.
+	 */
+	public String toEmojiFromChat(String message) {
+		// If we're not fixing the coloring, or the message is too small to have coloring
+		if (!fixColoring || message.length() < 3) {
+			message = toEmoji(message, EmojiSurface.CHAT);
+		} else {
+			String chatColor = message.substring(0, 2); // Gets the chat color of the message, i.e. §a
+			boolean hasColor = chatColor.contains("§");
+			for (String key : emojis.keySet()) {
+				stats.addEmojiUsed(EmojiSurface.CHAT, countMatches(message, key));
+				message = message.replace(key, WHITE + emojis.get(key) + (hasColor ? chatColor : "")); // Sets the emoji color to white for correct coloring
+			}
+		}
+		return message;
+	}
+	
+	/**
+	 * Replaces shorthand ("shortcuts" in config) with correct emoji shortcuts.
+	 *
+	 * @param message The original message.
+	 * @param surface The {@link EmojiSurface} to count the shortcuts and escapes used for.
+	 * @return The message with correct emoji shortcuts.
+	 */
+	public String translateShorthand(String message, EmojiSurface surface) {
+		message = message.replace("http://", "http\\://").replace("https://", "https\\://");
+		StringBuilder replaced = new StringBuilder();
+		int previousPosition = 0;
+		
+		// Go through all shortcuts
+		for (String key : shortcuts.keySet()) {
+			// If the message has the shortcut
+			if (message.contains(key)) {
+				// Find location in string of occurrences of shortcut (going forward)
+				for (int i = -1; (i = message.indexOf(key, i + 1)) != -1; i++) {
+					// If character before shortcut is not an escape character
+					if (i - 1 < 0 || message.charAt(i - 1) != '\\') { // Then replace shortcut with emoji
+						replaced.append(message.substring(previousPosition, i)).append(shortcuts.get(key)); // Add previous text and emoji, but not anything after to prevent replacement issue later
+						stats.addShortcutUsed(surface, 1);
+						previousPosition = i + key.length();
+					} else { // Otherwise remove backslash as it's cancelling an emoji
+						replaced.append(message.substring(previousPosition, i - 1)).append(message.substring(i, i + key.length())); // Add previous text and remove backslash, exclude the matched key but not anything after
+						stats.addEscapesUsed(surface, 1);
+						previousPosition = i + key.length();
+					}
+				}
+			}
+			// Reset necessary variables for next shortcut
+			replaced.append(message.substring(previousPosition)); // Add remaining text
+			previousPosition = 0;
+			message = replaced.toString();
+			replaced = new StringBuilder();
+		}
+		return message;
+	}
+	
+	/**
+	 * Checks if the specified message contains a disabled character, if enabled.
+	 *
+	 * @param message The message to check.
+	 * @return True if the message contains a disabled character, false otherwise.
+	 */
+	public boolean containsDisabledCharacter(String message) {
+		for (Character disabledCharacter : disabledCharacters) {
+			if (message.contains(disabledCharacter.toString())) { // Message contains a disabled character
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Counts how many times the specified text is in the message, without overlaps, like StringUtils.countMatches.
+	 *
+	 * @param message The message.
+	 * @param text The text to count.
+	 * @return The number of times the text is in the message.
+	 */
+	private static int countMatches(String message, String text) {
+		int count = 0;
+		for (int i = message.indexOf(text); i != -1; i = message.indexOf(text, i + text.length())) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,147 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.SignChangeEvent;
+import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+
+import java.util.Collections;
+
+/**
+ * The events the load test's players fire, each on the thread the server fires it on.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum LoadEvent {
+	/**
+	 * A chat message, fired on the player's own thread like the server's network threads do.
+	 */
+	CHAT(true) {
+		@Override
+		String[] createText(String[] messages, int index) {
+			return new String[] {messages[index]};
+		}
+		
+		@Override
+		Event create(Player player, String[] text) {
+			return new AsyncPlayerChatEvent(true, player, text[0], Collections.emptySet());
+		}
+		
+		@Override
+		String[] getResult(Event event) {
+			AsyncPlayerChatEvent chatEvent = (AsyncPlayerChatEvent) event;
+			return chatEvent.isCancelled() ? null : new String[] {chatEvent.getMessage()};
+		}
+	},
+	/**
+	 * Four sign lines from the {@link Corpus#SIGN_LINES} corpus, fired on the main thread.
+	 */
+	SIGN(false) {
+		@Override
+		Corpus getCorpus(Corpus corpus) {
+			return Corpus.SIGN_LINES;
+		}
+		
+		@Override
+		String[] createText(String[] messages, int index) {
+			String[] lines = new String[4];
+			for (int i = 0; i < lines.length; i++) {
+				lines[i] = messages[(index + i) & (Corpus.SIZE - 1)];
+			}
+			return lines;
+		}
+		
+		@Override
+		Event create(Player player, String[] text) {
+			return new SignChangeEvent(null, player, text.clone()); // The listener changes the lines in place
+		}
+		
+		@Override
+		String[] getResult(Event event) {
+			SignChangeEvent signEvent = (SignChangeEvent) event;
+			return signEvent.isCancelled() ? null : signEvent.getLines().clone();
+		}
+	},
+	/**
+	 * A private message command, fired on the main thread.
+	 */
+	COMMAND(false) {
+		@Override
+		String[] createText(String[] messages, int index) {
+			return new String[] {"/msg Notch " + messages[index]};
+		}
+		
+		@Override
+		Event create(Player player, String[] text) {
+			return new PlayerCommandPreprocessEvent(player, text[0]);
+		}
+		
+		@Override
+		String[] getResult(Event event) {
+			PlayerCommandPreprocessEvent commandEvent = (PlayerCommandPreprocessEvent) event;
+			return commandEvent.isCancelled() ? null : new String[] {commandEvent.getMessage()};
+		}
+	};
+	
+	/**
+	 * If the server fires the event off the main thread.
+	 */
+	private final boolean async;
+	
+	/**
+	 * Creates the load event.
+	 *
+	 * @param async If the server fires the event off the main thread.
+	 */
+	LoadEvent(boolean async) {
+		this.async = async;
+	}
+	
+	/**
+	 * Gets the corpus this event's text comes from.
+	 *
+	 * @param corpus The corpus picked from the message mix.
+	 * @return The corpus to use.
+	 */
+	Corpus getCorpus(Corpus corpus) {
+		return corpus;
+	}
+	
+	/**
+	 * Creates the text the player sends, i.e. a chat message or four sign lines.
+	 *
+	 * @param messages The corpus messages.
+	 * @param index The index of the message to use.
+	 * @return The text.
+	 */
+	abstract String[] createText(String[] messages, int index);
+	
+	/**
+	 * Creates the event a server would fire when the player sends the specified text.
+	 *
+	 * @param player The player.
+	 * @param text The text from {@link #createText(String[], int)}.
+	 * @return The event.
+	 */
+	abstract Event create(Player player, String[] text);
+	
+	/**
+	 * Gets the text the player's event ended up with, once every listener handled it.
+	 *
+	 * @param event The event.
+	 * @return The text, or null if the event was cancelled.
+	 */
+	abstract String[] getResult(Event event);
+	
+	/**
+	 * Checks if the server fires the event off the main thread.
+	 *
+	 * @return True if the event is fired on the player's thread, false if it's fired on the main thread.
+	 */
+	boolean isAsync() {
+		return async;
+	}
+}
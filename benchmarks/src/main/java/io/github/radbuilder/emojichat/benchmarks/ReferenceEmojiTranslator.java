@@ -0,0 +1,351 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.metrics.EmojiStats;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.EmojiTranslator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The 1.9 translation written the simplest way, kept as the second reference {@link TranslationDiffTest} checks the
+ * {@link EmojiTranslator} against: the message is split into tokens from left to right, taking the longest shortcode,
+ * shortcut, disabled emoji character, link, verbatim region or color code starting at each position, and each token is
+ * translated on its own. It's slow, but doesn't share any code with the {@link EmojiTranslator}.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class ReferenceEmojiTranslator {
+	/**
+	 * The kind of an emoji shortcode token, i.e. :100:
+	 */
+	public static final int SHORTCODE = 0;
+	/**
+	 * The kind of a shortcut token, i.e. :)
+	 */
+	public static final int SHORTCUT = 1;
+	/**
+	 * The kind of a shortcut token escaped with a backslash, i.e. \:) (the token doesn't include the backslash).
+	 */
+	public static final int ESCAPED_SHORTCUT = 2;
+	/**
+	 * The kind of a disabled emoji character token.
+	 */
+	public static final int DISABLED = 3;
+	/**
+	 * The kind of a link token, from http:// or https:// to the next whitespace.
+	 */
+	public static final int LINK = 4;
+	/**
+	 * The kind of a verbatim region token, from its start marker to its end marker (or just the start marker if there's no end).
+	 */
+	public static final int VERBATIM = 5;
+	/**
+	 * The kind of a color or formatting code token, i.e. &amp;a
+	 */
+	public static final int COLOR_CODE = 6;
+	/**
+	 * ChatColor.WHITE, put before emojis for correct coloring.
+	 */
+	private static final String WHITE = "§f";
+	/**
+	 * ChatColor.BLACK, put after emojis on signs to go back to the sign text color.
+	 */
+	private static final String BLACK = "§0";
+	/**
+	 * The characters after &amp; or &sect; that make a color code.
+	 */
+	private static final String COLOR_CODE_CHARACTERS = "0123456789abcdefklmnorxABCDEFKLMNORX";
+	/**
+	 * The enabled emojis.
+	 */
+	private final Map<String, Character> emojis;
+	/**
+	 * The shortcuts, mapped to their replacements.
+	 */
+	private final Map<String, String> shortcuts;
+	/**
+	 * The verbatim regions' start markers, mapped to their end markers.
+	 */
+	private final Map<String, String> verbatimRegions;
+	/**
+	 * If the emoji's color is fixed in chat.
+	 */
+	private final boolean fixColoring;
+	/**
+	 * The disabled emoji characters.
+	 */
+	private final List<Character> disabledCharacters;
+	/**
+	 * The kind of every pattern found without shortcuts.
+	 */
+	private final Map<String, Integer> emojiPatterns;
+	/**
+	 * The kind of every pattern found with shortcuts.
+	 */
+	private final Map<String, Integer> shortcutPatterns;
+	/**
+	 * The lengths of the patterns starting with each character, for {@link #emojiPatterns} and {@link #shortcutPatterns}.
+	 */
+	private final Map<Character, TreeSet<Integer>> emojiLengths, shortcutLengths;
+	/**
+	 * Where what's translated is counted.
+	 */
+	private final EmojiStats stats;
+	
+	/**
+	 * Creates the reference translation with the same emojis, shortcuts, disabled emojis and fix-emoji-coloring as the
+	 * specified translator.
+	 *
+	 * @param translator The translator to copy the emoji data from.
+	 * @param verbatimRegions The verbatim regions' start markers, mapped to their end markers.
+	 * @param stats Where what's translated is counted.
+	 */
+	public ReferenceEmojiTranslator(EmojiTranslator translator, Map<String, String> verbatimRegions, EmojiStats stats) {
+		emojis = new HashMap<>(translator.getEmojis());
+		shortcuts = new HashMap<>(translator.getShortcuts());
+		this.verbatimRegions = new HashMap<>(verbatimRegions);
+		disabledCharacters = new ArrayList<>(translator.getDisabledCharacters());
+		fixColoring = translator.fixColoring();
+		this.stats = stats;
+		
+		emojiPatterns = new HashMap<>();
+		for (String shortcode : emojis.keySet()) {
+			emojiPatterns.put(shortcode, SHORTCODE);
+		}
+		for (Character disabledCharacter : disabledCharacters) {
+			emojiPatterns.put(disabledCharacter.toString(), DISABLED);
+		}
+		emojiPatterns.put("http://", LINK);
+		emojiPatterns.put("https://", LINK);
+		for (String startMarker : verbatimRegions.keySet()) {
+			emojiPatterns.put(startMarker, VERBATIM);
+		}
+		shortcutPatterns = new HashMap<>(emojiPatterns);
+		for (char code : COLOR_CODE_CHARACTERS.toCharArray()) {
+			shortcutPatterns.put("§" + code, COLOR_CODE);
+			shortcutPatterns.put("&" + code, COLOR_CODE);
+		}
+		for (String shortcut : shortcuts.keySet()) {
+			shortcutPatterns.put(shortcut, SHORTCUT);
+		}
+		emojiLengths = getLengths(emojiPatterns);
+		shortcutLengths = getLengths(shortcutPatterns);
+	}
+	
+	/**
+	 * Gets the lengths of the patterns starting with each character.
+	 *
+	 * @param patterns The patterns.
+	 * @return The lengths, by first character.
+	 */
+	private static Map<Character, TreeSet<Integer>> getLengths(Map<String, Integer> patterns) {
+		Map<Character, TreeSet<Integer>> lengths = new HashMap<>();
+		for (String pattern : patterns.keySet()) {
+			lengths.computeIfAbsent(pattern.charAt(0), character -> new TreeSet<>()).add(pattern.length());
+		}
+		return lengths;
+	}
+	
+	/**
+	 * Splits the specified message into tokens: at each position, the longest pattern starting there is taken, and
+	 * everything else is plain text, which isn't returned.
+	 *
+	 * @param message The message.
+	 * @param useShortcuts If shortcuts and color codes should be found.
+	 * @return The start, end and kind (i.e. {@link #SHORTCODE}) of each token, in order.
+	 */
+	public List<int[]> tokenize(String message, boolean useShortcuts) {
+		Map<String, Integer> patterns = useShortcuts ? shortcutPatterns : emojiPatterns;
+		Map<Character, TreeSet<Integer>> lengths = useShortcuts ? shortcutLengths : emojiLengths;
+		List<int[]> tokens = new ArrayList<>();
+		int matched = 0; // Where the last token ended
+		int position = 0;
+		while (position < message.length()) {
+			TreeSet<Integer> startingHere = lengths.get(message.charAt(position));
+			Integer kind = null;
+			int end = position;
+			if (startingHere != null) {
+				for (int length : startingHere.descendingSet()) {
+					if (position + length <= message.length() && (kind = patterns.get(message.substring(position, position + length))) != null) {
+						end = position + length;
+						break;
+					}
+				}
+			}
+			if (kind == null) {
+				position++;
+				continue;
+			}
+			
+			if (kind == LINK) {
+				while (end < message.length() && !Character.isWhitespace(message.charAt(end))) {
+					end++;
+				}
+			} else if (kind == VERBATIM) {
+				String endMarker = verbatimRegions.get(message.substring(position, end));
+				int endStart = message.indexOf(endMarker, end);
+				end = endStart == -1 ? end : endStart + endMarker.length();
+			} else if (kind == SHORTCUT && position > matched && message.charAt(position - 1) == '\\') {
+				kind = ESCAPED_SHORTCUT;
+			}
+			tokens.add(new int[] {position, end, kind});
+			position = end;
+			matched = end;
+		}
+		return tokens;
+	}
+	
+	/**
+	 * Translates the specified message the way the listeners do.
+	 *
+	 * @param message The message to translate.
+	 * @param surface The {@link EmojiSurface} the message is for.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @return The translated message, or null if it contains a disabled emoji character.
+	 */
+	public String translate(String message, EmojiSurface surface, boolean useShortcuts) {
+		String chatColor = surface == EmojiSurface.CHAT && fixColoring ? getChatColor(message) : null;
+		String after = surface == EmojiSurface.SIGN ? BLACK : chatColor;
+		return translate(message, useShortcuts, true, surface == EmojiSurface.SIGN || chatColor != null, after, false, surface);
+	}
+	
+	/**
+	 * Replaces the shortcuts in the specified message with their emoji shortcuts.
+	 *
+	 * @param message The message.
+	 * @return The message with the shortcuts replaced.
+	 */
+	public String translateShorthand(String message) {
+		return translate(message, true, false, false, null, true, EmojiSurface.CHAT);
+	}
+	
+	/**
+	 * Converts the specified message's emoji shortcuts to emojis.
+	 *
+	 * @param message The message.
+	 * @param surface The {@link EmojiSurface} to count the emojis used for.
+	 * @return The converted message.
+	 */
+	public String toEmoji(String message, EmojiSurface surface) {
+		return translate(message, false, true, false, null, true, surface);
+	}
+	
+	/**
+	 * Converts the specified line's emoji shortcuts to emojis from sign.
+	 *
+	 * @param line The line.
+	 * @return The converted line.
+	 */
+	public String toEmojiFromSign(String line) {
+		return translate(line, false, true, true, BLACK, true, EmojiSurface.SIGN);
+	}
+	
+	/**
+	 * Converts the specified message's emoji shortcuts to emojis from chat.
+	 *
+	 * @param message The message.
+	 * @return The converted message.
+	 */
+	public String toEmojiFromChat(String message) {
+		boolean white = fixColoring && message.length() >= 3;
+		return translate(message, false, true, white, white ? getChatColor(message) : null, true, EmojiSurface.CHAT);
+	}
+	
+	/**
+	 * Gets the chat color of the specified message: its first two characters if either is a section sign.
+	 *
+	 * @param message The message.
+	 * @return The chat color, or an empty string if it doesn't have one.
+	 */
+	private static String getChatColor(String message) {
+		return message.length() >= 2 && (message.charAt(0) == '§' || message.charAt(1) == '§') ? message.substring(0, 2) : "";
+	}
+	
+	/**
+	 * Translates the specified message token by token.
+	 *
+	 * @param message The message.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @param toEmoji If shortcodes and shortcuts should become emojis, or shortcuts should become their replacements and shortcodes stay as they are.
+	 * @param white If emojis should be white.
+	 * @param after What to put after each emoji, or null for nothing.
+	 * @param allowDisabled If disabled emoji characters are allowed.
+	 * @param surface The {@link EmojiSurface} to count what's translated for.
+	 * @return The translated message, or null if disabled emoji characters aren't allowed and the message contains one.
+	 */
+	private String translate(String message, boolean useShortcuts, boolean toEmoji, boolean white, String after, boolean allowDisabled, EmojiSurface surface) {
+		StringBuilder translated = new StringBuilder();
+		int emojisUsed = 0;
+		int shortcutsUsed = 0;
+		int escapesUsed = 0;
+		int copied = 0;
+		for (int[] token : tokenize(message, useShortcuts)) {
+			String text = message.substring(token[0], token[1]);
+			String replacement = null;
+			switch (token[2]) {
+				case SHORTCODE:
+					if (toEmoji) {
+						replacement = getEmoji(emojis.get(text), white, after);
+						emojisUsed++;
+					}
+					break;
+				case SHORTCUT:
+					String shortcode = shortcuts.get(text);
+					replacement = toEmoji && emojis.containsKey(shortcode) ? getEmoji(emojis.get(shortcode), white, after) : shortcode;
+					emojisUsed += toEmoji && emojis.containsKey(shortcode) ? 1 : 0;
+					shortcutsUsed++;
+					break;
+				case ESCAPED_SHORTCUT:
+					translated.append(message, copied, token[0] - 1);
+					copied = token[0];
+					escapesUsed++;
+					break;
+				case DISABLED:
+					if (!allowDisabled) {
+						return null;
+					}
+					break;
+				default: // Links, verbatim regions and color codes are copied as-is, unless they have a disabled emoji character
+					for (Character disabledCharacter : disabledCharacters) {
+						if (!allowDisabled && text.indexOf(disabledCharacter) != -1) {
+							return null;
+						}
+					}
+					break;
+			}
+			if (replacement != null) {
+				translated.append(message, copied, token[0]).append(replacement);
+				copied = token[1];
+			}
+		}
+		
+		if (emojisUsed > 0) {
+			stats.addEmojiUsed(surface, emojisUsed);
+		}
+		if (shortcutsUsed > 0) {
+			stats.addShortcutUsed(surface, shortcutsUsed);
+		}
+		if (escapesUsed > 0) {
+			stats.addEscapesUsed(surface, escapesUsed);
+		}
+		return translated.append(message, copied, message.length()).toString();
+	}
+	
+	/**
+	 * Gets the text of the specified emoji.
+	 *
+	 * @param emoji The emoji character.
+	 * @param white If the emoji should be white.
+	 * @param after What to put after the emoji, or null for nothing.
+	 * @return The emoji's text.
+	 */
+	private static String getEmoji(char emoji, boolean white, String after) {
+		return white ? WHITE + emoji + (after == null ? "" : after) : String.valueOf(emoji);
+	}
+}
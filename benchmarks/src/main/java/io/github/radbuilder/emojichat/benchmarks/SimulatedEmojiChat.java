@@ -0,0 +1,76 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.EmojiChat;
+import org.bukkit.plugin.InvalidDescriptionException;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * EmojiChat on a {@link SimulatedServer}, for the load test. Unlike {@link HeadlessEmojiChat}, it's enabled the same way
+ * a server enables it, so the listener, commands and tasks are the real ones.
+ * <p>
+ * metrics-collection is always OFF (bStats needs a real server).
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class SimulatedEmojiChat extends EmojiChat {
+	/**
+	 * The temporary data folder, deleted by {@link #close()}.
+	 */
+	private final File dataFolder;
+	
+	/**
+	 * Loads EmojiChat onto the specified server with the default config.yml, changed by the specified config values.
+	 *
+	 * @param server The server.
+	 * @param config The config values to change, i.e. emojis-on-signs.
+	 * @throws IOException If the data folder couldn't be created.
+	 * @throws InvalidDescriptionException If the plugin.yml is invalid.
+	 */
+	public SimulatedEmojiChat(SimulatedServer server, Map<String, Object> config) throws IOException, InvalidDescriptionException {
+		this(server, Files.createTempDirectory("emojichat-load-test").toFile(), config);
+	}
+	
+	/**
+	 * Loads EmojiChat onto the specified server and into the specified data folder, with the default config.yml changed
+	 * by the specified config values.
+	 *
+	 * @param server The server.
+	 * @param dataFolder The data folder.
+	 * @param config The config values to change.
+	 * @throws IOException If the plugin.yml couldn't be read.
+	 * @throws InvalidDescriptionException If the plugin.yml is invalid.
+	 */
+	private SimulatedEmojiChat(SimulatedServer server, File dataFolder, Map<String, Object> config) throws IOException, InvalidDescriptionException {
+		super(new JavaPluginLoader(server.getServer()), HeadlessEmojiChat.loadDescription(), dataFolder, new File(dataFolder, "EmojiChat.jar"));
+		this.dataFolder = dataFolder;
+		
+		saveDefaultConfig(); // The config.yml a new server gets
+		getConfig().set("metrics-collection", "OFF");
+		config.forEach(getConfig()::set);
+		saveConfig(); // So /emojichat reload reads the same values
+	}
+	
+	/**
+	 * Enables EmojiChat. Should be used on the main thread, like the server does.
+	 */
+	public void enable() {
+		setEnabled(true);
+	}
+	
+	/**
+	 * Disables EmojiChat and deletes the data folder. Should be used on the main thread, like the server does.
+	 *
+	 * @throws IOException If the data folder couldn't be deleted.
+	 */
+	public void close() throws IOException {
+		setEnabled(false);
+		HeadlessEmojiChat.deleteFolder(dataFolder);
+	}
+}
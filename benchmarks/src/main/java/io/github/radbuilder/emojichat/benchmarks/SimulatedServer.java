@@ -0,0 +1,523 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A stand-in server for the load test, with just enough of a server for EmojiChat to enable, handle events and reload:
+ * a main thread, async workers, the events and commands plugins register, a console and players. Like the
+ * {@link HeadlessEmojiChat} server, anything else fails straight away instead of being measured.
+ * <p>
+ * Tasks are scheduled in 50ms ticks, like a server running at 20 TPS. Events are passed to the registered listeners
+ * the way Bukkit does it, by priority and on the thread that calls them, except a listener's exception is thrown to
+ * whoever called the event, so the load test can count it.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class SimulatedServer {
+	/**
+	 * How long a tick is, in milliseconds.
+	 */
+	private static final long TICK_MILLIS = 50L;
+	/**
+	 * The server logger.
+	 */
+	private final Logger logger;
+	/**
+	 * The server, which Bukkit's static methods use.
+	 */
+	private final Server server;
+	/**
+	 * The main thread, which runs sync tasks, sync events and commands.
+	 */
+	private final ScheduledExecutorService mainThread;
+	/**
+	 * The async workers, which run async tasks.
+	 */
+	private final ScheduledExecutorService asyncWorkers;
+	/**
+	 * The registered event handlers, by the event they handle, in the order they're called.
+	 */
+	private final Map<Class<?>, List<RegisteredHandler>> handlers;
+	/**
+	 * The registered plugin commands, by name and alias.
+	 */
+	private final Map<String, PluginCommand> commands;
+	/**
+	 * The repeating tasks that haven't been cancelled yet, by ID.
+	 */
+	private final Map<Integer, Future<?>> tasks;
+	/**
+	 * The ID of the next task.
+	 */
+	private final AtomicInteger nextTaskId;
+	/**
+	 * The number of tasks that threw an exception.
+	 */
+	private final AtomicLong taskErrors;
+	/**
+	 * The console, which sends what it's told to the console output.
+	 */
+	private final ConsoleCommandSender console;
+	/**
+	 * The main thread, set once it starts.
+	 */
+	private volatile Thread primaryThread;
+	
+	/**
+	 * Creates the server and makes it the server Bukkit's static methods use, which can only be done once.
+	 *
+	 * @param logger The server logger.
+	 * @param consoleOutput Where messages sent to the console go.
+	 */
+	public SimulatedServer(Logger logger, Consumer<String> consoleOutput) {
+		this.logger = logger;
+		mainThread = new ScheduledThreadPoolExecutor(1, task -> {
+			Thread thread = new Thread(() -> {
+				primaryThread = Thread.currentThread();
+				task.run();
+			}, "Server thread");
+			thread.setDaemon(true);
+			return thread;
+		});
+		AtomicInteger workers = new AtomicInteger();
+		asyncWorkers = new ScheduledThreadPoolExecutor(4, task -> {
+			Thread thread = new Thread(task, "Craft Scheduler Thread - " + workers.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		handlers = new ConcurrentHashMap<>();
+		commands = new ConcurrentHashMap<>();
+		tasks = new ConcurrentHashMap<>();
+		nextTaskId = new AtomicInteger(1);
+		taskErrors = new AtomicLong();
+		
+		console = stub(ConsoleCommandSender.class, "CONSOLE", (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "CONSOLE";
+				case "hasPermission":
+				case "isPermissionSet":
+				case "isOp":
+					return true;
+				case "sendMessage":
+					if (args[0] instanceof String[]) {
+						for (String message : (String[]) args[0]) {
+							consoleOutput.accept(message);
+						}
+					} else {
+						consoleOutput.accept((String) args[0]);
+					}
+					return null;
+				default:
+					throw unsupported(method);
+			}
+		});
+		BukkitScheduler scheduler = stub(BukkitScheduler.class, "SimulatedScheduler", this::schedule);
+		PluginManager pluginManager = stub(PluginManager.class, "SimulatedPluginManager", (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "registerEvents":
+					registerEvents((Listener) args[0]);
+					return null;
+				case "callEvent":
+					callEvent((Event) args[0]);
+					return null;
+				case "isPluginEnabled":
+				case "useTimings":
+					return false; // No other plugins to hook into
+				case "getPlugin":
+					return null;
+				default:
+					throw unsupported(method);
+			}
+		});
+		server = stub(Server.class, "SimulatedServer", (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "SimulatedServer";
+				case "getVersion":
+				case "getBukkitVersion":
+					return "1.13.2-R0.1-SNAPSHOT";
+				case "getLogger":
+					return logger;
+				case "getScheduler":
+					return scheduler;
+				case "getPluginManager":
+					return pluginManager;
+				case "getOnlinePlayers":
+					return Collections.emptyList(); // Players join once EmojiChat is enabled
+				case "getPluginCommand":
+					return commands.get((String) args[0]);
+				case "getConsoleSender":
+					return console;
+				case "dispatchCommand":
+					return dispatchCommand((CommandSender) args[0], (String) args[1]);
+				case "isPrimaryThread":
+					return Thread.currentThread() == primaryThread;
+				default:
+					throw unsupported(method);
+			}
+		});
+		Bukkit.setServer(server);
+	}
+	
+	/**
+	 * Creates a player that has every permission. The player is only online to EmojiChat once {@link #callEvent(Event)}
+	 * is used with a join event.
+	 *
+	 * @param name The player's name.
+	 * @return The player.
+	 */
+	public Player createPlayer(String name) {
+		UUID uuid = UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes(StandardCharsets.UTF_8)); // The same UUID an offline mode server gives
+		return stub(Player.class, name, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getUniqueId":
+					return uuid;
+				case "getName":
+				case "getDisplayName":
+				case "getPlayerListName":
+					return name;
+				case "hasPermission":
+				case "isPermissionSet":
+				case "isOp":
+				case "isOnline":
+					return true;
+				case "sendMessage":
+				case "setResourcePack":
+					return null; // The client would show the message or download the pack
+				default:
+					throw unsupported(method);
+			}
+		});
+	}
+	
+	/**
+	 * Registers the specified plugin's commands from its plugin.yml, the way the server does before enabling it.
+	 *
+	 * @param plugin The plugin.
+	 * @throws ReflectiveOperationException If the commands couldn't be created.
+	 */
+	public void registerCommands(Plugin plugin) throws ReflectiveOperationException {
+		Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+		constructor.setAccessible(true); // Only the server creates plugin commands
+		for (Map.Entry<String, Map<String, Object>> entry : plugin.getDescription().getCommands().entrySet()) {
+			PluginCommand command = constructor.newInstance(entry.getKey(), plugin);
+			commands.put(entry.getKey().toLowerCase(Locale.ENGLISH), command);
+			
+			Object aliases = entry.getValue() == null ? null : entry.getValue().get("aliases");
+			if (aliases instanceof List) {
+				for (Object alias : (List<?>) aliases) {
+					commands.put(alias.toString().toLowerCase(Locale.ENGLISH), command);
+				}
+			} else if (aliases != null) {
+				commands.put(aliases.toString().toLowerCase(Locale.ENGLISH), command);
+			}
+		}
+	}
+	
+	/**
+	 * Runs a command, i.e. "emojichat reload". Should be used on the main thread, like the server does.
+	 *
+	 * @param sender Who ran the command.
+	 * @param commandLine The command, without the /.
+	 * @return True if the command exists, false otherwise.
+	 */
+	public boolean dispatchCommand(CommandSender sender, String commandLine) {
+		String[] parts = commandLine.trim().split(" +");
+		PluginCommand command = commands.get(parts[0].toLowerCase(Locale.ENGLISH));
+		if (command == null) {
+			return false;
+		}
+		command.execute(sender, parts[0], Arrays.copyOfRange(parts, 1, parts.length));
+		return true;
+	}
+	
+	/**
+	 * Passes the specified event to the registered handlers, on this thread.
+	 *
+	 * @param event The event.
+	 * @throws IllegalStateException If a handler threw an exception.
+	 */
+	public void callEvent(Event event) {
+		List<RegisteredHandler> eventHandlers = handlers.get(event.getClass());
+		if (eventHandlers == null) {
+			return;
+		}
+		for (RegisteredHandler handler : eventHandlers) {
+			if (handler.ignoreCancelled && event instanceof Cancellable && ((Cancellable) event).isCancelled()) {
+				continue;
+			}
+			try {
+				handler.method.invoke(handler.listener, event);
+			} catch (InvocationTargetException e) {
+				throw new IllegalStateException("Could not pass event " + event.getClass().getSimpleName() + " to " + handler.listener.getClass().getSimpleName(), e.getCause());
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+	
+	/**
+	 * Runs the specified task on the main thread, and waits for it to finish.
+	 *
+	 * @param task The task.
+	 * @throws InterruptedException If interrupted while waiting.
+	 */
+	public void runOnMainThread(Runnable task) throws InterruptedException {
+		try {
+			mainThread.submit(task).get();
+		} catch (ExecutionException e) { // Throw what the task threw
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw (RuntimeException) e.getCause();
+		}
+	}
+	
+	/**
+	 * Gets the server.
+	 *
+	 * @return The server.
+	 */
+	public Server getServer() {
+		return server;
+	}
+	
+	/**
+	 * Gets the console.
+	 *
+	 * @return The console.
+	 */
+	public ConsoleCommandSender getConsoleSender() {
+		return console;
+	}
+	
+	/**
+	 * Gets the number of tasks that threw an exception.
+	 *
+	 * @return The number of tasks that threw an exception.
+	 */
+	public long getTaskErrors() {
+		return taskErrors.get();
+	}
+	
+	/**
+	 * Stops the main thread and async workers, without waiting for their tasks.
+	 */
+	public void shutdown() {
+		mainThread.shutdownNow();
+		asyncWorkers.shutdownNow();
+	}
+	
+	/**
+	 * Registers the specified listener's event handlers.
+	 *
+	 * @param listener The listener.
+	 */
+	private void registerEvents(Listener listener) {
+		for (Method method : listener.getClass().getDeclaredMethods()) {
+			EventHandler eventHandler = method.getAnnotation(EventHandler.class);
+			if (eventHandler == null || method.getParameterTypes().length != 1 || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+				continue;
+			}
+			method.setAccessible(true); // Handlers don't have to be public
+			List<RegisteredHandler> eventHandlers = handlers.computeIfAbsent(method.getParameterTypes()[0], event -> new CopyOnWriteArrayList<>());
+			eventHandlers.add(new RegisteredHandler(listener, method, eventHandler));
+			eventHandlers.sort(Comparator.comparingInt(handler -> handler.priority)); // Lowest priority first, like Bukkit
+		}
+	}
+	
+	/**
+	 * Handles the {@link BukkitScheduler} methods.
+	 *
+	 * @param proxy The scheduler.
+	 * @param method The method used.
+	 * @param args The method arguments.
+	 * @return What the method returns.
+	 */
+	private Object schedule(Object proxy, Method method, Object[] args) {
+		switch (method.getName()) {
+			case "runTask":
+				return schedule(mainThread, (Plugin) args[0], (Runnable) args[1], 0L, 0L);
+			case "runTaskAsynchronously":
+				return schedule(asyncWorkers, (Plugin) args[0], (Runnable) args[1], 0L, 0L);
+			case "runTaskLater":
+				return schedule(mainThread, (Plugin) args[0], (Runnable) args[1], (long) args[2], 0L);
+			case "runTaskLaterAsynchronously":
+				return schedule(asyncWorkers, (Plugin) args[0], (Runnable) args[1], (long) args[2], 0L);
+			case "runTaskTimer":
+				return schedule(mainThread, (Plugin) args[0], (Runnable) args[1], (long) args[2], (long) args[3]);
+			case "runTaskTimerAsynchronously":
+				return schedule(asyncWorkers, (Plugin) args[0], (Runnable) args[1], (long) args[2], (long) args[3]);
+			case "cancelTasks":
+				for (Future<?> task : tasks.values()) {
+					task.cancel(false);
+				}
+				tasks.clear();
+				return null;
+			default:
+				throw unsupported(method);
+		}
+	}
+	
+	/**
+	 * Schedules the specified task. Like the server, an exception thrown by the task is logged, and a repeating task
+	 * keeps repeating.
+	 *
+	 * @param executor The main thread or the async workers.
+	 * @param plugin The plugin that owns the task.
+	 * @param task The task.
+	 * @param delay How many ticks to wait before running it.
+	 * @param period How many ticks to wait between runs, or 0 or less to only run it once.
+	 * @return The {@link BukkitTask}.
+	 */
+	private BukkitTask schedule(ScheduledExecutorService executor, Plugin plugin, Runnable task, long delay, long period) {
+		int taskId = nextTaskId.getAndIncrement();
+		Runnable loggedTask = () -> {
+			try {
+				task.run();
+			} catch (Throwable e) {
+				taskErrors.incrementAndGet();
+				logger.log(Level.WARNING, "Task #" + taskId + " for " + plugin.getName() + " generated an exception", e);
+			}
+		};
+		ScheduledFuture<?> future = period > 0L
+				? executor.scheduleAtFixedRate(loggedTask, Math.max(0L, delay) * TICK_MILLIS, period * TICK_MILLIS, TimeUnit.MILLISECONDS)
+				: executor.schedule(loggedTask, Math.max(0L, delay) * TICK_MILLIS, TimeUnit.MILLISECONDS);
+		if (period > 0L) {
+			tasks.put(taskId, future);
+		}
+		
+		return stub(BukkitTask.class, "Task #" + taskId, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "getTaskId":
+					return taskId;
+				case "getOwner":
+					return plugin;
+				case "isSync":
+					return executor == mainThread;
+				case "isCancelled":
+					return future.isCancelled();
+				case "cancel":
+					future.cancel(false);
+					tasks.remove(taskId);
+					return null;
+				default:
+					throw unsupported(method);
+			}
+		});
+	}
+	
+	/**
+	 * Creates a stand-in for the specified interface, which uses the specified handler for everything except equals,
+	 * hashCode and toString.
+	 *
+	 * @param type The interface.
+	 * @param name What toString returns.
+	 * @param methods The handler for the interface's methods.
+	 * @param <T> The interface.
+	 * @return The stand-in.
+	 */
+	private static <T> T stub(Class<T> type, String name, InvocationHandler methods) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return name;
+				default:
+					return methods.invoke(proxy, method, args);
+			}
+		}));
+	}
+	
+	/**
+	 * Creates the exception thrown when something the server doesn't have is used.
+	 *
+	 * @param method The method used.
+	 * @return The exception.
+	 */
+	private static UnsupportedOperationException unsupported(Method method) {
+		return new UnsupportedOperationException("The simulated server doesn't have " + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+	}
+	
+	/**
+	 * An event handler method of a registered listener.
+	 */
+	private static class RegisteredHandler {
+		/**
+		 * The listener.
+		 */
+		private final Listener listener;
+		/**
+		 * The event handler method.
+		 */
+		private final Method method;
+		/**
+		 * The handler's priority, lowest first.
+		 */
+		private final int priority;
+		/**
+		 * If the handler skips cancelled events.
+		 */
+		private final boolean ignoreCancelled;
+		
+		/**
+		 * Creates the registered handler.
+		 *
+		 * @param listener The listener.
+		 * @param method The event handler method.
+		 * @param eventHandler The method's {@link EventHandler} annotation.
+		 */
+		private RegisteredHandler(Listener listener, Method method, EventHandler eventHandler) {
+			this.listener = listener;
+			this.method = method;
+			priority = eventHandler.priority().ordinal();
+			ignoreCancelled = eventHandler.ignoreCancelled();
+		}
+	}
+}
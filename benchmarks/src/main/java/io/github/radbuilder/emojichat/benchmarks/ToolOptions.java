@@ -0,0 +1,133 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The command line options of the load test and the replay tool, given as key=value, i.e. players=200. Anything without
+ * an = is an argument, i.e. the chat log to replay.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+class ToolOptions {
+	/**
+	 * The arguments, in order.
+	 */
+	private final List<String> arguments;
+	/**
+	 * The options that haven't been read yet, by lowercase key.
+	 */
+	private final Map<String, String> options;
+	
+	/**
+	 * Reads the options from the command line.
+	 *
+	 * @param args The command line.
+	 */
+	ToolOptions(String[] args) {
+		arguments = new ArrayList<>();
+		options = new HashMap<>();
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split < 1) {
+				arguments.add(arg);
+			} else {
+				options.put(arg.substring(0, split).toLowerCase(Locale.ROOT), arg.substring(split + 1).trim());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the arguments.
+	 *
+	 * @return The arguments, in order.
+	 */
+	List<String> getArguments() {
+		return arguments;
+	}
+	
+	/**
+	 * Reads the specified option, or gets the default value if it wasn't specified.
+	 *
+	 * @param key The option.
+	 * @param defaultValue The default value.
+	 * @return The value.
+	 */
+	String get(String key, String defaultValue) {
+		String value = options.remove(key);
+		return value == null ? defaultValue : value;
+	}
+	
+	/**
+	 * Reads the specified whole number option, or gets the default value if it wasn't specified.
+	 *
+	 * @param key The option.
+	 * @param defaultValue The default value.
+	 * @param min The smallest valid value.
+	 * @return The value.
+	 * @throws IllegalArgumentException If the value isn't a whole number of at least min.
+	 */
+	int getInt(String key, int defaultValue, int min) {
+		String value = get(key, Integer.toString(defaultValue));
+		try {
+			int number = Integer.parseInt(value);
+			if (number >= min) {
+				return number;
+			}
+		} catch (NumberFormatException ignored) { // Invalid, see below
+		}
+		throw new IllegalArgumentException(key + " must be a whole number of at least " + min + ", not '" + value + "'");
+	}
+	
+	/**
+	 * Reads the specified number option, or gets the default value if it wasn't specified.
+	 *
+	 * @param key The option.
+	 * @param defaultValue The default value.
+	 * @return The value.
+	 * @throws IllegalArgumentException If the value isn't a number of at least 0.
+	 */
+	double getDouble(String key, double defaultValue) {
+		String value = get(key, Double.toString(defaultValue));
+		try {
+			double number = Double.parseDouble(value);
+			if (number >= 0D && !Double.isInfinite(number)) {
+				return number;
+			}
+		} catch (NumberFormatException ignored) { // Invalid, see below
+		}
+		throw new IllegalArgumentException(key + " must be a number of at least 0, not '" + value + "'");
+	}
+	
+	/**
+	 * Reads the specified true/false option, or gets the default value if it wasn't specified.
+	 *
+	 * @param key The option.
+	 * @param defaultValue The default value.
+	 * @return The value.
+	 * @throws IllegalArgumentException If the value isn't true or false.
+	 */
+	boolean getBoolean(String key, boolean defaultValue) {
+		String value = get(key, Boolean.toString(defaultValue));
+		if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+			throw new IllegalArgumentException(key + " must be true or false, not '" + value + "'");
+		}
+		return Boolean.parseBoolean(value);
+	}
+	
+	/**
+	 * Makes sure every option was read.
+	 *
+	 * @throws IllegalArgumentException If an option wasn't read, so it's unknown.
+	 */
+	void checkAllRead() {
+		if (!options.isEmpty()) {
+			throw new IllegalArgumentException("Unknown options: " + String.join(", ", options.keySet()));
+		}
+	}
+}
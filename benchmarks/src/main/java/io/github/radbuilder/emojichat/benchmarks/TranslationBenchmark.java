@@ -0,0 +1,118 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link EmojiHandler#toEmoji(String)}, {@link EmojiHandler#translateShorthand(String)} and
+ * {@link EmojiHandler#containsDisabledCharacter(String)} with the default config.
+ * <p>
+ * The disabled character check runs over the corpus after it's translated, since that's when it can contain emojis.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslationBenchmark {
+	/**
+	 * The {@link Corpus} to translate.
+	 */
+	@Param
+	public Corpus corpus;
+	/**
+	 * EmojiChat, without a server.
+	 */
+	private HeadlessEmojiChat plugin;
+	/**
+	 * The emoji handler being benchmarked.
+	 */
+	private EmojiHandler emojiHandler;
+	/**
+	 * The corpus messages.
+	 */
+	private String[] messages;
+	/**
+	 * The corpus messages after {@link EmojiHandler#toEmoji(String)}.
+	 */
+	private String[] translatedMessages;
+	/**
+	 * The index of the next message.
+	 */
+	private int next;
+	
+	/**
+	 * Loads EmojiChat and generates the corpus.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		plugin = new HeadlessEmojiChat(Collections.emptyMap());
+		emojiHandler = plugin.getEmojiHandler();
+		messages = corpus.generate(emojiHandler);
+		translatedMessages = new String[messages.length];
+		for (int i = 0; i < messages.length; i++) {
+			translatedMessages[i] = emojiHandler.toEmoji(messages[i]);
+		}
+	}
+	
+	/**
+	 * Stops EmojiChat.
+	 *
+	 * @throws Exception If the data folder couldn't be deleted.
+	 */
+	@TearDown
+	public void tearDown() throws Exception {
+		plugin.close();
+	}
+	
+	/**
+	 * Translates the shortcodes and shortcuts of the next message.
+	 *
+	 * @return The translated message.
+	 */
+	@Benchmark
+	public String toEmoji() {
+		return emojiHandler.toEmoji(messages[next++ & (Corpus.SIZE - 1)]);
+	}
+	
+	/**
+	 * Replaces the shortcuts of the next message with shortcodes.
+	 *
+	 * @return The message with shortcodes.
+	 */
+	@Benchmark
+	public String translateShorthand() {
+		return emojiHandler.translateShorthand(messages[next++ & (Corpus.SIZE - 1)]);
+	}
+	
+	/**
+	 * Checks the next translated message for disabled characters.
+	 *
+	 * @return If the message contains a disabled character.
+	 */
+	@Benchmark
+	public boolean containsDisabledCharacter() {
+		return emojiHandler.containsDisabledCharacter(translatedMessages[next++ & (Corpus.SIZE - 1)]);
+	}
+}
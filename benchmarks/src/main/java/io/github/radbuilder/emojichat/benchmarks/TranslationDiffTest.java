@@ -0,0 +1,985 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import io.github.radbuilder.emojichat.metrics.EmojiStats;
+import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.EmojiTranslator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Checks that the {@link EmojiTranslator} still translates like 1.8.3 did. Random messages are made from shortcodes,
+ * shortcuts, escapes, disabled emoji characters, color codes, links and verbatim regions, then translated by the
+ * translator, by {@link LegacyEmojiTranslator} and by {@link ReferenceEmojiTranslator}. The results and the emojis,
+ * shortcuts and escapes counted have to be identical to the reference's, and to 1.8.3's.
+ * <p>
+ * A difference from 1.8.3 is only accepted if it's one of the {@link Divergence}s, which are counted in the report: the
+ * parts of the message the divergence is about (i.e. its links) are replaced with placeholders nothing can match, and
+ * the translator and 1.8.3 then have to give identical results and counts for the rest of the message. Any other
+ * difference fails the test, and the first ones are printed with the seed, so they can be run again. Messages are made
+ * with fix-emoji-coloring off, then on, and the translation cache is enabled so it's compared too.
+ * <p>
+ * Build with mvn package, then run i.e. java -cp benchmarks/target/benchmarks.jar
+ * io.github.radbuilder.emojichat.benchmarks.TranslationDiffTest messages=1000000. See {@link #USAGE} for the options.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class TranslationDiffTest {
+	/**
+	 * The options, with their defaults.
+	 */
+	private static final String USAGE = "Options (all optional): messages=100000 seed=<random> glued=25 shown=10\n"
+			+ "  glued is the percentage of words sent without a space before them, and shown is how many unexplained differences to print";
+	/**
+	 * The verbatim region put in the config, so messages can have one.
+	 */
+	private static final String VERBATIM_MARKER = "`";
+	/**
+	 * Color codes to put in messages.
+	 */
+	private static final String[] COLOR_CODES = {"§a", "§l", "&c", "&8", "&r"};
+	/**
+	 * Links to put in messages, with text that would be a shortcut outside of a link.
+	 */
+	private static final String[] LINKS = {"https://example.com/", "http://example.com/a:b?c=:P", "https://example.com/:3:"};
+	/**
+	 * Text to put in messages, including parts of shortcodes and shortcuts so they can end up touching.
+	 */
+	private static final String[] TEXT = {"hello", "8", "P", "1", ")", "(", ":", "/", "\\", "§", "&", "<", "3"};
+	/**
+	 * The kind of a shortcode put in a message.
+	 */
+	private static final int SHORTCODE = 0;
+	/**
+	 * The kind of a shortcut put in a message.
+	 */
+	private static final int SHORTCUT = 1;
+	/**
+	 * The placeholder for the first character of a message, when the part of it a {@link Divergence} is about is
+	 * replaced. Each position gets its own (the private use characters from here), which aren't in any shortcode,
+	 * shortcut or emoji pack.
+	 */
+	private static final char PLACEHOLDER = '\ue000';
+	/**
+	 * The last placeholder.
+	 */
+	private static final char PLACEHOLDER_END = '\uf8ff';
+	/**
+	 * The surfaces 1.8.3 translated for.
+	 */
+	private static final EmojiSurface[] SURFACES = {EmojiSurface.CHAT, EmojiSurface.SIGN, EmojiSurface.COMMAND};
+	/**
+	 * The number of messages to make for each fix-emoji-coloring value.
+	 */
+	private final int messages;
+	/**
+	 * The seed the messages are made from.
+	 */
+	private final long seed;
+	/**
+	 * The percentage of words sent without a space before them.
+	 */
+	private final int gluedPercent;
+	/**
+	 * How many unexplained differences to print.
+	 */
+	private final int shown;
+	/**
+	 * The number of unexplained differences printed so far.
+	 */
+	private int printed;
+	
+	/**
+	 * Creates the test with the specified options.
+	 *
+	 * @param options The options, i.e. messages=1000000.
+	 * @throws IllegalArgumentException If an option is unknown or invalid.
+	 */
+	TranslationDiffTest(ToolOptions options) {
+		messages = options.getInt("messages", 100_000, 1);
+		String seedOption = options.get("seed", null);
+		try {
+			seed = seedOption == null ? new Random().nextLong() : Long.parseLong(seedOption);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("seed must be a whole number, not '" + seedOption + "'");
+		}
+		gluedPercent = options.getInt("glued", 25, 0);
+		if (gluedPercent > 100) {
+			throw new IllegalArgumentException("glued must be a percentage, not " + gluedPercent);
+		}
+		shown = options.getInt("shown", 10, 0);
+		options.checkAllRead();
+		if (!options.getArguments().isEmpty()) {
+			throw new IllegalArgumentException("Options are key=value, not '" + options.getArguments().get(0) + "'");
+		}
+	}
+	
+	/**
+	 * Runs the test with the options specified as key=value, and exits with 0 if it passed, 1 if it failed, or 2 if the
+	 * options are invalid.
+	 *
+	 * @param args The options, i.e. messages=1000000.
+	 * @throws Exception If the test couldn't run.
+	 */
+	public static void main(String[] args) throws Exception {
+		TranslationDiffTest diffTest;
+		try {
+			diffTest = new TranslationDiffTest(new ToolOptions(args));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+			return;
+		}
+		System.exit(diffTest.run() ? 0 : 1);
+	}
+	
+	/**
+	 * Runs the test with fix-emoji-coloring off, then on, and prints the report.
+	 *
+	 * @return True if every difference was intentional, false otherwise.
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	public boolean run() throws Exception {
+		boolean passed = run(false);
+		passed &= run(true);
+		System.out.println();
+		System.out.println(passed ? "PASSED" : "FAILED");
+		return passed;
+	}
+	
+	/**
+	 * Translates the messages with the specified fix-emoji-coloring value, and prints its part of the report.
+	 *
+	 * @param fixColoring The fix-emoji-coloring value.
+	 * @return True if every difference was intentional, false otherwise.
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	private boolean run(boolean fixColoring) throws Exception {
+		Map<String, Object> config = new HashMap<>();
+		config.put("fix-emoji-coloring", fixColoring);
+		config.put("translation-cache-size", 1000);
+		config.put("verbatim-regions", Collections.singletonList(VERBATIM_MARKER + " " + VERBATIM_MARKER));
+		HeadlessEmojiChat plugin = new HeadlessEmojiChat(config);
+		try {
+			EmojiHandler emojiHandler = plugin.getEmojiHandler();
+			Comparison comparison = new Comparison(emojiHandler, plugin.getMetricsHandler(), Collections.singletonMap(VERBATIM_MARKER, VERBATIM_MARKER));
+			Random random = new Random(seed);
+			for (int i = 0; i < messages; i++) {
+				GeneratedMessage message = new GeneratedMessage(random, comparison);
+				EmojiSurface surface = SURFACES[random.nextInt(SURFACES.length)];
+				boolean useShortcuts = random.nextInt(4) != 0;
+				for (Operation operation : Operation.values()) {
+					comparison.compare(operation, message, surface, useShortcuts);
+				}
+			}
+			return comparison.report(fixColoring);
+		} finally {
+			plugin.close();
+		}
+	}
+	
+	/**
+	 * Gets the emojis, shortcuts and escapes counted for each surface 1.8.3 translated for.
+	 *
+	 * @param stats The stats to get the counts from.
+	 * @return The counts.
+	 */
+	private static long[] getCounts(EmojiStats stats) {
+		long[] counts = new long[SURFACES.length * 3];
+		for (int i = 0; i < SURFACES.length; i++) {
+			counts[i * 3] = stats.getEmojisUsed().get(SURFACES[i]);
+			counts[i * 3 + 1] = stats.getShortcutsUsed().get(SURFACES[i]);
+			counts[i * 3 + 2] = stats.getEscapesUsed().get(SURFACES[i]);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Gets what was counted between two {@link #getCounts(EmojiStats)}, as emojis/shortcuts/escapes.
+	 *
+	 * @param before The counts before translating.
+	 * @param after The counts after translating.
+	 * @return What was counted, i.e. "chat 2/1/0".
+	 */
+	private static String describeCounts(long[] before, long[] after) {
+		StringBuilder description = new StringBuilder();
+		for (int i = 0; i < SURFACES.length; i++) {
+			long emojis = after[i * 3] - before[i * 3];
+			long shortcuts = after[i * 3 + 1] - before[i * 3 + 1];
+			long escapes = after[i * 3 + 2] - before[i * 3 + 2];
+			if (emojis != 0L || shortcuts != 0L || escapes != 0L) {
+				description.append(description.length() == 0 ? "" : ", ").append(SURFACES[i].name().toLowerCase(Locale.ROOT))
+						.append(' ').append(emojis).append('/').append(shortcuts).append('/').append(escapes);
+			}
+		}
+		return description.length() == 0 ? "nothing" : description.toString();
+	}
+	
+	/**
+	 * Makes the specified text printable on one line, i.e. with \n for new lines.
+	 *
+	 * @param text The text, or null.
+	 * @return The text in quotes, or null.
+	 */
+	private static String quote(String text) {
+		return text == null ? "null (blocked)" : '"' + text.replace("\n", "\\n") + '"';
+	}
+	
+	/**
+	 * What's compared for each message.
+	 */
+	private enum Operation {
+		/**
+		 * What the listeners do with a message: shorthand, then shortcodes, then blocking disabled emoji characters.
+		 */
+		TRANSLATE {
+			@Override
+			String translate(EmojiTranslator translator, String message, EmojiSurface surface, boolean useShortcuts) {
+				return translator.translate(message, surface, useShortcuts);
+			}
+			
+			@Override
+			String translate(LegacyEmojiTranslator legacy, String message, EmojiSurface surface, boolean useShortcuts) {
+				return legacy.translate(message, surface, useShortcuts);
+			}
+			
+			@Override
+			String translate(ReferenceEmojiTranslator reference, String message, EmojiSurface surface, boolean useShortcuts) {
+				return reference.translate(message, surface, useShortcuts);
+			}
+		},
+		/**
+		 * translateShorthand on its own.
+		 */
+		SHORTHAND {
+			@Override
+			String translate(EmojiTranslator translator, String message, EmojiSurface surface, boolean useShortcuts) {
+				return translator.translateShorthand(message);
+			}
+			
+			@Override
+			String translate(LegacyEmojiTranslator legacy, String message, EmojiSurface surface, boolean useShortcuts) {
+				return legacy.translateShorthand(message, EmojiSurface.CHAT);
+			}
+			
+			@Override
+			String translate(ReferenceEmojiTranslator reference, String message, EmojiSurface surface, boolean useShortcuts) {
+				return reference.translateShorthand(message);
+			}
+			
+			@Override
+			boolean usesShortcuts(boolean useShortcuts) {
+				return true;
+			}
+		},
+		/**
+		 * toEmojiFromChat, toEmojiFromSign or toEmoji on their own, which don't block disabled emoji characters.
+		 */
+		TO_EMOJI {
+			@Override
+			String translate(EmojiTranslator translator, String message, EmojiSurface surface, boolean useShortcuts) {
+				return surface == EmojiSurface.CHAT ? translator.toEmojiFromChat(message)
+						: surface == EmojiSurface.SIGN ? translator.toEmojiFromSign(message) : translator.toEmoji(message);
+			}
+			
+			@Override
+			String translate(LegacyEmojiTranslator legacy, String message, EmojiSurface surface, boolean useShortcuts) {
+				return surface == EmojiSurface.CHAT ? legacy.toEmojiFromChat(message)
+						: surface == EmojiSurface.SIGN ? legacy.toEmojiFromSign(message) : legacy.toEmoji(message, EmojiSurface.CHAT);
+			}
+			
+			@Override
+			String translate(ReferenceEmojiTranslator reference, String message, EmojiSurface surface, boolean useShortcuts) {
+				return surface == EmojiSurface.CHAT ? reference.toEmojiFromChat(message)
+						: surface == EmojiSurface.SIGN ? reference.toEmojiFromSign(message) : reference.toEmoji(message, EmojiSurface.CHAT);
+			}
+			
+			@Override
+			boolean usesShortcuts(boolean useShortcuts) {
+				return false;
+			}
+		};
+		
+		/**
+		 * Translates the specified message with the translator.
+		 *
+		 * @param translator The translator.
+		 * @param message The message.
+		 * @param surface The {@link EmojiSurface} the message is for.
+		 * @param useShortcuts If shortcuts should be translated.
+		 * @return The translated message, or null if it was blocked.
+		 */
+		abstract String translate(EmojiTranslator translator, String message, EmojiSurface surface, boolean useShortcuts);
+		
+		/**
+		 * Translates the specified message with the 1.8.3 translation.
+		 *
+		 * @param legacy The 1.8.3 translation.
+		 * @param message The message.
+		 * @param surface The {@link EmojiSurface} the message is for.
+		 * @param useShortcuts If shortcuts should be translated.
+		 * @return The translated message, or null if it was blocked.
+		 */
+		abstract String translate(LegacyEmojiTranslator legacy, String message, EmojiSurface surface, boolean useShortcuts);
+		
+		/**
+		 * Translates the specified message with the reference translation.
+		 *
+		 * @param reference The reference translation.
+		 * @param message The message.
+		 * @param surface The {@link EmojiSurface} the message is for.
+		 * @param useShortcuts If shortcuts should be translated.
+		 * @return The translated message, or null if it was blocked.
+		 */
+		abstract String translate(ReferenceEmojiTranslator reference, String message, EmojiSurface surface, boolean useShortcuts);
+		
+		/**
+		 * Checks if shortcuts are translated.
+		 *
+		 * @param useShortcuts If the player has shortcuts on.
+		 * @return True if shortcuts are translated, false otherwise.
+		 */
+		boolean usesShortcuts(boolean useShortcuts) {
+			return useShortcuts;
+		}
+	}
+	
+	/**
+	 * A random message, and where its shortcodes and shortcuts are.
+	 */
+	private static class GeneratedMessage {
+		/**
+		 * The message.
+		 */
+		private final String text;
+		/**
+		 * The start, end and kind ({@link #SHORTCODE} or {@link #SHORTCUT}) of each shortcode and shortcut put in the message, in order.
+		 */
+		private final List<int[]> spans;
+		
+		/**
+		 * Makes a random message.
+		 *
+		 * @param random The random to make the message with.
+		 * @param comparison The comparison, with the shortcodes, shortcuts and disabled emoji characters to use.
+		 */
+		private GeneratedMessage(Random random, Comparison comparison) {
+			StringBuilder message = new StringBuilder();
+			spans = new ArrayList<>();
+			int words = 1 + random.nextInt(8);
+			for (int i = 0; i < words; i++) {
+				if (i > 0 && random.nextInt(100) >= comparison.gluedPercent) {
+					message.append(' ');
+				}
+				int kind = random.nextInt(100);
+				if (kind < 60) { // A shortcode or a shortcut
+					List<String> patterns = kind < 30 ? comparison.shortcodes : comparison.shortcuts;
+					String pattern = patterns.get(random.nextInt(patterns.size()));
+					spans.add(new int[] {message.length(), message.length() + pattern.length(), kind < 30 ? SHORTCODE : SHORTCUT});
+					message.append(pattern);
+				} else if (kind < 63) {
+					message.append(comparison.disabledCharacters.get(random.nextInt(comparison.disabledCharacters.size())));
+				} else if (kind < 67) {
+					message.append(COLOR_CODES[random.nextInt(COLOR_CODES.length)]);
+				} else if (kind < 69) {
+					message.append(LINKS[random.nextInt(LINKS.length)]);
+				} else if (kind < 71) {
+					message.append(VERBATIM_MARKER).append(comparison.shortcuts.get(random.nextInt(comparison.shortcuts.size()))).append(VERBATIM_MARKER);
+				} else {
+					message.append(TEXT[random.nextInt(TEXT.length)]);
+				}
+			}
+			text = message.toString();
+		}
+	}
+	
+	/**
+	 * The comparison of the translator with the 1.8.3 translation and the reference translation for one config, and its results.
+	 */
+	private class Comparison {
+		/**
+		 * The translator.
+		 */
+		private final EmojiTranslator translator;
+		/**
+		 * Where the translator counts what it translated.
+		 */
+		private final EmojiStats stats;
+		/**
+		 * The 1.8.3 translation.
+		 */
+		private final LegacyEmojiTranslator legacy;
+		/**
+		 * Where the 1.8.3 translation counts what it translated.
+		 */
+		private final EmojiStats legacyStats;
+		/**
+		 * The reference translation.
+		 */
+		private final ReferenceEmojiTranslator reference;
+		/**
+		 * Where the reference translation counts what it translated.
+		 */
+		private final EmojiStats referenceStats;
+		/**
+		 * The enabled emoji shortcodes.
+		 */
+		private final List<String> shortcodes;
+		/**
+		 * The shortcuts.
+		 */
+		private final List<String> shortcuts;
+		/**
+		 * The disabled emoji characters.
+		 */
+		private final List<Character> disabledCharacters;
+		/**
+		 * The percentage of words sent without a space before them.
+		 */
+		private final int gluedPercent;
+		/**
+		 * The number of identical results, by {@link Operation}.
+		 */
+		private final long[] identical;
+		/**
+		 * The number of intentional differences, by {@link Operation}, then {@link Divergence}.
+		 */
+		private final long[][] intentional;
+		/**
+		 * The number of unexplained differences, by {@link Operation}.
+		 */
+		private final long[] unexplained;
+		
+		/**
+		 * Creates the comparison.
+		 *
+		 * @param translator The translator.
+		 * @param stats Where the translator counts what it translated.
+		 * @param verbatimRegions The verbatim regions in the config, start markers mapped to end markers.
+		 * @throws IllegalStateException If a shortcode, shortcut or emoji character is a placeholder.
+		 */
+		private Comparison(EmojiTranslator translator, EmojiStats stats, Map<String, String> verbatimRegions) {
+			this.translator = translator;
+			this.stats = stats;
+			legacyStats = new EmojiStats();
+			legacy = new LegacyEmojiTranslator(translator, legacyStats);
+			referenceStats = new EmojiStats();
+			reference = new ReferenceEmojiTranslator(translator, verbatimRegions, referenceStats);
+			shortcodes = new ArrayList<>(translator.getEmojis().keySet());
+			shortcuts = new ArrayList<>(translator.getShortcuts().keySet());
+			Collections.sort(shortcuts); // The same messages for the same seed, whatever the HashMap order
+			disabledCharacters = translator.getDisabledCharacters().isEmpty() ? Collections.singletonList(' ') : translator.getDisabledCharacters();
+			gluedPercent = TranslationDiffTest.this.gluedPercent;
+			identical = new long[Operation.values().length];
+			intentional = new long[Operation.values().length][Divergence.values().length];
+			unexplained = new long[Operation.values().length];
+			
+			List<String> patterns = new ArrayList<>(shortcodes);
+			patterns.addAll(shortcuts);
+			patterns.addAll(translator.getShortcuts().values());
+			for (Character emoji : translator.getEmojis().values()) {
+				patterns.add(emoji.toString());
+			}
+			for (Character disabledCharacter : translator.getDisabledCharacters()) {
+				patterns.add(disabledCharacter.toString());
+			}
+			for (String pattern : patterns) {
+				for (int i = 0; i < pattern.length(); i++) {
+					if (pattern.charAt(i) >= PLACEHOLDER && pattern.charAt(i) <= PLACEHOLDER_END) {
+						throw new IllegalStateException("'" + pattern + "' has a placeholder character, change TranslationDiffTest.PLACEHOLDER");
+					}
+				}
+			}
+		}
+		
+		/**
+		 * Translates the specified message with the translator, the 1.8.3 translation and the reference translation, and
+		 * compares the results and what was counted.
+		 *
+		 * @param operation What to compare.
+		 * @param message The message.
+		 * @param surface The {@link EmojiSurface} the message is for.
+		 * @param useShortcuts If the player has shortcuts on.
+		 */
+		private void compare(Operation operation, GeneratedMessage message, EmojiSurface surface, boolean useShortcuts) {
+			long[] legacyBefore = getCounts(legacyStats);
+			String expected;
+			boolean legacyFailed = false;
+			try {
+				expected = operation.translate(legacy, message.text, surface, useShortcuts);
+			} catch (StringIndexOutOfBoundsException e) {
+				expected = e.toString();
+				legacyFailed = true;
+			}
+			long[] legacyAfter = getCounts(legacyStats);
+			
+			long[] before = getCounts(stats);
+			String actual;
+			try {
+				actual = operation.translate(translator, message.text, surface, useShortcuts);
+			} catch (RuntimeException e) {
+				actual = e.toString();
+			}
+			long[] after = getCounts(stats);
+			
+			long[] referenceBefore = getCounts(referenceStats);
+			String referenceExpected = operation.translate(reference, message.text, surface, useShortcuts);
+			long[] referenceAfter = getCounts(referenceStats);
+			
+			long[] counted = subtract(after, before);
+			boolean asReference = Objects.equals(referenceExpected, actual) && Arrays.equals(counted, subtract(referenceAfter, referenceBefore));
+			if (!legacyFailed && Objects.equals(expected, actual) && Arrays.equals(counted, subtract(legacyAfter, legacyBefore)) && asReference) {
+				identical[operation.ordinal()]++;
+				return;
+			}
+			Divergence divergence = null;
+			if (asReference) { // Anything else is wrong wherever the difference from 1.8.3 is
+				boolean blocked = !legacyFailed && expected == null && actual == null; // The reference counts nothing for blocked messages
+				divergence = blocked ? Divergence.DISABLED_NOT_COUNTED : findDivergence(operation, message, surface, useShortcuts, legacyFailed);
+			}
+			if (divergence != null) {
+				intentional[operation.ordinal()][divergence.ordinal()]++;
+				return;
+			}
+			
+			unexplained[operation.ordinal()]++;
+			if (printed++ < shown) {
+				System.out.printf(Locale.ROOT, "%s for %s, shortcuts %s, seed %d: %s%n", operation.name().toLowerCase(Locale.ROOT),
+						surface.name().toLowerCase(Locale.ROOT), useShortcuts ? "on" : "off", seed, quote(message.text));
+				System.out.println("  1.8.3:     " + (legacyFailed ? expected : quote(expected)) + ", counted " + describeCounts(legacyBefore, legacyAfter));
+				System.out.println("  reference: " + quote(referenceExpected) + ", counted " + describeCounts(referenceBefore, referenceAfter));
+				System.out.println("  now:       " + quote(actual) + ", counted " + describeCounts(before, after));
+			}
+		}
+		
+		/**
+		 * Subtracts the specified counts.
+		 *
+		 * @param after The counts after translating.
+		 * @param before The counts before translating.
+		 * @return What was counted.
+		 */
+		private long[] subtract(long[] after, long[] before) {
+			long[] counted = new long[after.length];
+			for (int i = 0; i < after.length; i++) {
+				counted[i] = after[i] - before[i];
+			}
+			return counted;
+		}
+		
+		/**
+		 * Finds the {@link Divergence} that explains a difference from 1.8.3. The parts of the message each divergence is
+		 * about are replaced with placeholders, adding one divergence at a time, until the translator and 1.8.3 give
+		 * identical results and counts for what's left.
+		 *
+		 * @param operation What was compared.
+		 * @param message The message.
+		 * @param surface The {@link EmojiSurface} the message was for.
+		 * @param useShortcuts If the player has shortcuts on.
+		 * @param legacyFailed If 1.8.3 threw an exception for the whole message.
+		 * @return The {@link Divergence}, or null if none of them explains the difference.
+		 */
+		private Divergence findDivergence(Operation operation, GeneratedMessage message, EmojiSurface surface, boolean useShortcuts, boolean legacyFailed) {
+			String text = message.text;
+			boolean shortcutsUsed = operation.usesShortcuts(useShortcuts);
+			List<int[]> tokens = reference.tokenize(text, shortcutsUsed);
+			List<int[]> protectedRegions = new ArrayList<>();
+			for (int[] token : tokens) {
+				if (token[2] == ReferenceEmojiTranslator.LINK || token[2] == ReferenceEmojiTranslator.VERBATIM || token[2] == ReferenceEmojiTranslator.COLOR_CODE) {
+					protectedRegions.add(token);
+				}
+			}
+			// Shortcodes and shortcuts are looked for outside of links, verbatim regions and color codes
+			String unprotected = mask(text, protectedRegions);
+			List<int[]> spans = new ArrayList<>();
+			for (int[] span : message.spans) {
+				if (!overlaps(protectedRegions, span[0], span[1])) {
+					spans.add(span);
+				}
+			}
+			
+			List<int[]> overlapping = findOverlappingMatches(unprotected, spans, shortcutsUsed);
+			List<int[]> regions = new ArrayList<>();
+			if (legacyFailed) {
+				regions.addAll(expand(findSelfOverlaps(unprotected), spans, unprotected));
+				if (!regions.isEmpty() && agrees(operation, mask(text, regions), surface, useShortcuts)) {
+					return Divergence.LEGACY_EXCEPTION;
+				}
+				// A replacement can make the shortcut that overlaps itself, so try them together
+				List<int[]> withOverlapping = new ArrayList<>(regions);
+				withOverlapping.addAll(overlapping);
+				withOverlapping.addAll(protectedRegions);
+				if (!withOverlapping.isEmpty() && agrees(operation, mask(text, withOverlapping), surface, useShortcuts)) {
+					return Divergence.LEGACY_EXCEPTION;
+				}
+			}
+			int[] protectedKinds = {ReferenceEmojiTranslator.LINK, ReferenceEmojiTranslator.VERBATIM, ReferenceEmojiTranslator.COLOR_CODE};
+			Divergence[] protectedDivergences = {Divergence.LINKS, Divergence.VERBATIM_REGIONS, Divergence.COLOR_CODES};
+			for (int i = 0; i < protectedKinds.length; i++) {
+				boolean found = false;
+				for (int[] region : protectedRegions) {
+					if (region[2] == protectedKinds[i]) {
+						regions.add(region);
+						found = true;
+					}
+				}
+				if (found && agrees(operation, mask(text, regions), surface, useShortcuts)) {
+					return legacyFailed ? Divergence.LEGACY_EXCEPTION : protectedDivergences[i];
+				}
+			}
+			
+			// 1.8.3 took the chat color after replacing shortcuts, so a shortcut or a backslash right after a starting § changed it
+			if (operation == Operation.TRANSLATE && surface == EmojiSurface.CHAT && translator.fixColoring() && shortcutsUsed && text.startsWith("§")) {
+				boolean changed = false;
+				for (int[] token : tokens) {
+					changed |= (token[2] == ReferenceEmojiTranslator.SHORTCUT && token[0] == 1) || (token[2] == ReferenceEmojiTranslator.ESCAPED_SHORTCUT && token[0] == 2);
+				}
+				if (changed) {
+					regions.add(new int[] {1, 2});
+					if (agrees(operation, mask(text, regions), surface, useShortcuts)) {
+						return legacyFailed ? Divergence.LEGACY_EXCEPTION : Divergence.CHAT_COLOR;
+					}
+				}
+			}
+			
+			if (!overlapping.isEmpty()) {
+				regions.addAll(overlapping);
+				if (agrees(operation, mask(text, regions), surface, useShortcuts)) {
+					return legacyFailed ? Divergence.LEGACY_EXCEPTION : Divergence.OVERLAPPING_MATCHES;
+				}
+			}
+			return null;
+		}
+		
+		/**
+		 * Checks if the translator and 1.8.3 give identical results and counts for the specified message.
+		 *
+		 * @param operation What to compare.
+		 * @param message The message.
+		 * @param surface The {@link EmojiSurface} the message is for.
+		 * @param useShortcuts If the player has shortcuts on.
+		 * @return True if they're identical (or both blocked, with nothing counted by the translator), false otherwise.
+		 */
+		private boolean agrees(Operation operation, String message, EmojiSurface surface, boolean useShortcuts) {
+			long[] legacyBefore = getCounts(legacyStats);
+			String expected;
+			try {
+				expected = operation.translate(legacy, message, surface, useShortcuts);
+			} catch (StringIndexOutOfBoundsException e) {
+				return false;
+			}
+			long[] legacyAfter = getCounts(legacyStats);
+			long[] before = getCounts(stats);
+			String actual = operation.translate(translator, message, surface, useShortcuts);
+			long[] after = getCounts(stats);
+			if (expected == null && actual == null) {
+				return Arrays.equals(before, after);
+			}
+			return Objects.equals(expected, actual) && Arrays.equals(subtract(after, before), subtract(legacyAfter, legacyBefore));
+		}
+		
+		/**
+		 * Replaces the specified regions of the message with placeholders, which aren't part of any shortcode or shortcut,
+		 * so 1.8.3 and the translator both copy them as-is.
+		 *
+		 * @param message The message.
+		 * @param regions The start and end of each region.
+		 * @return The message with the regions replaced.
+		 * @throws IllegalArgumentException If the message is too long to have a placeholder for each character.
+		 */
+		private String mask(String message, List<int[]> regions) {
+			if (message.length() > PLACEHOLDER_END - PLACEHOLDER + 1) {
+				throw new IllegalArgumentException("There aren't enough placeholders for a message of " + message.length() + " characters");
+			}
+			char[] masked = message.toCharArray();
+			for (int[] region : regions) {
+				for (int i = region[0]; i < region[1]; i++) {
+					masked[i] = (char) (PLACEHOLDER + i); // Next to each other, placeholders are still different
+				}
+			}
+			return new String(masked);
+		}
+		
+		/**
+		 * Finds the shortcuts that overlap themselves in the specified message (i.e. :1:1: with the :1: shortcut), or that
+		 * are right after themselves with a backslash as their last character (i.e. :\:\ with the :\ shortcut), which
+		 * 1.8.3 threw an exception for.
+		 *
+		 * @param message The message.
+		 * @return The start and end of each shortcut and the one overlapping it.
+		 */
+		private List<int[]> findSelfOverlaps(String message) {
+			List<int[]> regions = new ArrayList<>();
+			for (String shortcut : shortcuts) {
+				for (int i = message.indexOf(shortcut); i != -1; i = message.indexOf(shortcut, i + 1)) {
+					int next = message.indexOf(shortcut, i + 1);
+					// 1.8.3 took the backslash at the end of the first one as escaping the second one
+					if (next != -1 && (next < i + shortcut.length() || (next == i + shortcut.length() && message.charAt(next - 1) == '\\'))) {
+						regions.add(new int[] {i, next + shortcut.length()});
+					}
+				}
+			}
+			return regions;
+		}
+		
+		/**
+		 * Finds where 1.8.3 would have matched differently than in one pass in the specified message: the shortcodes and
+		 * shortcuts other than the ones put in the message (i.e. ones overlapping them), and the ones 1.8.3 made while
+		 * replacing shortcuts (i.e. :)P became :grinning:P, which has the :P shortcut). Each is expanded to the shortcodes
+		 * and shortcuts put in the message that it overlaps.
+		 *
+		 * @param message The message, with links, verbatim regions and color codes replaced with placeholders.
+		 * @param spans The shortcodes and shortcuts put in the message, outside of links, verbatim regions and color codes.
+		 * @param useShortcuts If shortcuts were translated.
+		 * @return The start and end of each region.
+		 */
+		private List<int[]> findOverlappingMatches(String message, List<int[]> spans, boolean useShortcuts) {
+			List<int[]> regions = new ArrayList<>();
+			for (int[] match : findMatches(message, useShortcuts)) {
+				if (!contains(spans, match[0], match[1])) {
+					regions.add(match);
+				}
+			}
+			if (useShortcuts) {
+				for (int[] span : spans) {
+					if (span[2] == SHORTCUT && span[0] > 0 && message.charAt(span[0] - 1) == '\\' && overlaps(spans, span[0] - 1, span[0])) {
+						regions.add(new int[] {span[0] - 1, span[1]}); // The backslash escaping it is part of another shortcode or shortcut
+					}
+				}
+				for (int only = -1; only < spans.size(); only++) {
+					addReplacementMatches(message, spans, only, regions);
+				}
+			}
+			return expand(regions, spans, message);
+		}
+		
+		/**
+		 * Adds where there's a shortcode or shortcut in the message with the specified shortcuts replaced (and escaped
+		 * shortcuts' backslashes removed), other than the ones put in the message. 1.8.3 replaced one shortcut at a time,
+		 * so this is checked with each shortcut replaced on its own, then with all of them.
+		 *
+		 * @param message The message.
+		 * @param spans The shortcodes and shortcuts put in the message.
+		 * @param only The index of the only span to replace, or -1 to replace all of them.
+		 * @param regions The list to add the start and end (in the message) of each one to.
+		 */
+		private void addReplacementMatches(String message, List<int[]> spans, int only, List<int[]> regions) {
+			StringBuilder replaced = new StringBuilder();
+			int[] sources = new int[message.length() * 8 + 64]; // The start and end in the message of each replaced character
+			List<int[]> shortcodeSpans = new ArrayList<>();
+			List<int[]> shortcutSpans = new ArrayList<>();
+			int copied = 0;
+			for (int i = 0; i < spans.size(); i++) {
+				int[] span = spans.get(i);
+				String pattern = message.substring(span[0], span[1]);
+				boolean escaped = span[0] > 0 && message.charAt(span[0] - 1) == '\\';
+				if (span[2] == SHORTCODE || (only != -1 && only != i)) { // Not replaced
+					sources = append(replaced, sources, message, copied, span[0]);
+					(span[2] == SHORTCODE ? shortcodeSpans : shortcutSpans).add(new int[] {replaced.length(), replaced.length() + pattern.length()});
+					sources = append(replaced, sources, message, span[0], span[1]);
+				} else if (escaped) { // The backslash is removed
+					sources = append(replaced, sources, message, copied, span[0] - 1);
+					shortcutSpans.add(new int[] {replaced.length(), replaced.length() + pattern.length()});
+					sources = append(replaced, sources, message, span[0], span[1]);
+					sources[(replaced.length() - pattern.length()) * 2] = span[0] - 1;
+				} else {
+					String replacement = translator.getShortcuts().get(pattern);
+					sources = append(replaced, sources, message, copied, span[0]);
+					shortcodeSpans.add(new int[] {replaced.length(), replaced.length() + replacement.length()});
+					for (int j = 0; j < replacement.length(); j++) {
+						sources = setSource(sources, replaced.length(), span[0], span[1]);
+						replaced.append(replacement.charAt(j));
+					}
+				}
+				copied = span[1];
+			}
+			sources = append(replaced, sources, message, copied, message.length());
+			String replacedText = replaced.toString();
+			
+			for (int[] match : findMatches(replacedText, true)) {
+				boolean shortcut = translator.getShortcuts().containsKey(replacedText.substring(match[0], match[1]));
+				if (!contains(shortcut ? shortcutSpans : shortcodeSpans, match[0], match[1])) {
+					int start = Integer.MAX_VALUE;
+					int end = 0;
+					for (int i = match[0]; i < match[1]; i++) {
+						start = Math.min(start, sources[i * 2]);
+						end = Math.max(end, sources[i * 2 + 1]);
+					}
+					regions.add(new int[] {start, end});
+				}
+			}
+		}
+		
+		/**
+		 * Appends the specified part of the message to the replaced message, with where each character came from.
+		 *
+		 * @param replaced The replaced message.
+		 * @param sources The start and end in the message of each replaced character.
+		 * @param message The message.
+		 * @param start The start of the part to append.
+		 * @param end The end of the part to append.
+		 * @return The sources, which are a new array if they grew.
+		 */
+		private int[] append(StringBuilder replaced, int[] sources, String message, int start, int end) {
+			for (int i = start; i < end; i++) {
+				sources = setSource(sources, replaced.length(), i, i + 1);
+				replaced.append(message.charAt(i));
+			}
+			return sources;
+		}
+		
+		/**
+		 * Sets where the specified replaced character came from.
+		 *
+		 * @param sources The start and end in the message of each replaced character.
+		 * @param position The position of the replaced character.
+		 * @param start The start in the message.
+		 * @param end The end in the message.
+		 * @return The sources, which are a new array if they grew.
+		 */
+		private int[] setSource(int[] sources, int position, int start, int end) {
+			if (position * 2 + 1 >= sources.length) {
+				sources = Arrays.copyOf(sources, sources.length * 2);
+			}
+			sources[position * 2] = start;
+			sources[position * 2 + 1] = end;
+			return sources;
+		}
+		
+		/**
+		 * Expands the specified regions to the spans they overlap, until none of them overlaps a span it doesn't cover. The
+		 * backslash before a shortcut is part of its span, so a shortcut isn't unescaped by replacing only its backslash.
+		 *
+		 * @param regions The start and end of each region.
+		 * @param spans The shortcodes and shortcuts put in the message.
+		 * @param message The message.
+		 * @return The expanded regions.
+		 */
+		private List<int[]> expand(List<int[]> regions, List<int[]> spans, String message) {
+			List<int[]> expanded = new ArrayList<>();
+			for (int[] region : regions) {
+				int[] copy = {region[0], region[1]};
+				boolean changed = true;
+				while (changed) {
+					changed = false;
+					for (int[] span : spans) {
+						int start = span[2] == SHORTCUT && span[0] > 0 && message.charAt(span[0] - 1) == '\\' ? span[0] - 1 : span[0];
+						if (start < copy[1] && copy[0] < span[1] && (start < copy[0] || span[1] > copy[1])) {
+							copy[0] = Math.min(copy[0], start);
+							copy[1] = Math.max(copy[1], span[1]);
+							changed = true;
+						}
+					}
+				}
+				expanded.add(copy);
+			}
+			return expanded;
+		}
+		
+		/**
+		 * Finds every shortcode, and every shortcut if they're translated, in the specified text, overlapping or not.
+		 *
+		 * @param text The text.
+		 * @param useShortcuts If shortcuts should be found.
+		 * @return The start and end of each one.
+		 */
+		private List<int[]> findMatches(String text, boolean useShortcuts) {
+			List<int[]> matches = new ArrayList<>();
+			findMatches(text, shortcodes, matches);
+			if (useShortcuts) {
+				findMatches(text, shortcuts, matches);
+			}
+			return matches;
+		}
+		
+		/**
+		 * Finds the specified patterns in the specified text, overlapping or not.
+		 *
+		 * @param text The text.
+		 * @param patterns The patterns.
+		 * @param matches The list to add the start and end of each one to.
+		 */
+		private void findMatches(String text, List<String> patterns, List<int[]> matches) {
+			for (String pattern : patterns) {
+				for (int i = text.indexOf(pattern); i != -1; i = text.indexOf(pattern, i + 1)) {
+					matches.add(new int[] {i, i + pattern.length()});
+				}
+			}
+		}
+		
+		/**
+		 * Checks if any of the specified spans overlaps the specified range.
+		 *
+		 * @param spans The spans.
+		 * @param start The start of the range.
+		 * @param end The end of the range.
+		 * @return True if one overlaps, false otherwise.
+		 */
+		private boolean overlaps(List<int[]> spans, int start, int end) {
+			for (int[] span : spans) {
+				if (span[0] < end && start < span[1]) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Checks if the specified spans have one with exactly the specified start and end.
+		 *
+		 * @param spans The spans.
+		 * @param start The start.
+		 * @param end The end.
+		 * @return True if there's one, false otherwise.
+		 */
+		private boolean contains(List<int[]> spans, int start, int end) {
+			for (int[] span : spans) {
+				if (span[0] == start && span[1] == end) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		/**
+		 * Prints the report for this comparison.
+		 *
+		 * @param fixColoring The fix-emoji-coloring value.
+		 * @return True if every difference was intentional, false otherwise.
+		 */
+		private boolean report(boolean fixColoring) {
+			System.out.println();
+			System.out.printf(Locale.ROOT, "fix-emoji-coloring %s: %d messages, seed %d, %d%% glued%n", fixColoring ? "on" : "off", messages, seed, gluedPercent);
+			System.out.printf(Locale.ROOT, "%-10s %10s %12s %12s%n", "operation", "identical", "intentional", "unexplained");
+			long[] divergences = new long[Divergence.values().length];
+			long totalUnexplained = 0L;
+			for (Operation operation : Operation.values()) {
+				long operationIntentional = 0L;
+				for (Divergence divergence : Divergence.values()) {
+					operationIntentional += intentional[operation.ordinal()][divergence.ordinal()];
+					divergences[divergence.ordinal()] += intentional[operation.ordinal()][divergence.ordinal()];
+				}
+				System.out.printf(Locale.ROOT, "%-10s %10d %12d %12d%n", operation.name().toLowerCase(Locale.ROOT), identical[operation.ordinal()],
+						operationIntentional, unexplained[operation.ordinal()]);
+				totalUnexplained += unexplained[operation.ordinal()];
+			}
+			System.out.println("intentional differences:");
+			for (Divergence divergence : Divergence.values()) {
+				System.out.printf(Locale.ROOT, "  %-22s %8d  %s%n", divergence.name().toLowerCase(Locale.ROOT), divergences[divergence.ordinal()],
+						divergence.getDescription());
+			}
+			return totalUnexplained == 0L;
+		}
+	}
+}
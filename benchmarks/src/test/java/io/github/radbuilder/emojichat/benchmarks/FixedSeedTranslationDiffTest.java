@@ -0,0 +1,51 @@
+package io.github.radbuilder.emojichat.benchmarks;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the {@link TranslationDiffTest} with a fixed seed on every build, so a change that translates differently than
+ * 1.8.3 (other than the intentional {@link Divergence}s) or than the {@link ReferenceEmojiTranslator} fails the build.
+ * Larger runs with random seeds are still done with the TranslationDiffTest tool.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class FixedSeedTranslationDiffTest {
+	/**
+	 * Every difference in 20000 messages for each fix-emoji-coloring value is intentional. The unexplained ones are
+	 * printed with the seed.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	@Test
+	public void everyDifferenceIsIntentional() throws Exception {
+		TranslationDiffTest diffTest = new TranslationDiffTest(new ToolOptions(new String[] {"messages=20000", "seed=20191018"}));
+		assertTrue("The translator has unexplained differences, see the output", diffTest.run());
+	}
+	
+	/**
+	 * Every difference is intentional with most words glued to the one before, where overlapping matches are most common.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	@Test
+	public void everyGluedDifferenceIsIntentional() throws Exception {
+		TranslationDiffTest diffTest = new TranslationDiffTest(new ToolOptions(new String[] {"messages=5000", "seed=42", "glued=90"}));
+		assertTrue("The translator has unexplained differences, see the output", diffTest.run());
+	}
+	
+	/**
+	 * Every difference is intentional with every word glued to the one before, including matches made across an escape
+	 * backslash or the end of a shortcode (i.e. :mc_ghast:\8) with the :\ shortcut), which this seed has.
+	 *
+	 * @throws Exception If EmojiChat couldn't be loaded.
+	 */
+	@Test
+	public void everyFullyGluedDifferenceIsIntentional() throws Exception {
+		TranslationDiffTest diffTest = new TranslationDiffTest(new ToolOptions(new String[] {"messages=20000", "seed=99", "glued=100"}));
+		assertTrue("The translator has unexplained differences, see the output", diffTest.run());
+	}
+}
@@ -0,0 +1,122 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+
+/**
+ * Emits Java Flight Recorder events for translations, reloads, hook messages and resource pack sends.
+ * <p>
+ * This class does nothing. On Java 11 and above, {@link #create()} loads the JFR version, which is compiled from the
+ * optional src/main/java11 sources (only built on JDK 11 and above) into META-INF/versions/11 of the multi-release jar,
+ * so the plugin still loads on Java 8 servers. Timed code calls the start method for its event first, which begins the
+ * JFR event so JFR measures its duration, and passes what it returned to the event method.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiEvents {
+	/**
+	 * The class that emits JFR events, which is only there if the plugin was built on JDK 11 or above.
+	 */
+	private static final String JFR_EVENTS_CLASS = "io.github.radbuilder.emojichat.metrics.JfrEmojiEvents";
+	
+	/**
+	 * Creates the events emitter that does nothing.
+	 */
+	protected EmojiEvents() {
+	}
+	
+	/**
+	 * Creates the JFR events emitter if the server runs Java 11 or above and it was built, or the one that does nothing otherwise.
+	 *
+	 * @return The events emitter.
+	 */
+	static EmojiEvents create() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			return (EmojiEvents) Class.forName(JFR_EVENTS_CLASS).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError | SecurityException e) { // No JFR, or built/running on Java 8
+			return new EmojiEvents();
+		}
+	}
+	
+	/**
+	 * Starts an EmojiTranslate event.
+	 *
+	 * @return The started event to pass to {@link #translate(EmojiSurface, int, int, Object)}, or null if it isn't recorded.
+	 */
+	public Object startTranslate() {
+		return null;
+	}
+	
+	/**
+	 * Ends and emits an EmojiTranslate event.
+	 *
+	 * @param surface The {@link EmojiSurface} the message was translated for.
+	 * @param messageLength The length of the message.
+	 * @param matches The number of emojis (from shortcodes or shortcuts) and escapes translated.
+	 * @param event What {@link #startTranslate()} returned.
+	 */
+	public void translate(EmojiSurface surface, int messageLength, int matches, Object event) {
+	}
+	
+	/**
+	 * Starts an EmojiReload event.
+	 *
+	 * @return The started event to pass to {@link #reload(int, int, int, Object)}, or null if it isn't recorded.
+	 */
+	public Object startReload() {
+		return null;
+	}
+	
+	/**
+	 * Ends and emits an EmojiReload event.
+	 *
+	 * @param emojis The number of enabled emojis after the reload.
+	 * @param shortcuts The number of shortcuts after the reload.
+	 * @param changes The number of emoji data changes (i.e. "shortcuts"), or -1 if the reload failed.
+	 * @param event What {@link #startReload()} returned.
+	 */
+	public void reload(int emojis, int shortcuts, int changes, Object event) {
+	}
+	
+	/**
+	 * Starts an EmojiHookBridge event.
+	 *
+	 * @return The started event to pass to {@link #hookBridge(String, EmojiSurface, boolean, int, Object)}, or null if it isn't recorded.
+	 */
+	public Object startHookBridge() {
+		return null;
+	}
+	
+	/**
+	 * Ends and emits an EmojiHookBridge event, for a message passed between Minecraft and another plugin.
+	 *
+	 * @param hook The name of the hook.
+	 * @param surface The {@link EmojiSurface} of the message, i.e. {@link EmojiSurface#CHAT} for in-game chat sent to Discord.
+	 * @param toMinecraft If the message is going to Minecraft, rather than from it.
+	 * @param messageLength The length of the message before it was converted.
+	 * @param event What {@link #startHookBridge()} returned.
+	 */
+	public void hookBridge(String hook, EmojiSurface surface, boolean toMinecraft, int messageLength, Object event) {
+	}
+	
+	/**
+	 * Starts a ResourcePackSend event.
+	 *
+	 * @return The started event to pass to {@link #resourcePackSend(String, String, Object)}, or null if it isn't recorded.
+	 */
+	public Object startResourcePackSend() {
+		return null;
+	}
+	
+	/**
+	 * Ends and emits a ResourcePackSend event.
+	 *
+	 * @param player The name of the player the pack was sent to.
+	 * @param reason Why the pack was sent, i.e. "join" or "command".
+	 * @param event What {@link #startResourcePackSend()} returned.
+	 */
+	public void resourcePackSend(String player, String reason, Object event) {
+	}
+}
@@ -0,0 +1,200 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the translation engine counts what it translated: emojis, shortcuts and escapes used by {@link EmojiSurface},
+ * messages translated and fast paths taken, and each emoji's usage. Also holds the {@link LatencyRecorder} and
+ * {@link EmojiEvents} the engine times itself with.
+ * <p>
+ * Everything is lock-free, so it can be added to from any number of chat threads. The plugin's MetricsHandler
+ * builds on this to report to bStats; without a server, this can be used on its own.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiStats {
+	/**
+	 * The number of emojis used, by {@link EmojiSurface}.
+	 */
+	private final SurfaceCounter emojisUsed;
+	/**
+	 * The number of shortcuts used, by {@link EmojiSurface}.
+	 */
+	private final SurfaceCounter shortcutsUsed;
+	/**
+	 * The number of escapes used, by {@link EmojiSurface}.
+	 */
+	private final SurfaceCounter escapesUsed;
+	/**
+	 * The number of messages translated.
+	 */
+	private final LongAdder messagesTranslated;
+	/**
+	 * The number of messages translated that took the fast path (had nothing to translate).
+	 */
+	private final LongAdder fastPathsTaken;
+	/**
+	 * How many times each emoji was used.
+	 */
+	private final EmojiUsageHistogram emojiUsage;
+	/**
+	 * How long each stage of handling messages takes, if enabled.
+	 */
+	private final LatencyRecorder latency;
+	/**
+	 * The Java Flight Recorder events emitter, which does nothing below Java 11.
+	 */
+	private final EmojiEvents events;
+	
+	/**
+	 * Creates the stats with every count at 0 and latency timing disabled.
+	 */
+	public EmojiStats() {
+		emojisUsed = new SurfaceCounter();
+		shortcutsUsed = new SurfaceCounter();
+		escapesUsed = new SurfaceCounter();
+		messagesTranslated = new LongAdder();
+		fastPathsTaken = new LongAdder();
+		emojiUsage = new EmojiUsageHistogram();
+		latency = new LatencyRecorder();
+		events = EmojiEvents.create();
+	}
+	
+	/**
+	 * Adds the specified number of emojis used to {@link #emojisUsed}.
+	 *
+	 * @param surface The {@link EmojiSurface} the emojis were used on.
+	 * @param emojisUsed The number of emojis used to add to {@link #emojisUsed}.
+	 */
+	public void addEmojiUsed(EmojiSurface surface, int emojisUsed) {
+		this.emojisUsed.add(surface, emojisUsed);
+	}
+	
+	/**
+	 * Counts the first specified number of glyph offsets as used in the {@link #emojiUsage} histogram.
+	 *
+	 * @param glyphs The glyph offsets of the emojis used.
+	 * @param length How many of the glyph offsets to count.
+	 */
+	public void addGlyphsUsed(int[] glyphs, int length) {
+		emojiUsage.add(glyphs, length);
+	}
+	
+	/**
+	 * Adds the specified number of shortcuts used to {@link #shortcutsUsed}.
+	 *
+	 * @param surface The {@link EmojiSurface} the shortcuts were used on.
+	 * @param shortcutsUsed The number of shortcuts used to add to {@link #shortcutsUsed}.
+	 */
+	public void addShortcutUsed(EmojiSurface surface, int shortcutsUsed) {
+		this.shortcutsUsed.add(surface, shortcutsUsed);
+	}
+	
+	/**
+	 * Adds the specified number of escapes used to {@link #escapesUsed}.
+	 *
+	 * @param surface The {@link EmojiSurface} the escapes were used on.
+	 * @param escapesUsed The number of escapes used to add to {@link #escapesUsed}.
+	 */
+	public void addEscapesUsed(EmojiSurface surface, int escapesUsed) {
+		this.escapesUsed.add(surface, escapesUsed);
+	}
+	
+	/**
+	 * Adds a translated message to {@link #messagesTranslated}, and to {@link #fastPathsTaken} if it took the fast path.
+	 *
+	 * @param fastPath If the message took the fast path.
+	 */
+	public void addMessageTranslated(boolean fastPath) {
+		messagesTranslated.increment();
+		if (fastPath) {
+			fastPathsTaken.increment();
+		}
+	}
+	
+	/**
+	 * Gets the number of messages translated since the stats were created.
+	 *
+	 * @return The number of messages translated.
+	 */
+	public long getMessagesTranslated() {
+		return messagesTranslated.sum();
+	}
+	
+	/**
+	 * Gets the number of messages translated that took the fast path since the stats were created.
+	 *
+	 * @return The number of messages that took the fast path.
+	 */
+	public long getFastPathsTaken() {
+		return fastPathsTaken.sum();
+	}
+	
+	/**
+	 * Gets the percentage of translated messages that took the fast path since the stats were created.
+	 *
+	 * @return The percentage of translated messages that took the fast path, or 0 if no messages were translated.
+	 */
+	public int getFastPathPercentage() {
+		long translated = messagesTranslated.sum();
+		return translated == 0 ? 0 : (int) (fastPathsTaken.sum() * 100L / translated);
+	}
+	
+	/**
+	 * Gets the number of emojis used since the stats were created, by {@link EmojiSurface}.
+	 *
+	 * @return The {@link SurfaceCounter} of emojis used.
+	 */
+	public SurfaceCounter getEmojisUsed() {
+		return emojisUsed;
+	}
+	
+	/**
+	 * Gets the number of shortcuts used since the stats were created, by {@link EmojiSurface}.
+	 *
+	 * @return The {@link SurfaceCounter} of shortcuts used.
+	 */
+	public SurfaceCounter getShortcutsUsed() {
+		return shortcutsUsed;
+	}
+	
+	/**
+	 * Gets the number of escapes used since the stats were created, by {@link EmojiSurface}.
+	 *
+	 * @return The {@link SurfaceCounter} of escapes used.
+	 */
+	public SurfaceCounter getEscapesUsed() {
+		return escapesUsed;
+	}
+	
+	/**
+	 * Gets how many times each emoji was used.
+	 *
+	 * @return The {@link EmojiUsageHistogram}.
+	 */
+	public EmojiUsageHistogram getEmojiUsage() {
+		return emojiUsage;
+	}
+	
+	/**
+	 * Gets how long each stage of handling messages takes.
+	 *
+	 * @return The {@link LatencyRecorder}.
+	 */
+	public LatencyRecorder getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * Gets the Java Flight Recorder events emitter.
+	 *
+	 * @return The {@link EmojiEvents}.
+	 */
+	public EmojiEvents getEvents() {
+		return events;
+	}
+}
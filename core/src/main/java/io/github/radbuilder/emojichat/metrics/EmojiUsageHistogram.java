@@ -0,0 +1,223 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import io.github.radbuilder.emojichat.utils.EmojiIndex;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * How many times each emoji was used, as one lock-free counter per glyph offset (the emoji's position in list.txt), so
+ * counting an emoji is a single atomic add with no lookups or allocations.
+ * <p>
+ * Counts are kept by glyph offset rather than shortcode, and only turned into shortcodes when they're reported or saved,
+ * which is what lets them survive reloads and pack variant changes. Every emoji's count is saved, even while it's
+ * disabled, but disabled emojis are left out of what's reported.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiUsageHistogram {
+	/**
+	 * The most glyphs that are counted, comfortably more than the emojis in list.txt.
+	 */
+	private static final int MAX_GLYPHS = 1024;
+	/**
+	 * How long the ranking used by placeholders is reused before it's sorted again.
+	 */
+	private static final long RANKING_TTL_NANOS = TimeUnit.SECONDS.toNanos(1L);
+	/**
+	 * The number of times each emoji was used, by glyph offset.
+	 */
+	private final AtomicLongArray counts;
+	/**
+	 * The glyph offsets of the used emojis, most used first, as of {@link #rankedAt}.
+	 */
+	private volatile int[] ranking;
+	/**
+	 * When the {@link #ranking} was sorted, from {@link System#nanoTime()}.
+	 */
+	private volatile long rankedAt;
+	
+	/**
+	 * Creates a histogram with every emoji at 0.
+	 */
+	EmojiUsageHistogram() {
+		counts = new AtomicLongArray(MAX_GLYPHS);
+		ranking = new int[0];
+		rankedAt = System.nanoTime() - RANKING_TTL_NANOS;
+	}
+	
+	/**
+	 * Counts the first specified number of glyph offsets as used once each.
+	 *
+	 * @param glyphs The glyph offsets of the emojis used.
+	 * @param length How many of the glyph offsets to count.
+	 */
+	void add(int[] glyphs, int length) {
+		for (int i = 0; i < length; i++) {
+			int glyph = glyphs[i];
+			if (glyph >= 0 && glyph < MAX_GLYPHS) {
+				counts.incrementAndGet(glyph);
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of times the emoji at the specified glyph offset was used.
+	 *
+	 * @param glyph The glyph offset.
+	 * @return The number of times the emoji was used.
+	 */
+	public long get(int glyph) {
+		return glyph >= 0 && glyph < MAX_GLYPHS ? counts.get(glyph) : 0L;
+	}
+	
+	/**
+	 * Gets the glyph offsets of the most used emojis, most used first. Emojis that were never used, or that aren't
+	 * enabled in the specified index, aren't included.
+	 *
+	 * @param limit The most glyph offsets to get.
+	 * @param index The {@link EmojiIndex} with the enabled emojis.
+	 * @return The glyph offsets, most used first.
+	 */
+	public int[] getTop(int limit, EmojiIndex index) {
+		List<Integer> top = new ArrayList<>();
+		for (int glyph : rank()) {
+			if (top.size() >= limit) {
+				break;
+			}
+			if (index.getShortcode(index.getGlyphCharacter(glyph)) != null) {
+				top.add(glyph);
+			}
+		}
+		
+		int[] glyphs = new int[top.size()];
+		for (int i = 0; i < glyphs.length; i++) {
+			glyphs[i] = top.get(i);
+		}
+		return glyphs;
+	}
+	
+	/**
+	 * Gets the glyph offset of the emoji at the specified rank, from a ranking that's up to a second old, so placeholders
+	 * refreshed every tick don't sort the histogram every time.
+	 *
+	 * Emojis that aren't enabled in the specified index are skipped.
+	 *
+	 * @param rank The rank, starting at 1 for the most used emoji.
+	 * @param index The {@link EmojiIndex} with the enabled emojis.
+	 * @return The glyph offset, or -1 if fewer emojis than that were used.
+	 */
+	public int getRanked(int rank, EmojiIndex index) {
+		int[] ranking = this.ranking;
+		if (System.nanoTime() - rankedAt > RANKING_TTL_NANOS) {
+			ranking = rank();
+			this.ranking = ranking;
+			rankedAt = System.nanoTime();
+		}
+		int remaining = rank;
+		for (int glyph : ranking) {
+			if (index.getShortcode(index.getGlyphCharacter(glyph)) != null && --remaining == 0) {
+				return glyph;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Sorts the used glyph offsets by how many times they were used, most used first.
+	 *
+	 * @return The used glyph offsets, most used first.
+	 */
+	private int[] rank() {
+		long[] snapshot = new long[MAX_GLYPHS];
+		List<Integer> used = new ArrayList<>();
+		for (int glyph = 0; glyph < MAX_GLYPHS; glyph++) {
+			snapshot[glyph] = counts.get(glyph);
+			if (snapshot[glyph] > 0L) {
+				used.add(glyph);
+			}
+		}
+		used.sort((first, second) -> Long.compare(snapshot[second], snapshot[first]));
+		
+		int[] ranked = new int[used.size()];
+		for (int i = 0; i < ranked.length; i++) {
+			ranked[i] = used.get(i);
+		}
+		return ranked;
+	}
+	
+	/**
+	 * Saves a snapshot of the histogram to the specified file, one "shortcode count" line per used emoji, most used first.
+	 * Disabled emojis are saved too, so their counts are still there if they're enabled again.
+	 * The snapshot is written to a temporary file first, so a crash never leaves a half-written snapshot.
+	 *
+	 * @param file The file to save to.
+	 * @param shortcodes Every emoji shortcode in list.txt, enabled or not, indexed by glyph offset.
+	 * @throws IOException If the snapshot can't be written.
+	 */
+	public void save(File file, List<String> shortcodes) throws IOException {
+		File temporaryFile = new File(file.getPath() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(temporaryFile.toPath(), StandardCharsets.UTF_8)) {
+			writer.write("# EmojiChat emoji usage, most used first. Delete this file to reset the counts.");
+			writer.newLine();
+			for (int glyph : rank()) {
+				if (glyph < shortcodes.size()) {
+					writer.write(shortcodes.get(glyph) + " " + counts.get(glyph));
+					writer.newLine();
+				}
+			}
+		}
+		Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Adds the counts from a snapshot saved with {@link #save(File, List)}, so the histogram carries on across restarts.
+	 * Lines for shortcodes that aren't in list.txt anymore are skipped.
+	 *
+	 * @param file The file to load from. Nothing is loaded if it doesn't exist.
+	 * @param shortcodes Every emoji shortcode in list.txt, enabled or not, indexed by glyph offset.
+	 * @throws IOException If the snapshot can't be read.
+	 */
+	public void load(File file, List<String> shortcodes) throws IOException {
+		if (!file.exists()) {
+			return;
+		}
+		
+		Map<String, Integer> glyphs = new HashMap<>();
+		for (int glyph = 0; glyph < shortcodes.size(); glyph++) {
+			glyphs.putIfAbsent(shortcodes.get(glyph), glyph);
+		}
+		
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				int separator = line.lastIndexOf(' ');
+				if (line.startsWith("#") || separator == -1) {
+					continue;
+				}
+				int glyph = glyphs.getOrDefault(line.substring(0, separator), -1);
+				if (glyph < 0 || glyph >= MAX_GLYPHS) {
+					continue;
+				}
+				try {
+					counts.addAndGet(glyph, Long.parseLong(line.substring(separator + 1)));
+				} catch (NumberFormatException ignored) { // Skip lines that were edited by hand
+				}
+			}
+		}
+		rankedAt = System.nanoTime() - RANKING_TTL_NANOS; // Sort again on the next placeholder request
+	}
+}
@@ -0,0 +1,160 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with HDR-style log-linear buckets: every power of two is split into {@link #SUB_BUCKETS}
+ * equal buckets, so any duration from 1ns to centuries is recorded with at most 1/16 (about 6%) error in a fixed
+ * 960 counters, and recording is one atomic add.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class LatencyHistogram {
+	/**
+	 * How many bits of each duration (below its highest one bit) pick the bucket within its power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 4;
+	/**
+	 * How many buckets each power of two is split into.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/**
+	 * The number of buckets, enough for any positive long.
+	 */
+	private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS) * SUB_BUCKETS + SUB_BUCKETS;
+	/**
+	 * The number of durations recorded in each bucket.
+	 */
+	private final AtomicLongArray buckets;
+	/**
+	 * The sum of the durations recorded, in nanoseconds.
+	 */
+	private final LongAdder sum;
+	
+	/**
+	 * Creates an empty histogram.
+	 */
+	public LatencyHistogram() {
+		buckets = new AtomicLongArray(BUCKET_COUNT);
+		sum = new LongAdder();
+	}
+	
+	/**
+	 * Records the specified duration.
+	 *
+	 * @param nanos The duration in nanoseconds. Negative durations are recorded as 0.
+	 */
+	public void record(long nanos) {
+		buckets.incrementAndGet(getBucket(Math.max(0L, nanos)));
+		sum.add(Math.max(0L, nanos));
+	}
+	
+	/**
+	 * Sets every bucket back to 0. Durations recorded while resetting may or may not be kept.
+	 */
+	void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0L);
+		}
+		sum.reset();
+	}
+	
+	/**
+	 * Gets the number of durations recorded.
+	 *
+	 * @return The number of durations recorded.
+	 */
+	public long getCount() {
+		long count = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += buckets.get(i);
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets the sum of the durations recorded.
+	 *
+	 * @return The sum in nanoseconds.
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+	
+	/**
+	 * Gets the number of durations recorded at or below the specified duration. Durations in the same bucket as it
+	 * are counted too, so this can be up to 1/16 over.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The number of durations at or below it.
+	 */
+	public long getCountAtOrBelow(long nanos) {
+		int lastBucket = getBucket(Math.max(0L, nanos));
+		long count = 0L;
+		for (int i = 0; i <= lastBucket; i++) {
+			count += buckets.get(i);
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets the duration the specified fraction of recorded durations are at or below, i.e. 0.99 for the 99th percentile.
+	 *
+	 * @param fraction The fraction, from 0 to 1.
+	 * @return The duration in nanoseconds (the middle of its bucket), or 0 if nothing was recorded.
+	 */
+	public long getPercentile(double fraction) {
+		long[] counts = new long[BUCKET_COUNT];
+		long total = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) { // Copy the buckets first, so the percentile is taken from one consistent total
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0L) {
+			return 0L;
+		}
+		
+		long target = Math.max(1L, (long) Math.ceil(fraction * total));
+		long seen = 0L;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				return getBucketMiddle(i);
+			}
+		}
+		return getBucketMiddle(BUCKET_COUNT - 1);
+	}
+	
+	/**
+	 * Gets the bucket the specified duration is recorded in.
+	 *
+	 * @param nanos The duration in nanoseconds, which must not be negative.
+	 * @return The bucket index.
+	 */
+	private static int getBucket(long nanos) {
+		if (nanos < SUB_BUCKETS) { // Small durations have a bucket each
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((nanos >>> shift) & (SUB_BUCKETS - 1));
+	}
+	
+	/**
+	 * Gets the middle of the durations recorded in the specified bucket.
+	 *
+	 * @param bucket The bucket index.
+	 * @return The middle duration in nanoseconds.
+	 */
+	private static long getBucketMiddle(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowest + ((1L << shift) >>> 1);
+	}
+}
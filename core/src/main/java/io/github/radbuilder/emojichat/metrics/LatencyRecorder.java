@@ -0,0 +1,120 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+
+/**
+ * Times each {@link LatencyStage} per {@link EmojiSurface} into a {@link LatencyHistogram}, when enabled.
+ * <p>
+ * Timed code calls {@link #start()} and passes what it returned to {@link #record(LatencyStage, EmojiSurface, long)}.
+ * While disabled, {@link #start()} doesn't read the clock and recording returns straight away, so the only cost left
+ * is one volatile read per timed call.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class LatencyRecorder {
+	/**
+	 * Returned by {@link #start()} while disabled, so nothing is recorded.
+	 */
+	private static final long NOT_TIMED = Long.MIN_VALUE;
+	/**
+	 * The histograms, by stage ordinal then surface ordinal.
+	 */
+	private final LatencyHistogram[][] histograms;
+	/**
+	 * If timing is enabled.
+	 */
+	private volatile boolean enabled;
+	/**
+	 * When the histograms were last reset, from {@link System#nanoTime()}.
+	 */
+	private volatile long resetAt;
+	
+	/**
+	 * Creates a disabled recorder with empty histograms.
+	 */
+	LatencyRecorder() {
+		histograms = new LatencyHistogram[LatencyStage.values().length][EmojiSurface.values().length];
+		for (LatencyHistogram[] stageHistograms : histograms) {
+			for (int i = 0; i < stageHistograms.length; i++) {
+				stageHistograms[i] = new LatencyHistogram();
+			}
+		}
+		resetAt = System.nanoTime();
+	}
+	
+	/**
+	 * Starts timing a stage.
+	 *
+	 * @return The start time to pass to {@link #record(LatencyStage, EmojiSurface, long)}.
+	 */
+	public long start() {
+		return enabled ? System.nanoTime() : NOT_TIMED;
+	}
+	
+	/**
+	 * Records the time since the specified start time for the specified stage and surface.
+	 *
+	 * @param stage The {@link LatencyStage} that was timed.
+	 * @param surface The {@link EmojiSurface} it was timed for.
+	 * @param start What {@link #start()} returned. Nothing is recorded if timing was disabled then.
+	 */
+	public void record(LatencyStage stage, EmojiSurface surface, long start) {
+		if (start != NOT_TIMED) {
+			histograms[stage.ordinal()][surface.ordinal()].record(System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Checks if timing is enabled.
+	 *
+	 * @return True if timing is enabled, false otherwise.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Enables or disables timing. The histograms are kept while disabled.
+	 *
+	 * @param enabled If timing should be enabled.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+	
+	/**
+	 * Empties every histogram, and starts the throughput from now.
+	 */
+	public void reset() {
+		for (LatencyHistogram[] stageHistograms : histograms) {
+			for (LatencyHistogram histogram : stageHistograms) {
+				histogram.reset();
+			}
+		}
+		resetAt = System.nanoTime();
+	}
+	
+	/**
+	 * Gets the histogram for the specified stage and surface.
+	 *
+	 * @param stage The {@link LatencyStage}.
+	 * @param surface The {@link EmojiSurface}.
+	 * @return The {@link LatencyHistogram}.
+	 */
+	public LatencyHistogram getHistogram(LatencyStage stage, EmojiSurface surface) {
+		return histograms[stage.ordinal()][surface.ordinal()];
+	}
+	
+	/**
+	 * Gets the specified histogram's recorded durations per second since the last reset.
+	 *
+	 * @param histogram The {@link LatencyHistogram} to get the throughput of.
+	 * @return The durations recorded per second.
+	 */
+	public double getThroughput(LatencyHistogram histogram) {
+		double seconds = (System.nanoTime() - resetAt) / 1_000_000_000D;
+		return seconds <= 0D ? 0D : histogram.getCount() / seconds;
+	}
+}
@@ -0,0 +1,50 @@
+package io.github.radbuilder.emojichat.metrics;
+
+/**
+ * The parts of handling a message that are timed by the {@link LatencyRecorder}.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum LatencyStage {
+	/**
+	 * A whole chat, sign or command event handler, including the permission and settings checks.
+	 */
+	LISTENER("listener"),
+	/**
+	 * Translating a message, which replaces shortcuts and shortcodes and checks for disabled characters in one pass.
+	 */
+	TRANSLATE("translate"),
+	/**
+	 * Replacing shortcuts with shortcodes on their own (the shorthand API used by other plugins).
+	 */
+	SHORTHAND("shorthand"),
+	/**
+	 * Checking for disabled characters on their own (the disabled check API used by other plugins).
+	 */
+	DISABLED_CHECK("disabled check");
+	
+	/**
+	 * The name shown in /emojichat stats.
+	 */
+	private final String displayName;
+	
+	/**
+	 * Creates a new latency stage with the specified display name.
+	 *
+	 * @param displayName The name shown in /emojichat stats.
+	 */
+	LatencyStage(String displayName) {
+		this.displayName = displayName;
+	}
+	
+	/**
+	 * Gets the name shown in /emojichat stats.
+	 *
+	 * @return The display name.
+	 */
+	public String getDisplayName() {
+		return displayName;
+	}
+}
@@ -0,0 +1,82 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter with one striped {@link LongAdder} per {@link EmojiSurface}, so async chat threads adding to it don't contend
+ * with each other or with the other surfaces.
+ * <p>
+ * The totals only ever go up. Metrics charts take what was added since they last reported with {@link #sumSinceLastReport()},
+ * which is the difference between the total now and the total they last reported, so nothing is reset.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class SurfaceCounter {
+	/**
+	 * The totals since the plugin was enabled, by surface ordinal.
+	 */
+	private final LongAdder[] totals;
+	/**
+	 * The total for every surface when metrics were last reported. Only used by the thread reporting metrics.
+	 */
+	private long reported;
+	
+	/**
+	 * Creates a counter starting at 0 for every surface.
+	 */
+	SurfaceCounter() {
+		totals = new LongAdder[EmojiSurface.values().length];
+		for (int i = 0; i < totals.length; i++) {
+			totals[i] = new LongAdder();
+		}
+	}
+	
+	/**
+	 * Adds the specified amount for the specified surface.
+	 *
+	 * @param surface The {@link EmojiSurface} to add to.
+	 * @param amount The amount to add.
+	 */
+	void add(EmojiSurface surface, int amount) {
+		totals[surface.ordinal()].add(amount);
+	}
+	
+	/**
+	 * Gets what was added for every surface since the last call. Must only be called by the thread reporting metrics.
+	 *
+	 * @return What was added since the last call.
+	 */
+	long sumSinceLastReport() {
+		long total = get();
+		long sum = total - reported;
+		reported = total;
+		return sum;
+	}
+	
+	/**
+	 * Gets the total for the specified surface since the plugin was enabled.
+	 *
+	 * @param surface The {@link EmojiSurface} to get the total of.
+	 * @return The total for the surface.
+	 */
+	public long get(EmojiSurface surface) {
+		return totals[surface.ordinal()].sum();
+	}
+	
+	/**
+	 * Gets the total for every surface since the plugin was enabled.
+	 *
+	 * @return The total for every surface.
+	 */
+	public long get() {
+		long total = 0L;
+		for (EmojiSurface surface : EmojiSurface.values()) {
+			total += get(surface);
+		}
+		return total;
+	}
+}
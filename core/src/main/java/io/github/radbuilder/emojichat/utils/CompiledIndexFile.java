@@ -0,0 +1,198 @@
+package io.github.radbuilder.emojichat.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * The compiled emoji matchers saved in the plugin data folder, so they don't need to be compiled again on the next start or reload.
+ * <p>
+ * Each matcher is keyed by a hash of every pattern it was compiled from, in order, which covers list.txt, the pack variant,
+ * the shortcuts and the disabled emojis. If anything changed, the hash won't match and that matcher is compiled (and saved) again.
+ * <p>
+ * Format: magic, format version, matcher count, then for each matcher: hash length and hash, matcher length and matcher
+ * (see {@link EmojiMatcher#write(DataOutputStream)}), then the CRC-32 of everything before it. A file that fails any check
+ * is ignored, and the matchers are compiled again.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class CompiledIndexFile {
+	/**
+	 * The magic number at the start of the file ("ECIX").
+	 */
+	private static final int MAGIC = 0x45434958;
+	/**
+	 * The file format version, which must be changed whenever the format or the matcher compilation changes.
+	 */
+	private static final int FORMAT_VERSION = 3;
+	/**
+	 * The file the matchers are saved in.
+	 */
+	private final File file;
+	/**
+	 * The logger to warn with if the matchers can't be saved.
+	 */
+	private final Logger logger;
+	
+	/**
+	 * Creates the compiled index file.
+	 *
+	 * @param file The file the matchers are saved in.
+	 * @param logger The logger to warn with if the matchers can't be saved.
+	 */
+	public CompiledIndexFile(File file, Logger logger) {
+		this.file = file;
+		this.logger = logger;
+	}
+	
+	/**
+	 * Hashes the specified patterns, in order.
+	 *
+	 * @param patterns The patterns a matcher is compiled from.
+	 * @return The hash of the patterns.
+	 */
+	static byte[] hash(List<String> patterns) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			ByteBuffer header = ByteBuffer.allocate(8).putInt(FORMAT_VERSION).putInt(patterns.size());
+			digest.update(header.array());
+			for (String pattern : patterns) {
+				byte[] bytes = pattern.getBytes(StandardCharsets.UTF_8);
+				digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array()); // Length prefix so patterns can't run together
+				digest.update(bytes);
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) { // Every Java platform has SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Reads the matchers from the file. Only the matchers saved with the same hash as requested are read.
+	 * <p>
+	 * The file is read into memory rather than memory-mapped, so it's never left mapped while {@link #save(byte[][], EmojiMatcher[])}
+	 * replaces it (which fails on Windows).
+	 *
+	 * @param hashes The hashes of the patterns each matcher should be compiled from.
+	 * @return The matchers, with null for every matcher that was saved with a different hash, or null if the file doesn't exist or can't be read.
+	 */
+	EmojiMatcher[] read(byte[][] hashes) {
+		if (!file.isFile()) {
+			return null;
+		}
+		
+		try {
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			if (bytes.length < 4) {
+				return null;
+			}
+			CRC32 crc = new CRC32();
+			crc.update(bytes, 0, bytes.length - 4);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, bytes.length - 4);
+			if (ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != (int) crc.getValue()) { // Corrupt or partly written
+				return null;
+			}
+			if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || buffer.getInt() != hashes.length) {
+				return null;
+			}
+			
+			EmojiMatcher[] matchers = new EmojiMatcher[hashes.length];
+			for (int i = 0; i < hashes.length; i++) {
+				int hashLength = buffer.getInt();
+				if (hashLength != hashes[i].length) {
+					return null;
+				}
+				byte[] savedHash = new byte[hashLength];
+				buffer.get(savedHash);
+				int matcherLength = buffer.getInt();
+				if (matcherLength < 0 || matcherLength > buffer.remaining()) {
+					return null;
+				}
+				int matcherEnd = buffer.position() + matcherLength;
+				if (Arrays.equals(savedHash, hashes[i])) {
+					matchers[i] = EmojiMatcher.read(buffer);
+					if (buffer.position() != matcherEnd) { // The matcher didn't take up the space saved for it
+						return null;
+					}
+				}
+				buffer.position(matcherEnd); // Skip matchers saved for other patterns
+			}
+			return buffer.hasRemaining() ? null : matchers;
+		} catch (IOException | RuntimeException e) { // Missing, truncated or corrupt, compile the matchers instead
+			return null;
+		}
+	}
+	
+	/**
+	 * Saves the specified matchers to the file, warning if they can't be saved.
+	 *
+	 * @param hashes The hashes of the patterns each matcher was compiled from.
+	 * @param matchers The matchers to save.
+	 */
+	void save(byte[][] hashes, EmojiMatcher[] matchers) {
+		try {
+			write(hashes, matchers);
+		} catch (IOException e) {
+			logger.warning("Couldn't save the compiled emoji index to " + file.getName() + ", it'll be compiled again next time: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Writes the specified matchers to the file. The file is written next to the old one, then moved over it, so
+	 * a crash while writing never leaves a partial file behind.
+	 *
+	 * @param hashes The hashes of the patterns each matcher was compiled from.
+	 * @param matchers The matchers to write.
+	 * @throws IOException If the matchers couldn't be written.
+	 */
+	private void write(byte[][] hashes, EmojiMatcher[] matchers) throws IOException {
+		File folder = file.getAbsoluteFile().getParentFile();
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Couldn't create " + folder);
+		}
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeInt(matchers.length);
+		for (int i = 0; i < matchers.length; i++) {
+			out.writeInt(hashes[i].length);
+			out.write(hashes[i]);
+			
+			ByteArrayOutputStream matcherBytes = new ByteArrayOutputStream();
+			matchers[i].write(new DataOutputStream(matcherBytes));
+			out.writeInt(matcherBytes.size()); // So readers can skip it
+			matcherBytes.writeTo(out);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeInt((int) crc.getValue());
+		
+		File temporaryFile = new File(folder, file.getName() + ".tmp");
+		try (BufferedOutputStream fileOut = new BufferedOutputStream(new FileOutputStream(temporaryFile))) {
+			bytes.writeTo(fileOut);
+		}
+		try {
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(temporaryFile.toPath());
+			throw e;
+		}
+	}
+}
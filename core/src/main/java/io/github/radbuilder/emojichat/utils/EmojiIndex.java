@@ -0,0 +1,558 @@
+package io.github.radbuilder.emojichat.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, compiled snapshot of the emoji data loaded from list.txt and the config.
+ * <p>
+ * A new index is built on every load and then published in one step, so messages being translated
+ * on other threads always see either the old or the new data, never a partially loaded mix.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiIndex {
+	/**
+	 * The white chat color code, put before emojis so they aren't tinted by the text color.
+	 */
+	private static final String WHITE = "\u00a7f";
+	/**
+	 * The black chat color code, put after emojis on signs to go back to the sign text color.
+	 */
+	private static final String BLACK = "\u00a70";
+	/**
+	 * The start of links, which are copied as-is up to the next whitespace when translating, so shortcuts like :/ and :P don't break them.
+	 */
+	private static final List<String> LINK_PREFIXES = Arrays.asList("http://", "https://");
+	/**
+	 * Color and formatting codes (i.e. &amp;8 or &sect;8), which are copied as-is when translating, so &amp;8) stays a color code
+	 * followed by ) instead of turning into a shortcut.
+	 */
+	private static final List<String> COLOR_CODES = getColorCodes();
+	/**
+	 * The enabled emojis.
+	 */
+	private final Map<String, Character> emojis;
+	/**
+	 * Shortcuts for the emojis, if specified.
+	 */
+	private final Map<String, String> shortcuts;
+	/**
+	 * Disabled emoji characters to prevent others from using them with the resource pack.
+	 */
+	private final List<Character> disabledCharacters;
+	/**
+	 * The start markers of verbatim regions, mapped to their end markers.
+	 */
+	private final Map<String, String> verbatimRegions;
+	/**
+	 * If we should fix the emoji's color (colored chat removes emoji coloring)
+	 */
+	private final boolean fixColoring;
+	/**
+	 * The {@link EmojiPackVariant} being used.
+	 */
+	private final EmojiPackVariant packVariant;
+	/**
+	 * The matcher that finds the {@link #emojis} shortcodes, disabled characters, links and verbatim regions in a message.
+	 */
+	private final EmojiMatcher emojiMatcher;
+	/**
+	 * The same as {@link #emojiMatcher}, but also finds the color codes and {@link #shortcuts}.
+	 */
+	private final EmojiMatcher shortcutMatcher;
+	/**
+	 * The hash of the patterns the {@link #emojiMatcher} was compiled from.
+	 */
+	private final byte[] emojiHash;
+	/**
+	 * The hash of the patterns the {@link #shortcutMatcher} was compiled from.
+	 */
+	private final byte[] shortcutHash;
+	/**
+	 * The emoji characters, indexed by their pattern index in the matchers.
+	 */
+	private final char[] emojiCharacters;
+	/**
+	 * The white emojis used in chat when fixing the coloring (the chat color is added after), indexed like {@link #emojiCharacters}.
+	 */
+	private final String[] whiteEmojis;
+	/**
+	 * The white emojis followed by black sign text, indexed like {@link #emojiCharacters}.
+	 */
+	private final String[] signEmojis;
+	/**
+	 * The first emoji character, which the {@link #shortcodes} are indexed from.
+	 */
+	private final char baseCharacter;
+	/**
+	 * The enabled emoji shortcodes, indexed by emoji character minus the {@link #baseCharacter}. Disabled emojis are null.
+	 */
+	private final String[] shortcodes;
+	/**
+	 * The disabled emoji characters, indexed by emoji character minus the {@link #baseCharacter}.
+	 */
+	private final BitSet disabledEmojiCharacters;
+	/**
+	 * The emoji pattern index each shortcut translates to, or -1 if its emoji isn't enabled.
+	 */
+	private final int[] shortcutEmojis;
+	/**
+	 * The text each shortcut translates to, used when its emoji isn't enabled.
+	 */
+	private final String[] shortcutReplacements;
+	/**
+	 * The end marker of each verbatim region, indexed by pattern index minus {@link #verbatimStart}.
+	 */
+	private final String[] verbatimEnds;
+	/**
+	 * The pattern index of the first shortcut in the matchers.
+	 */
+	private final int shortcutStart;
+	/**
+	 * The pattern index of the first disabled character in the matchers.
+	 */
+	private final int disabledStart;
+	/**
+	 * The pattern index of the first protected text (links, verbatim regions and color codes) in the matchers.
+	 */
+	private final int protectedStart;
+	/**
+	 * The pattern index of the first verbatim region start marker in the matchers.
+	 */
+	private final int verbatimStart;
+	/**
+	 * The pattern index of the first color code in the matchers, which is where the emoji matcher's patterns end.
+	 */
+	private final int colorCodeStart;
+	
+	/**
+	 * Compiles the emoji index. The specified collections are copied, so they can be reused afterwards.
+	 *
+	 * @param emojis The enabled emojis, in list.txt order.
+	 * @param shortcuts The shortcuts, mapped to the emoji shortcode they translate to.
+	 * @param disabledCharacters The disabled emoji characters.
+	 * @param fixColoring If emoji coloring should be fixed.
+	 * @param packVariant The {@link EmojiPackVariant} being used.
+	 */
+	public EmojiIndex(LinkedHashMap<String, Character> emojis, Map<String, String> shortcuts, List<Character> disabledCharacters,
+	                  boolean fixColoring, EmojiPackVariant packVariant) {
+		this(emojis, shortcuts, disabledCharacters, new HashMap<>(), fixColoring, packVariant, null, null);
+	}
+	
+	/**
+	 * Compiles the emoji index. Each matcher is reused from the previous index if it has the same patterns, read from the
+	 * specified {@link CompiledIndexFile} if it was saved with the same patterns, and compiled (then saved) otherwise.
+	 * The specified collections are copied, so they can be reused afterwards.
+	 *
+	 * @param emojis The enabled emojis, in list.txt order.
+	 * @param shortcuts The shortcuts, mapped to the emoji shortcode they translate to.
+	 * @param disabledCharacters The disabled emoji characters.
+	 * @param verbatimRegions The start markers of verbatim regions, mapped to their end markers.
+	 * @param fixColoring If emoji coloring should be fixed.
+	 * @param packVariant The {@link EmojiPackVariant} being used.
+	 * @param previous The index being replaced, or null if there isn't one.
+	 * @param compiledFile The file with the compiled matchers, or null to always compile them.
+	 */
+	public EmojiIndex(LinkedHashMap<String, Character> emojis, Map<String, String> shortcuts, List<Character> disabledCharacters, Map<String, String> verbatimRegions,
+	                  boolean fixColoring, EmojiPackVariant packVariant, EmojiIndex previous, CompiledIndexFile compiledFile) {
+		this.emojis = Collections.unmodifiableMap(new LinkedHashMap<>(emojis));
+		this.shortcuts = Collections.unmodifiableMap(new HashMap<>(shortcuts));
+		this.disabledCharacters = Collections.unmodifiableList(new ArrayList<>(disabledCharacters));
+		this.verbatimRegions = Collections.unmodifiableMap(new LinkedHashMap<>(verbatimRegions));
+		this.fixColoring = fixColoring;
+		this.packVariant = packVariant;
+		
+		List<String> patterns = new ArrayList<>(emojis.keySet());
+		HashMap<String, Integer> emojiIndexes = new HashMap<>();
+		emojiCharacters = new char[patterns.size()];
+		whiteEmojis = new String[patterns.size()];
+		signEmojis = new String[patterns.size()];
+		for (int i = 0; i < patterns.size(); i++) {
+			emojiCharacters[i] = emojis.get(patterns.get(i));
+			whiteEmojis[i] = WHITE + emojiCharacters[i];
+			signEmojis[i] = whiteEmojis[i] + BLACK;
+			emojiIndexes.put(patterns.get(i), i);
+		}
+		
+		// The emoji characters are one contiguous range, so the reverse lookup is a plain array
+		baseCharacter = packVariant == null ? 0 : packVariant.getBaseCharacter();
+		int lastCharacter = baseCharacter - 1;
+		for (char emojiCharacter : emojiCharacters) {
+			lastCharacter = Math.max(lastCharacter, emojiCharacter);
+		}
+		shortcodes = new String[lastCharacter - baseCharacter + 1];
+		for (int i = 0; i < emojiCharacters.length; i++) {
+			shortcodes[emojiCharacters[i] - baseCharacter] = patterns.get(i);
+		}
+		disabledEmojiCharacters = new BitSet();
+		for (Character disabledCharacter : disabledCharacters) {
+			if (disabledCharacter >= baseCharacter) {
+				disabledEmojiCharacters.set(disabledCharacter - baseCharacter);
+			}
+		}
+		
+		disabledStart = patterns.size();
+		for (Character disabledCharacter : disabledCharacters) {
+			patterns.add(disabledCharacter.toString());
+		}
+		
+		protectedStart = patterns.size();
+		patterns.addAll(LINK_PREFIXES);
+		
+		verbatimStart = patterns.size();
+		verbatimEnds = new String[verbatimRegions.size()];
+		int verbatimRegion = 0;
+		for (Map.Entry<String, String> entry : verbatimRegions.entrySet()) {
+			patterns.add(entry.getKey());
+			verbatimEnds[verbatimRegion++] = entry.getValue();
+		}
+		
+		// Color codes can only get in the way of shortcuts (shortcodes start with a colon), so only the shortcut matcher has them
+		List<String> emojiPatterns = new ArrayList<>(patterns);
+		colorCodeStart = patterns.size();
+		patterns.addAll(COLOR_CODES);
+		
+		// The shortcuts go last, so the emoji matcher's patterns (everything before them) don't depend on the shortcuts
+		shortcutStart = patterns.size();
+		List<String> shortcutKeys = new ArrayList<>(shortcuts.keySet());
+		shortcutEmojis = new int[shortcutKeys.size()];
+		shortcutReplacements = new String[shortcutKeys.size()];
+		for (int i = 0; i < shortcutKeys.size(); i++) {
+			String replacement = shortcuts.get(shortcutKeys.get(i));
+			shortcutEmojis[i] = emojiIndexes.getOrDefault(replacement, -1);
+			shortcutReplacements[i] = replacement;
+			patterns.add(shortcutKeys.get(i));
+		}
+		shortcutHash = CompiledIndexFile.hash(patterns);
+		emojiHash = CompiledIndexFile.hash(emojiPatterns);
+		
+		// Reuse what didn't change, i.e. only the shortcut matcher is compiled again if only the shortcuts changed
+		EmojiMatcher[] matchers = new EmojiMatcher[2];
+		if (previous != null) {
+			matchers[0] = Arrays.equals(previous.shortcutHash, shortcutHash) ? previous.shortcutMatcher : null;
+			matchers[1] = Arrays.equals(previous.emojiHash, emojiHash) ? previous.emojiMatcher : null;
+		}
+		byte[][] hashes = {shortcutHash, emojiHash};
+		if ((matchers[0] == null || matchers[1] == null) && compiledFile != null) {
+			EmojiMatcher[] saved = compiledFile.read(hashes);
+			if (saved != null) {
+				matchers[0] = matchers[0] == null ? saved[0] : matchers[0];
+				matchers[1] = matchers[1] == null ? saved[1] : matchers[1];
+			}
+		}
+		boolean compiled = false;
+		if (matchers[0] == null) {
+			matchers[0] = new EmojiMatcher(patterns, protectedStart, shortcutStart); // Protected text alone never needs translating
+			compiled = true;
+		}
+		if (matchers[1] == null) {
+			matchers[1] = new EmojiMatcher(emojiPatterns, protectedStart, colorCodeStart);
+			compiled = true;
+		}
+		if (compiled && compiledFile != null) {
+			compiledFile.save(hashes, matchers);
+		}
+		shortcutMatcher = matchers[0];
+		emojiMatcher = matchers[1];
+	}
+	
+	/**
+	 * Gets every color and formatting code, with both the section sign and the ampersand.
+	 *
+	 * @return The color codes.
+	 */
+	private static List<String> getColorCodes() {
+		List<String> colorCodes = new ArrayList<>();
+		String codes = "0123456789abcdefklmnorx";
+		for (char prefix : new char[] {'\u00a7', '&'}) {
+			for (char code : (codes + codes.toUpperCase()).toCharArray()) {
+				colorCodes.add(new String(new char[] {prefix, code}));
+			}
+		}
+		return colorCodes;
+	}
+	
+	/**
+	 * Creates an empty emoji index, used before anything is loaded and after EmojiChat is disabled.
+	 *
+	 * @param packVariant The {@link EmojiPackVariant} being used.
+	 * @return An emoji index without any emojis.
+	 */
+	static EmojiIndex empty(EmojiPackVariant packVariant) {
+		return new EmojiIndex(new LinkedHashMap<>(), new HashMap<>(), new ArrayList<>(), false, packVariant);
+	}
+	
+	/**
+	 * Gets the enabled emojis.
+	 *
+	 * @return The unmodifiable map of emoji shortcodes to emoji characters, in list.txt order.
+	 */
+	public Map<String, Character> getEmojis() {
+		return emojis;
+	}
+	
+	/**
+	 * Gets the shortcuts.
+	 *
+	 * @return The unmodifiable map of shortcuts to the emoji shortcode they translate to.
+	 */
+	public Map<String, String> getShortcuts() {
+		return shortcuts;
+	}
+	
+	/**
+	 * Gets the disabled emoji characters.
+	 *
+	 * @return The unmodifiable list of disabled emoji characters.
+	 */
+	public List<Character> getDisabledCharacters() {
+		return disabledCharacters;
+	}
+	
+	/**
+	 * Gets the verbatim regions, which are copied as-is when translating.
+	 *
+	 * @return The unmodifiable map of start markers to end markers.
+	 */
+	public Map<String, String> getVerbatimRegions() {
+		return verbatimRegions;
+	}
+	
+	/**
+	 * If emoji coloring should be fixed.
+	 *
+	 * @return True if emoji coloring should be fixed, false otherwise.
+	 */
+	public boolean fixColoring() {
+		return fixColoring;
+	}
+	
+	/**
+	 * Gets the {@link EmojiPackVariant} being used.
+	 *
+	 * @return The {@link EmojiPackVariant} being used.
+	 */
+	public EmojiPackVariant getPackVariant() {
+		return packVariant;
+	}
+	
+	/**
+	 * Gets the shortcode (i.e. :100:) of the specified emoji character.
+	 *
+	 * @param emojiCharacter The character to get the shortcode of.
+	 * @return The shortcode, or null if the character isn't an enabled emoji.
+	 */
+	public String getShortcode(char emojiCharacter) {
+		int offset = emojiCharacter - baseCharacter;
+		return offset >= 0 && offset < shortcodes.length ? shortcodes[offset] : null;
+	}
+	
+	/**
+	 * Gets the glyph offset (the emoji character minus the pack's base character) of the specified emoji character, which
+	 * is stable across reloads and pack variants since it's the emoji's position in list.txt.
+	 *
+	 * @param emojiCharacter The character to get the glyph offset of.
+	 * @return The glyph offset, or -1 if the character isn't an enabled emoji.
+	 */
+	public int getGlyph(char emojiCharacter) {
+		return getShortcode(emojiCharacter) == null ? -1 : emojiCharacter - baseCharacter;
+	}
+	
+	/**
+	 * Gets the emoji character at the specified glyph offset.
+	 *
+	 * @param glyph The glyph offset.
+	 * @return The emoji character.
+	 */
+	public char getGlyphCharacter(int glyph) {
+		return (char) (baseCharacter + glyph);
+	}
+	
+	/**
+	 * Checks if the specified character is a disabled emoji character.
+	 *
+	 * @param character The character to check.
+	 * @return True if the character is disabled, false otherwise.
+	 */
+	public boolean isDisabledCharacter(char character) {
+		return character >= baseCharacter && disabledEmojiCharacters.get(character - baseCharacter);
+	}
+	
+	/**
+	 * Checks if the specified message contains a disabled emoji character, in one pass over the message.
+	 *
+	 * @param message The message to check.
+	 * @return True if the message contains a disabled character, false otherwise.
+	 */
+	public boolean containsDisabledCharacter(CharSequence message) {
+		return containsDisabledCharacter(message, 0, message.length());
+	}
+	
+	/**
+	 * Checks if the specified part of a message contains a disabled emoji character.
+	 *
+	 * @param message The message to check.
+	 * @param start Where to start checking.
+	 * @param end Where to stop checking (exclusive).
+	 * @return True if that part of the message contains a disabled character, false otherwise.
+	 */
+	boolean containsDisabledCharacter(CharSequence message, int start, int end) {
+		if (disabledEmojiCharacters.isEmpty()) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (isDisabledCharacter(message.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets the matcher for the emoji shortcodes, disabled characters and protected text.
+	 *
+	 * @param useShortcuts If the matcher should find shortcuts too.
+	 * @return The matcher.
+	 */
+	EmojiMatcher getMatcher(boolean useShortcuts) {
+		return useShortcuts ? shortcutMatcher : emojiMatcher;
+	}
+	
+	/**
+	 * Gets the emoji character for the specified pattern index.
+	 *
+	 * @param pattern The pattern index, which must be below {@link #getDisabledStart()}.
+	 * @return The emoji character.
+	 */
+	char getEmojiCharacter(int pattern) {
+		return emojiCharacters[pattern];
+	}
+	
+	/**
+	 * Gets the glyph offset of the emoji for the specified pattern index.
+	 *
+	 * @param pattern The pattern index, which must be below {@link #getDisabledStart()}.
+	 * @return The glyph offset.
+	 */
+	int getGlyph(int pattern) {
+		return emojiCharacters[pattern] - baseCharacter;
+	}
+	
+	/**
+	 * Gets the white emojis used in chat when fixing the coloring. The array must not be modified.
+	 *
+	 * @return The white emojis, indexed by pattern index.
+	 */
+	String[] getWhiteEmojis() {
+		return whiteEmojis;
+	}
+	
+	/**
+	 * Gets the white emojis followed by black sign text. The array must not be modified.
+	 *
+	 * @return The sign emojis, indexed by pattern index.
+	 */
+	String[] getSignEmojis() {
+		return signEmojis;
+	}
+	
+	/**
+	 * Gets the emoji pattern index the specified shortcut translates to.
+	 *
+	 * @param shortcut The shortcut index (the pattern index minus {@link #getShortcutStart()}).
+	 * @return The emoji pattern index, or -1 if the shortcut's emoji isn't enabled.
+	 */
+	int getShortcutEmoji(int shortcut) {
+		return shortcutEmojis[shortcut];
+	}
+	
+	/**
+	 * Gets the text the specified shortcut translates to.
+	 *
+	 * @param shortcut The shortcut index (the pattern index minus {@link #getShortcutStart()}).
+	 * @return The emoji shortcode the shortcut translates to.
+	 */
+	String getShortcutReplacement(int shortcut) {
+		return shortcutReplacements[shortcut];
+	}
+	
+	/**
+	 * Gets the pattern index of the first shortcut in the matchers.
+	 *
+	 * @return The pattern index of the first shortcut.
+	 */
+	int getShortcutStart() {
+		return shortcutStart;
+	}
+	
+	/**
+	 * Gets the pattern index of the first disabled character in the matchers.
+	 *
+	 * @return The pattern index of the first disabled character.
+	 */
+	int getDisabledStart() {
+		return disabledStart;
+	}
+	
+	/**
+	 * Gets the pattern index of the first protected text in the matchers.
+	 *
+	 * @return The pattern index of the first protected text.
+	 */
+	int getProtectedStart() {
+		return protectedStart;
+	}
+	
+	/**
+	 * Gets where the protected text found by the specified pattern ends: links end at the next whitespace, verbatim
+	 * regions after their end marker (or right after the start marker if it isn't closed), and color codes right away.
+	 *
+	 * @param message The message being translated.
+	 * @param pattern The protected text pattern index.
+	 * @param end Where the pattern match ends.
+	 * @return Where the protected text ends.
+	 */
+	int getProtectedEnd(CharSequence message, int pattern, int end) {
+		if (pattern < verbatimStart) { // Link
+			while (end < message.length() && !Character.isWhitespace(message.charAt(end))) {
+				end++;
+			}
+			return end;
+		}
+		if (pattern < colorCodeStart) { // Verbatim region
+			String endMarker = verbatimEnds[pattern - verbatimStart];
+			for (int i = end; i + endMarker.length() <= message.length(); i++) {
+				if (regionMatches(message, i, endMarker)) {
+					return i + endMarker.length();
+				}
+			}
+		}
+		return end;
+	}
+	
+	/**
+	 * Checks if the specified text is in the message at the specified position.
+	 *
+	 * @param message The message to check.
+	 * @param position Where the text should start.
+	 * @param text The text to look for.
+	 * @return True if the text is at that position, false otherwise.
+	 */
+	private static boolean regionMatches(CharSequence message, int position, String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (message.charAt(position + i) != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
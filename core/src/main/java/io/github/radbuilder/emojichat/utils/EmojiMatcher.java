@@ -0,0 +1,387 @@
+package io.github.radbuilder.emojichat.utils;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Multi-pattern matcher (an Aho-Corasick automaton) used to find every emoji shortcode in a message
+ * with one left-to-right scan, instead of one scan per shortcode.
+ * <p>
+ * Matches are reported with leftmost-longest semantics: the match that starts first wins, and if
+ * multiple patterns start at the same position, the longest one wins.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiMatcher {
+	/**
+	 * The value returned by {@link #find(CharSequence, int, int)} when nothing matched.
+	 */
+	public static final long NO_MATCH = -1L;
+	/**
+	 * Maps a character to its column in {@link #transitions}. Characters outside of this table (or mapped
+	 * to 0) don't appear in any pattern.
+	 */
+	private final int[] charClasses;
+	/**
+	 * The number of columns in {@link #transitions}.
+	 */
+	private final int alphabetSize;
+	/**
+	 * The full transition table (state * {@link #alphabetSize} + character class), with failure links already resolved.
+	 */
+	private final int[] transitions;
+	/**
+	 * The length of the trie path leading to each state.
+	 */
+	private final int[] depths;
+	/**
+	 * The longest pattern that ends in each state (following failure links), or -1 if there isn't one.
+	 */
+	private final int[] outputs;
+	/**
+	 * The length of each pattern.
+	 */
+	private final int[] patternLengths;
+	/**
+	 * Bitmap of every character a trigger pattern can start with (bit c % 64 of word c / 64).
+	 */
+	private final long[] startCharacters;
+	
+	/**
+	 * Creates the matcher from the specified patterns. A pattern's position in the list is the value
+	 * returned when it's found. Empty patterns are ignored; for duplicate patterns, the first one wins.
+	 *
+	 * @param patterns The patterns to match.
+	 */
+	public EmojiMatcher(List<String> patterns) {
+		this(patterns, 0, 0);
+	}
+	
+	/**
+	 * Creates the matcher from the specified patterns. A pattern's position in the list is the value
+	 * returned when it's found. Empty patterns are ignored; for duplicate patterns, the first one wins.
+	 * <p>
+	 * The patterns from passiveStart to passiveEnd are found by {@link #find(CharSequence, int, int)} like the others, but
+	 * aren't triggers for {@link #findStart(CharSequence, int, int)}: text that only has those doesn't need matching.
+	 *
+	 * @param patterns The patterns to match.
+	 * @param passiveStart The index of the first pattern that isn't a trigger.
+	 * @param passiveEnd The index after the last pattern that isn't a trigger.
+	 */
+	public EmojiMatcher(List<String> patterns, int passiveStart, int passiveEnd) {
+		patternLengths = new int[patterns.size()];
+		
+		// Give every character used in a pattern its own class, class 0 is "not used by any pattern"
+		int maxChar = 0;
+		for (String pattern : patterns) {
+			for (int i = 0; i < pattern.length(); i++) {
+				maxChar = Math.max(maxChar, pattern.charAt(i));
+			}
+		}
+		charClasses = new int[maxChar + 1];
+		int classCount = 1;
+		for (String pattern : patterns) {
+			for (int i = 0; i < pattern.length(); i++) {
+				if (charClasses[pattern.charAt(i)] == 0) {
+					charClasses[pattern.charAt(i)] = classCount++;
+				}
+			}
+		}
+		alphabetSize = classCount;
+		
+		startCharacters = new long[(maxChar >> 6) + 1];
+		for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+			String pattern = patterns.get(patternIndex);
+			if (!pattern.isEmpty() && (patternIndex < passiveStart || patternIndex >= passiveEnd)) {
+				startCharacters[pattern.charAt(0) >> 6] |= 1L << pattern.charAt(0);
+			}
+		}
+		
+		// Build the trie
+		List<int[]> gotoList = new ArrayList<>();
+		List<Integer> depthList = new ArrayList<>();
+		List<Integer> outputList = new ArrayList<>();
+		gotoList.add(new int[alphabetSize]);
+		depthList.add(0);
+		outputList.add(-1);
+		for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+			String pattern = patterns.get(patternIndex);
+			patternLengths[patternIndex] = pattern.length();
+			if (pattern.isEmpty()) {
+				continue;
+			}
+			
+			int state = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				int charClass = charClasses[pattern.charAt(i)];
+				if (gotoList.get(state)[charClass] == 0) {
+					gotoList.add(new int[alphabetSize]);
+					depthList.add(i + 1);
+					outputList.add(-1);
+					gotoList.get(state)[charClass] = gotoList.size() - 1;
+				}
+				state = gotoList.get(state)[charClass];
+			}
+			if (outputList.get(state) == -1) { // First pattern wins for duplicates
+				outputList.set(state, patternIndex);
+			}
+		}
+		
+		int stateCount = gotoList.size();
+		transitions = new int[stateCount * alphabetSize];
+		depths = new int[stateCount];
+		outputs = new int[stateCount];
+		for (int state = 0; state < stateCount; state++) {
+			System.arraycopy(gotoList.get(state), 0, transitions, state * alphabetSize, alphabetSize);
+			depths[state] = depthList.get(state);
+			outputs[state] = outputList.get(state);
+		}
+		
+		// Resolve failure links breadth first, turning the trie into a full DFA
+		int[] failures = new int[stateCount];
+		Queue<Integer> queue = new ArrayDeque<>();
+		for (int charClass = 1; charClass < alphabetSize; charClass++) {
+			if (transitions[charClass] != 0) {
+				queue.add(transitions[charClass]);
+			}
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			if (outputs[state] == -1) { // Inherit the longest pattern ending here from the failure state
+				outputs[state] = outputs[failures[state]];
+			}
+			for (int charClass = 1; charClass < alphabetSize; charClass++) {
+				int next = transitions[state * alphabetSize + charClass];
+				int fallback = transitions[failures[state] * alphabetSize + charClass];
+				if (next != 0) {
+					failures[next] = fallback;
+					queue.add(next);
+				} else {
+					transitions[state * alphabetSize + charClass] = fallback;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates a matcher from already compiled tables, read by {@link #read(ByteBuffer)}.
+	 *
+	 * @param charClasses The character classes.
+	 * @param alphabetSize The number of character classes.
+	 * @param transitions The transition table.
+	 * @param depths The depth of each state.
+	 * @param outputs The pattern that ends in each state.
+	 * @param patternLengths The length of each pattern.
+	 * @param startCharacters The bitmap of characters a trigger pattern can start with.
+	 */
+	private EmojiMatcher(int[] charClasses, int alphabetSize, int[] transitions, int[] depths, int[] outputs, int[] patternLengths, long[] startCharacters) {
+		this.charClasses = charClasses;
+		this.alphabetSize = alphabetSize;
+		this.transitions = transitions;
+		this.depths = depths;
+		this.outputs = outputs;
+		this.patternLengths = patternLengths;
+		this.startCharacters = startCharacters;
+	}
+	
+	/**
+	 * Writes the compiled tables of this matcher, so it can be read back with {@link #read(ByteBuffer)} without compiling it again.
+	 *
+	 * @param out The stream to write to.
+	 * @throws IOException If the matcher couldn't be written.
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(alphabetSize);
+		writeInts(out, charClasses);
+		writeInts(out, transitions);
+		writeInts(out, depths);
+		writeInts(out, outputs);
+		writeInts(out, patternLengths);
+		out.writeInt(startCharacters.length);
+		for (long startCharacter : startCharacters) {
+			out.writeLong(startCharacter);
+		}
+	}
+	
+	/**
+	 * Reads a matcher written by {@link #write(DataOutputStream)}.
+	 *
+	 * @param buffer The buffer to read from, positioned at the start of the matcher.
+	 * @return The matcher.
+	 * @throws IllegalArgumentException If the tables are inconsistent, or any state, character class or pattern index is out of range.
+	 * @throws java.nio.BufferUnderflowException If the buffer ends before the matcher does.
+	 */
+	static EmojiMatcher read(ByteBuffer buffer) {
+		int alphabetSize = buffer.getInt();
+		int[] charClasses = readInts(buffer);
+		int[] transitions = readInts(buffer);
+		int[] depths = readInts(buffer);
+		int[] outputs = readInts(buffer);
+		int[] patternLengths = readInts(buffer);
+		int startCharactersLength = buffer.getInt();
+		if (startCharactersLength < 0 || startCharactersLength > buffer.remaining() / 8) {
+			throw new IllegalArgumentException("Invalid array length " + startCharactersLength);
+		}
+		long[] startCharacters = new long[startCharactersLength];
+		buffer.asLongBuffer().get(startCharacters);
+		buffer.position(buffer.position() + startCharacters.length * 8);
+		
+		if (alphabetSize < 1 || depths.length < 1 || (long) depths.length * alphabetSize != transitions.length || outputs.length != depths.length) {
+			throw new IllegalArgumentException("Inconsistent matcher tables");
+		}
+		// Every index the matcher follows has to be in range, or find would throw (or loop) on a corrupt file
+		for (int charClass : charClasses) {
+			checkRange(charClass, 0, alphabetSize);
+		}
+		for (int transition : transitions) {
+			checkRange(transition, 0, depths.length);
+		}
+		for (int patternLength : patternLengths) {
+			checkRange(patternLength, 0, Integer.MAX_VALUE);
+		}
+		for (int state = 0; state < depths.length; state++) {
+			checkRange(depths[state], 0, Integer.MAX_VALUE);
+			checkRange(outputs[state], -1, patternLengths.length);
+			if (outputs[state] != -1) { // A match can't start before the text it was found in
+				checkRange(patternLengths[outputs[state]], 1, depths[state] + 1);
+			}
+		}
+		return new EmojiMatcher(charClasses, alphabetSize, transitions, depths, outputs, patternLengths, startCharacters);
+	}
+	
+	/**
+	 * Checks that the specified value read from a compiled matcher is in range.
+	 *
+	 * @param value The value.
+	 * @param min The lowest valid value (inclusive).
+	 * @param max The highest valid value (exclusive).
+	 * @throws IllegalArgumentException If the value is out of range.
+	 */
+	private static void checkRange(int value, int min, int max) {
+		if (value < min || value >= max) {
+			throw new IllegalArgumentException("Invalid matcher table value " + value);
+		}
+	}
+	
+	/**
+	 * Writes the length of the specified array, then its values.
+	 *
+	 * @param out The stream to write to.
+	 * @param values The values to write.
+	 * @throws IOException If the values couldn't be written.
+	 */
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+	
+	/**
+	 * Reads an array written by {@link #writeInts(DataOutputStream, int[])}.
+	 *
+	 * @param buffer The buffer to read from.
+	 * @return The values read.
+	 */
+	private static int[] readInts(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining() / 4) {
+			throw new IllegalArgumentException("Invalid array length " + length);
+		}
+		int[] values = new int[length];
+		buffer.asIntBuffer().get(values); // Bulk copy
+		buffer.position(buffer.position() + length * 4);
+		return values;
+	}
+	
+	/**
+	 * Finds the first character in the specified range of the text that a trigger pattern can start with. Checking this
+	 * first is much cheaper than {@link #find(CharSequence, int, int)}, and most messages don't have any.
+	 * <p>
+	 * A pattern that isn't a trigger can still start before the returned index, so matching has to start from the
+	 * beginning of the text, not from the returned index.
+	 *
+	 * @param text The text to search.
+	 * @param from The index to start searching at (inclusive).
+	 * @param to The index to stop searching at (exclusive).
+	 * @return The index of the first character a trigger pattern can start with, or -1 if there isn't one.
+	 */
+	public int findStart(CharSequence text, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			if ((c >> 6) < startCharacters.length && (startCharacters[c >> 6] & (1L << c)) != 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Finds the leftmost-longest pattern in the specified range of the text.
+	 *
+	 * @param text The text to search.
+	 * @param from The index to start searching at (inclusive).
+	 * @param to The index to stop searching at (exclusive).
+	 * @return {@link #NO_MATCH} if nothing matched, otherwise the start index of the match in the upper 32 bits
+	 * and the pattern index in the lower 32 bits. Use {@link #matchStart(long)} and {@link #matchPattern(long)}.
+	 */
+	public long find(CharSequence text, int from, int to) {
+		int state = 0;
+		int bestStart = -1;
+		int bestPattern = -1;
+		for (int i = from; i < to; i++) {
+			char c = text.charAt(i);
+			state = transitions[state * alphabetSize + (c < charClasses.length ? charClasses[c] : 0)];
+			
+			int pattern = outputs[state];
+			if (pattern != -1) {
+				int start = i + 1 - patternLengths[pattern];
+				if (bestStart == -1 || start <= bestStart) { // Further left, or the same start but longer
+					bestStart = start;
+					bestPattern = pattern;
+				}
+			}
+			if (bestStart != -1 && i + 1 - depths[state] > bestStart) { // No later match can start at or before the best one
+				break;
+			}
+		}
+		return bestStart == -1 ? NO_MATCH : ((long) bestStart << 32) | bestPattern;
+	}
+	
+	/**
+	 * Gets the start index of a match returned by {@link #find(CharSequence, int, int)}.
+	 *
+	 * @param match The match.
+	 * @return The start index of the match.
+	 */
+	public static int matchStart(long match) {
+		return (int) (match >>> 32);
+	}
+	
+	/**
+	 * Gets the pattern index of a match returned by {@link #find(CharSequence, int, int)}.
+	 *
+	 * @param match The match.
+	 * @return The index of the pattern that matched.
+	 */
+	public static int matchPattern(long match) {
+		return (int) match;
+	}
+	
+	/**
+	 * Gets the length of the specified pattern.
+	 *
+	 * @param pattern The pattern index.
+	 * @return The length of the pattern.
+	 */
+	public int getPatternLength(int pattern) {
+		return patternLengths[pattern];
+	}
+}
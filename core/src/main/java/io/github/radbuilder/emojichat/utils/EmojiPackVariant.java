@@ -8,23 +8,27 @@ import java.io.InputStreamReader;
  * The emoji replacement variant.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.7
  */
 public enum EmojiPackVariant {
 	/**
 	 * Replaces Korean unicode characters with emojis (the original, default variant).
 	 */
-	KOREAN(1),
+	KOREAN(1, '가'),
 	/**
 	 * Replaces Chinese unicode characters with emojis.
 	 */
-	CHINESE(2);
+	CHINESE(2, '娀');
 	
 	/**
 	 * The variant id.
 	 */
 	private final int id;
+	/**
+	 * The unicode character the first emoji replaces, with every next emoji replacing the next character.
+	 */
+	private final char baseCharacter;
 	/**
 	 * The pack variant's SHA1 hash.
 	 */
@@ -38,9 +42,11 @@ public enum EmojiPackVariant {
 	 * Creates a new emoji pack variant with the specified id.
 	 *
 	 * @param id The id associated with the emoji pack variant.
+	 * @param baseCharacter The unicode character the first emoji replaces.
 	 */
-	EmojiPackVariant(int id) {
+	EmojiPackVariant(int id, char baseCharacter) {
 		this.id = id;
+		this.baseCharacter = baseCharacter;
 		this.hash = byteHash(id);
 		this.url = "https://github.com/RadBuilder/EmojiChat/releases/download/v1.8/EmojiChat." + id + ".{HD or SD}.ResourcePack.v1.8.zip";
 	}
@@ -54,6 +60,15 @@ public enum EmojiPackVariant {
 		return id;
 	}
 	
+	/**
+	 * Gets the unicode character the first emoji replaces.
+	 *
+	 * @return The unicode character the first emoji replaces.
+	 */
+	public char getBaseCharacter() {
+		return baseCharacter;
+	}
+	
 	/**
 	 * Gets the variant's SHA1 hash.
 	 *
@@ -0,0 +1,35 @@
+package io.github.radbuilder.emojichat.utils;
+
+/**
+ * The places a message can be translated for, which decide how emojis are colored.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum EmojiSurface {
+	/**
+	 * Player chat, where emojis are colored white (and the chat color restored) if fix-emoji-coloring is enabled.
+	 */
+	CHAT,
+	/**
+	 * Sign lines, where emojis are colored white and the sign text is set back to black.
+	 */
+	SIGN,
+	/**
+	 * Player commands, where emojis aren't colored.
+	 */
+	COMMAND,
+	/**
+	 * DiscordSRV Staff Chat messages, where emojis aren't colored. Emojis are only counted when the message comes back from Discord.
+	 */
+	STAFF_CHAT,
+	/**
+	 * Messages from Discord (through DiscordSRV), where emojis aren't colored.
+	 */
+	DISCORD,
+	/**
+	 * Messages from Telegram (through TelegramChat), where emojis aren't colored.
+	 */
+	TELEGRAM;
+}
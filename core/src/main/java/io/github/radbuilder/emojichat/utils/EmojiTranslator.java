@@ -0,0 +1,845 @@
+package io.github.radbuilder.emojichat.utils;
+
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
+import io.github.radbuilder.emojichat.metrics.EmojiStats;
+import io.github.radbuilder.emojichat.metrics.LatencyRecorder;
+import io.github.radbuilder.emojichat.metrics.LatencyStage;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * The translation engine: translates shortcodes and shortcuts to emojis, and emojis back to shortcodes, with the
+ * {@link EmojiIndex} built from list.txt and the specified emoji data, and counts what it translated in an {@link EmojiStats}.
+ * <p>
+ * This doesn't depend on Bukkit, so it can be benchmarked, load-tested and reused without a server. The plugin's
+ * EmojiHandler loads it from the config.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiTranslator {
+	/**
+	 * Returned by the translation core when the message was translated into the output builder.
+	 */
+	private static final int TRANSLATED = 1;
+	/**
+	 * Returned by the translation core when nothing in the message needed translating, and nothing was appended.
+	 */
+	private static final int UNCHANGED = 0;
+	/**
+	 * Returned by the translation core when the message contains a disabled emoji character, and nothing was appended.
+	 */
+	private static final int DISABLED = -1;
+	/**
+	 * The largest scratch buffer kept around per thread, bigger ones are dropped after use.
+	 */
+	private static final int MAX_BUFFER_SIZE = 4096;
+	/**
+	 * Per-thread scratch buffers the String translation methods build their results in.
+	 */
+	private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(256));
+	/**
+	 * The position of the emojis used in a usage array.
+	 */
+	private static final int EMOJIS_USED = 0;
+	/**
+	 * The position of the shortcuts used in a usage array.
+	 */
+	private static final int SHORTCUTS_USED = 1;
+	/**
+	 * The position of the escapes used in a usage array.
+	 */
+	private static final int ESCAPES_USED = 2;
+	/**
+	 * Per-thread usage arrays the translation core stores the emojis, shortcuts and escapes used in.
+	 */
+	private static final ThreadLocal<int[]> USAGE = ThreadLocal.withInitial(() -> new int[3]);
+	/**
+	 * Per-thread arrays the translation core stores the glyph offsets of the emojis used in, in order, for the emoji usage histogram.
+	 */
+	private static final ThreadLocal<int[]> GLYPHS = ThreadLocal.withInitial(() -> new int[16]);
+	/**
+	 * The compiled emoji data. A new index is published in one step on every load, so readers never lock.
+	 */
+	private volatile EmojiIndex index;
+	/**
+	 * The cache of translated messages, or null if it's disabled.
+	 */
+	private volatile TranslationCache cache;
+	/**
+	 * The saved compiled emoji matchers, so they're only compiled when the emojis or config change.
+	 */
+	private final CompiledIndexFile compiledFile;
+	/**
+	 * The emoji shortcodes from list.txt, in order, or null if they haven't been read yet.
+	 */
+	private volatile List<String> listShortcodes;
+	/**
+	 * Where what's translated is counted.
+	 */
+	private final EmojiStats stats;
+	/**
+	 * The logger warnings are logged to.
+	 */
+	private final Logger logger;
+	
+	/**
+	 * Creates the translation engine. Nothing can be translated until it's loaded with
+	 * {@link #load(EmojiPackVariant, Map, List, Map, boolean, int)}.
+	 *
+	 * @param stats Where what's translated is counted.
+	 * @param compiledFile The file the compiled emoji matchers are saved in, or null to always compile them.
+	 * @param logger The logger warnings are logged to.
+	 */
+	public EmojiTranslator(EmojiStats stats, CompiledIndexFile compiledFile, Logger logger) {
+		this.stats = stats;
+		this.compiledFile = compiledFile;
+		this.logger = logger;
+	}
+	
+	/**
+	 * Gets the current {@link #index}.
+	 *
+	 * @return The current {@link EmojiIndex}.
+	 */
+	public EmojiIndex getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Gets the enabled emojis.
+	 *
+	 * @return The unmodifiable map of emoji shortcodes to emoji characters.
+	 */
+	public Map<String, Character> getEmojis() {
+		return index.getEmojis();
+	}
+	
+	/**
+	 * Gets the disabled emoji characters.
+	 *
+	 * @return The unmodifiable list of disabled emoji characters.
+	 */
+	public List<Character> getDisabledCharacters() {
+		return index.getDisabledCharacters();
+	}
+	
+	/**
+	 * Gets the shortcuts.
+	 *
+	 * @return The unmodifiable map of shortcuts to the emoji shortcode they translate to.
+	 */
+	public Map<String, String> getShortcuts() {
+		return index.getShortcuts();
+	}
+	
+	/**
+	 * Loads the disabled emojis.
+	 *
+	 * @param disabledEmojis The shortcodes of the emojis to disable.
+	 * @param emojis The loaded emojis, which disabled emojis are removed from.
+	 * @param disabledCharacters The list to load the disabled emoji characters into.
+	 */
+	private void loadDisabledEmojis(List<String> disabledEmojis, LinkedHashMap<String, Character> emojis, List<Character> disabledCharacters) {
+		for (String disabledEmoji : disabledEmojis) {
+			if (disabledEmoji == null || !emojis.containsKey(disabledEmoji)) {
+				logger.warning("Invalid emoji specified in 'disabled-emojis': '" + disabledEmoji + "'. Skipping...");
+				continue;
+			}
+			disabledCharacters.add(emojis.remove(disabledEmoji)); // Remove disabled emojis from the emoji list
+		}
+	}
+	
+	/**
+	 * If emoji coloring should be fixed.
+	 *
+	 * @return True if emoji coloring should be fixed, false otherwise.
+	 */
+	public boolean fixColoring() {
+		return index.fixColoring();
+	}
+	
+	/**
+	 * Loads the emojis for the specified pack variant.
+	 *
+	 * @param packVariant The {@link EmojiPackVariant} being used.
+	 * @param emojis The map to load the emojis into.
+	 */
+	private void loadEmojis(EmojiPackVariant packVariant, LinkedHashMap<String, Character> emojis) {
+		char emojiChar = packVariant.getBaseCharacter(); // The unicode character we start with depending on the pack variant, which gets incremented
+		
+		if (listShortcodes == null) { // list.txt is in the jar, so it only needs to be read once
+			listShortcodes = readList();
+			if (listShortcodes == null) {
+				return;
+			}
+		}
+		for (String shortcode : listShortcodes) {
+			emojis.put(shortcode, emojiChar++); // Add the emoji we're currently on and switch it to the next char
+		}
+	}
+	
+	/**
+	 * Reads the emoji shortcodes from list.txt.
+	 *
+	 * @return The emoji shortcodes, or null if an error occured.
+	 */
+	private List<String> readList() {
+		List<String> shortcodes = new ArrayList<>();
+		try {
+			InputStream listInput = EmojiTranslator.class.getResourceAsStream("/list.txt");
+			BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(listInput));
+			String line;
+			while ((line = bufferedReader.readLine()) != null) {
+				if (line.startsWith("#")) { // Ignored lines
+					continue;
+				}
+				shortcodes.add(line);
+			}
+			bufferedReader.close();
+			listInput.close();
+		} catch (Exception e) {
+			logger.warning("An error occured while loading emojis. More info below.");
+			e.printStackTrace();
+			return null;
+		}
+		return shortcodes;
+	}
+	
+	/**
+	 * Gets every emoji shortcode in list.txt, enabled or not, in order, so the position of a shortcode is its glyph offset.
+	 *
+	 * @return The unmodifiable list of shortcodes, or an empty list if list.txt couldn't be read.
+	 */
+	public List<String> getListedShortcodes() {
+		List<String> listShortcodes = this.listShortcodes;
+		return listShortcodes == null ? Collections.emptyList() : Collections.unmodifiableList(listShortcodes);
+	}
+	
+	/**
+	 * Replaces the {@link #index} with an empty one, and removes the {@link #cache}.
+	 */
+	public synchronized void disable() {
+		index = EmojiIndex.empty(index == null ? null : index.getPackVariant());
+		cache = null;
+	}
+	
+	/**
+	 * Loads the emoji data. The new data is built on the side, then published in one step. Only the matchers affected
+	 * by what changed are compiled again, and if nothing changed, the current data and cached translations are kept.
+	 * This can be called from any thread, but only one load runs at a time.
+	 *
+	 * @param packVariant The {@link EmojiPackVariant} to use.
+	 * @param shortcuts The shortcuts, mapped to the emoji shortcode they translate to.
+	 * @param disabledEmojis The shortcodes of the emojis to disable.
+	 * @param verbatimRegions The start markers of verbatim regions, mapped to their end markers.
+	 * @param fixColoring If emoji coloring should be fixed.
+	 * @param cacheSize The most translated messages to cache, or 0 to not cache them.
+	 * @return What changed since the last load (i.e. "shortcuts"), or an empty list if nothing changed.
+	 */
+	public synchronized List<String> load(EmojiPackVariant packVariant, Map<String, String> shortcuts, List<String> disabledEmojis,
+	                                      Map<String, String> verbatimRegions, boolean fixColoring, int cacheSize) {
+		LinkedHashMap<String, Character> emojis = new LinkedHashMap<>();
+		List<Character> disabledCharacters = new ArrayList<>();
+		
+		loadEmojis(packVariant, emojis); // Loads ALL emojis
+		loadDisabledEmojis(disabledEmojis, emojis, disabledCharacters); // Removes the disabled emojis
+		
+		EmojiIndex previous = index;
+		List<String> changes = getChanges(previous, emojis, shortcuts, disabledCharacters, verbatimRegions, fixColoring, packVariant);
+		if (previous == null || !changes.isEmpty()) {
+			index = new EmojiIndex(emojis, shortcuts, disabledCharacters, verbatimRegions, fixColoring, packVariant, previous, compiledFile); // Compiles (or reads) and publishes the new data
+		}
+		
+		if (cacheSize <= 0) {
+			cache = null;
+		} else if (cache == null || cache.getMaxSize() != cacheSize) {
+			cache = new TranslationCache(cacheSize);
+		} else if (!changes.isEmpty()) { // Cached translations were made with the old data, so start over
+			cache.clear();
+		}
+		return changes;
+	}
+	
+	/**
+	 * Gets what changed between the specified index and the specified data.
+	 *
+	 * @param previous The current index, or null if there isn't one.
+	 * @param emojis The new enabled emojis.
+	 * @param shortcuts The new shortcuts.
+	 * @param disabledCharacters The new disabled emoji characters.
+	 * @param verbatimRegions The new verbatim regions.
+	 * @param fixColoring The new fix-emoji-coloring value.
+	 * @param packVariant The new {@link EmojiPackVariant}.
+	 * @return The names of what changed, or an empty list if nothing changed (or there's no current index).
+	 */
+	private List<String> getChanges(EmojiIndex previous, Map<String, Character> emojis, Map<String, String> shortcuts, List<Character> disabledCharacters,
+	                                Map<String, String> verbatimRegions, boolean fixColoring, EmojiPackVariant packVariant) {
+		List<String> changes = new ArrayList<>();
+		if (previous == null) {
+			return changes;
+		}
+		
+		if (previous.getPackVariant() != packVariant) {
+			changes.add("pack variant");
+		}
+		if (!previous.getDisabledCharacters().equals(disabledCharacters)) {
+			changes.add("disabled emojis");
+		}
+		if (changes.isEmpty() && !previous.getEmojis().equals(emojis)) { // Only happens if list.txt couldn't be read before
+			changes.add("emojis");
+		}
+		if (!previous.getShortcuts().equals(shortcuts)) {
+			changes.add("shortcuts");
+		}
+		if (!previous.getVerbatimRegions().equals(verbatimRegions)) {
+			changes.add("verbatim regions");
+		}
+		if (previous.fixColoring() != fixColoring) {
+			changes.add("fix-emoji-coloring");
+		}
+		return changes;
+	}
+	
+	/**
+	 * Gets the {@link #cache} of translated messages.
+	 *
+	 * @return The {@link TranslationCache}, or null if it's disabled.
+	 */
+	public TranslationCache getCache() {
+		return cache;
+	}
+	
+	/**
+	 * Translates the specified message for the specified {@link EmojiSurface} in one pass: shortcuts (i.e. :) ) and
+	 * emoji shortcuts (i.e. :100:) are replaced with emojis, escaped shortcuts (i.e. \:) ) are kept as text, and links, verbatim regions and color codes are left alone.
+	 *
+	 * @param message The message to translate.
+	 * @param surface The {@link EmojiSurface} the message is for.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @return The translated message, or null if the message contains a disabled emoji character.
+	 */
+	public String translate(String message, EmojiSurface surface, boolean useShortcuts) {
+		return translate(message, TranslationContext.of(surface, useShortcuts));
+	}
+	
+	/**
+	 * Translates the specified message for the specified {@link TranslationContext}, using this thread's scratch buffer
+	 * and the {@link #cache} if enabled.
+	 *
+	 * @param message The message to translate.
+	 * @param context The {@link TranslationContext} to translate for.
+	 * @return The translated message (the same instance if nothing was translated), or null if the message contains a disabled emoji character.
+	 */
+	public String translate(String message, TranslationContext context) {
+		LatencyRecorder latency = stats.getLatency();
+		long start = latency.start();
+		String translated = translateCached(message, context);
+		latency.record(LatencyStage.TRANSLATE, context.getSurface(), start);
+		return translated;
+	}
+	
+	/**
+	 * Translates the specified message for the specified {@link TranslationContext}, using this thread's scratch buffer
+	 * and the {@link #cache} if enabled, without timing it.
+	 *
+	 * @param message The message to translate.
+	 * @param context The {@link TranslationContext} to translate for.
+	 * @return The translated message (the same instance if nothing was translated), or null if the message contains a disabled emoji character.
+	 */
+	private String translateCached(String message, TranslationContext context) {
+		EmojiEvents events = stats.getEvents();
+		Object timedEvent = events.startTranslate();
+		EmojiIndex index = this.index; // Use the same index for the whole message
+		if (!hasCandidate(index, message, context.useShortcuts())) { // Fast path, nothing in the message can start a shortcut or emoji
+			events.translate(context.getSurface(), message.length(), 0, timedEvent);
+			return message;
+		}
+		
+		TranslationCache cache = this.cache;
+		TranslationCache.Entry cached = cache == null ? null : cache.get(message, context, index);
+		if (cached != null) {
+			addUsage(context.getSurface(), cached.getEmojisUsed(), cached.getShortcutsUsed(), cached.getEscapesUsed(), cached.getGlyphs(), countsEmojis(context));
+			events.translate(context.getSurface(), message.length(), cached.getEmojisUsed() + cached.getEscapesUsed(), timedEvent);
+			return cached.getTranslated(message);
+		}
+		
+		StringBuilder buffer = BUFFERS.get();
+		buffer.setLength(0);
+		int[] usage = USAGE.get();
+		int result = translate(index, message, buffer, context, usage);
+		String translated = result == UNCHANGED ? message : result == DISABLED ? null : buffer.toString();
+		if (buffer.capacity() > MAX_BUFFER_SIZE) { // Don't keep huge buffers around after a huge message
+			BUFFERS.remove();
+		}
+		
+		if (cache != null) {
+			cache.put(message, context, new TranslationCache.Entry(index, message, translated, usage[EMOJIS_USED], usage[SHORTCUTS_USED], usage[ESCAPES_USED],
+					Arrays.copyOf(GLYPHS.get(), usage[EMOJIS_USED])));
+		}
+		addUsage(context.getSurface(), usage[EMOJIS_USED], usage[SHORTCUTS_USED], usage[ESCAPES_USED], GLYPHS.get(), countsEmojis(context));
+		events.translate(context.getSurface(), message.length(), usage[EMOJIS_USED] + usage[ESCAPES_USED], timedEvent);
+		return translated;
+	}
+	
+	/**
+	 * Translates the specified message for the specified {@link TranslationContext}, appending the result to the specified builder.
+	 * Nothing is allocated besides what the builder needs to grow.
+	 *
+	 * @param message The message to translate.
+	 * @param out The builder to append the translated message to. Nothing is appended if the message contains a disabled emoji character.
+	 * @param context The {@link TranslationContext} to translate for.
+	 * @return True if the message was translated, false if it contains a disabled emoji character.
+	 */
+	public boolean translate(CharSequence message, StringBuilder out, TranslationContext context) {
+		LatencyRecorder latency = stats.getLatency();
+		long start = latency.start();
+		boolean translated = appendTranslated(message, out, context);
+		latency.record(LatencyStage.TRANSLATE, context.getSurface(), start);
+		return translated;
+	}
+	
+	/**
+	 * Translates the specified message for the specified {@link TranslationContext}, appending the result to the specified
+	 * builder, without timing it.
+	 *
+	 * @param message The message to translate.
+	 * @param out The builder to append the translated message to. Nothing is appended if the message contains a disabled emoji character.
+	 * @param context The {@link TranslationContext} to translate for.
+	 * @return True if the message was translated, false if it contains a disabled emoji character.
+	 */
+	private boolean appendTranslated(CharSequence message, StringBuilder out, TranslationContext context) {
+		EmojiEvents events = stats.getEvents();
+		Object timedEvent = events.startTranslate();
+		EmojiIndex index = this.index; // Use the same index for the whole message
+		if (!hasCandidate(index, message, context.useShortcuts())) { // Fast path, nothing in the message can start a shortcut or emoji
+			out.append(message);
+			events.translate(context.getSurface(), message.length(), 0, timedEvent);
+			return true;
+		}
+		
+		int[] usage = USAGE.get();
+		int result = translate(index, message, out, context, usage);
+		if (result == UNCHANGED) {
+			out.append(message);
+		}
+		addUsage(context.getSurface(), usage[EMOJIS_USED], usage[SHORTCUTS_USED], usage[ESCAPES_USED], GLYPHS.get(), countsEmojis(context));
+		events.translate(context.getSurface(), message.length(), usage[EMOJIS_USED] + usage[ESCAPES_USED], timedEvent);
+		return result != DISABLED;
+	}
+	
+	/**
+	 * Translates the specified message for the specified {@link TranslationContext} with the specified index.
+	 *
+	 * @param index The {@link EmojiIndex} to translate with.
+	 * @param message The message to translate.
+	 * @param out The builder to append the translated message to.
+	 * @param context The {@link TranslationContext} to translate for.
+	 * @param usage The array to store the emojis, shortcuts and escapes used in.
+	 * @return {@link #TRANSLATED}, {@link #UNCHANGED} or {@link #DISABLED}.
+	 */
+	private int translate(EmojiIndex index, CharSequence message, StringBuilder out, TranslationContext context, int[] usage) {
+		String[] emojiTexts = null;
+		int colorLength = 0;
+		switch (context.getSurface()) {
+			case CHAT:
+				if (index.fixColoring()) { // Sets the emoji color to white for correct coloring, then goes back to the chat color
+					emojiTexts = index.getWhiteEmojis();
+					colorLength = getChatColorLength(message);
+				}
+				break;
+			case SIGN: // Sets the emoji color to white for correct coloring, then goes back to black sign text
+				emojiTexts = index.getSignEmojis();
+				break;
+		}
+		return translate(index, message, out, context.useShortcuts(), emojiTexts, colorLength, false, usage);
+	}
+	
+	/**
+	 * If the emojis used when translating for the specified {@link TranslationContext} should be counted.
+	 *
+	 * @param context The {@link TranslationContext}.
+	 * @return True if the emojis used should be counted, false otherwise.
+	 */
+	private boolean countsEmojis(TranslationContext context) {
+		// Staff chat emojis aren't counted here, they're counted when they come back through DiscordSRV
+		return context.getSurface() != EmojiSurface.STAFF_CHAT;
+	}
+	
+	/**
+	 * Converts the specified message's shortcuts (i.e. :100:) to emoji.
+	 *
+	 * @param message The message to convert.
+	 * @return The converted message.
+	 */
+	public String toEmoji(String message) {
+		return toEmoji(message, EmojiSurface.CHAT);
+	}
+	
+	/**
+	 * Converts the specified message's shortcuts (i.e. :100:) to emoji, counting the emojis used for the specified surface.
+	 *
+	 * @param message The message to convert.
+	 * @param surface The {@link EmojiSurface} the message came from, i.e. {@link EmojiSurface#DISCORD}.
+	 * @return The converted message.
+	 */
+	public String toEmoji(String message, EmojiSurface surface) {
+		return translateAllowingDisabled(index, message, null, 0, surface);
+	}
+	
+	/**
+	 * Converts the specified message's emojis back to their shortcuts (i.e. :100:), in one pass.
+	 * Disabled emoji characters are left as-is.
+	 *
+	 * @param message The message to convert.
+	 * @return The converted message, or the original message if it didn't contain any emojis.
+	 */
+	public String fromEmoji(String message) {
+		EmojiIndex index = this.index; // Use the same index for the whole message
+		StringBuilder converted = null;
+		int copied = 0; // How much of the message is in the converted message
+		
+		for (int i = 0; i < message.length(); i++) {
+			String shortcode = index.getShortcode(message.charAt(i));
+			if (shortcode == null) {
+				continue;
+			}
+			
+			if (converted == null) {
+				converted = new StringBuilder(message.length() + 32);
+			}
+			converted.append(message, copied, i).append(shortcode);
+			copied = i + 1;
+		}
+		
+		if (converted == null) { // Nothing to convert
+			return message;
+		}
+		return converted.append(message, copied, message.length()).toString();
+	}
+	
+	/**
+	 * Converts the specified line's shortcuts (i.e. :100:) to emoji from sign.
+	 *
+	 * @param line The line to convert from sign.
+	 * @return The converted line from sign.
+	 */
+	public String toEmojiFromSign(String line) {
+		EmojiIndex index = this.index; // Use the same index for the whole line
+		return translateAllowingDisabled(index, line, index.getSignEmojis(), 0, EmojiSurface.SIGN); // Sets the emoji color to white for correct coloring
+	}
+	
+	/**
+	 * Converts the specified message's shortcuts (i.e. :100:) to emoji from chat.
+	 *
+	 * @param message The message to convert from chat.
+	 * @return The converted message from chat.
+	 */
+	public String toEmojiFromChat(String message) {
+		EmojiIndex index = this.index; // Use the same index for the whole message
+		// If we're not fixing the coloring, or the message is too small to have coloring
+		if (!index.fixColoring() || message.length() < 3) {
+			return translateAllowingDisabled(index, message, null, 0, EmojiSurface.CHAT);
+		}
+		return translateAllowingDisabled(index, message, index.getWhiteEmojis(), getChatColorLength(message), EmojiSurface.CHAT); // Sets the emoji color to white for correct coloring
+	}
+	
+	/**
+	 * Translates the specified message without shortcuts, keeping disabled emoji characters, using this thread's scratch buffer.
+	 *
+	 * @param index The {@link EmojiIndex} to translate with.
+	 * @param message The message to translate.
+	 * @param emojiTexts The text to use for each emoji, or null to use the plain emoji characters.
+	 * @param colorLength How many characters of the message's chat color to put after each emoji.
+	 * @param surface The {@link EmojiSurface} to count the emojis used for.
+	 * @return The translated message, or the same instance if nothing was translated.
+	 */
+	private String translateAllowingDisabled(EmojiIndex index, String message, String[] emojiTexts, int colorLength, EmojiSurface surface) {
+		LatencyRecorder latency = stats.getLatency();
+		EmojiEvents events = stats.getEvents();
+		long start = latency.start();
+		Object timedEvent = events.startTranslate();
+		if (!hasCandidate(index, message, false)) { // Fast path, nothing in the message can start an emoji
+			latency.record(LatencyStage.TRANSLATE, surface, start);
+			events.translate(surface, message.length(), 0, timedEvent);
+			return message;
+		}
+		
+		StringBuilder buffer = BUFFERS.get();
+		buffer.setLength(0);
+		int[] usage = USAGE.get();
+		int result = translate(index, message, buffer, false, emojiTexts, colorLength, true, usage);
+		String translated = result == UNCHANGED ? message : buffer.toString();
+		if (buffer.capacity() > MAX_BUFFER_SIZE) { // Don't keep huge buffers around after a huge message
+			BUFFERS.remove();
+		}
+		addUsage(surface, usage[EMOJIS_USED], usage[SHORTCUTS_USED], usage[ESCAPES_USED], GLYPHS.get(), true);
+		latency.record(LatencyStage.TRANSLATE, surface, start);
+		events.translate(surface, message.length(), usage[EMOJIS_USED], timedEvent);
+		return translated;
+	}
+	
+	/**
+	 * Checks if anything in the specified message can start a shortcut, emoji or disabled character, and counts the
+	 * message as translated. Links, verbatim regions and color codes alone don't need translating, so they don't count.
+	 *
+	 * @param index The {@link EmojiIndex} to translate with.
+	 * @param message The message to translate.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @return True if the message needs translating, false if it can be used as-is (the fast path).
+	 */
+	private boolean hasCandidate(EmojiIndex index, CharSequence message, boolean useShortcuts) {
+		boolean candidate = index.getMatcher(useShortcuts).findStart(message, 0, message.length()) != -1;
+		stats.addMessageTranslated(!candidate);
+		return candidate;
+	}
+	
+	/**
+	 * Counts the specified emojis, shortcuts and escapes as used on the specified surface.
+	 *
+	 * @param surface The {@link EmojiSurface} they were used on.
+	 * @param emojisUsed The number of emojis used.
+	 * @param shortcutsUsed The number of shortcuts used.
+	 * @param escapesUsed The number of escapes used.
+	 * @param glyphs The glyph offsets of the emojis used, in the first emojisUsed positions.
+	 * @param countEmojis If the emojis used should be counted.
+	 */
+	private void addUsage(EmojiSurface surface, int emojisUsed, int shortcutsUsed, int escapesUsed, int[] glyphs, boolean countEmojis) {
+		if (countEmojis && emojisUsed > 0) {
+			stats.addEmojiUsed(surface, emojisUsed);
+			stats.addGlyphsUsed(glyphs, emojisUsed);
+		}
+		if (shortcutsUsed > 0) {
+			stats.addShortcutUsed(surface, shortcutsUsed);
+		}
+		if (escapesUsed > 0) {
+			stats.addEscapesUsed(surface, escapesUsed);
+		}
+	}
+	
+	/**
+	 * Gets the length of the chat color the message starts with, i.e. §a
+	 *
+	 * @param message The message to get the chat color from.
+	 * @return 2 if the message starts with a chat color, 0 otherwise.
+	 */
+	private int getChatColorLength(CharSequence message) {
+		if (message.length() < 2 || (message.charAt(0) != '§' && message.charAt(1) != '§')) {
+			return 0;
+		}
+		return 2;
+	}
+	
+	/**
+	 * Translates the specified message in one pass with the specified index, and stores the emojis, shortcuts and escapes used.
+	 *
+	 * @param index The {@link EmojiIndex} to translate with.
+	 * @param message The message to translate.
+	 * @param out The builder to append the translated message to. Nothing is appended if nothing was translated.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @param emojiTexts The text to use for each emoji (by pattern index), or null to use the plain emoji characters.
+	 * @param colorLength How many characters from the start of the message (its chat color) to put after each emoji.
+	 * @param allowDisabled If disabled emoji characters are allowed in the message.
+	 * @param usage The array to store the emojis, shortcuts and escapes used in (all 0 unless {@link #TRANSLATED} is returned).
+	 * The glyph offsets of the emojis used are stored in this thread's {@link #GLYPHS} array.
+	 * @return {@link #TRANSLATED}, {@link #UNCHANGED} if nothing was translated, or {@link #DISABLED} if disabled
+	 * emoji characters aren't allowed and the message contains one.
+	 */
+	private int translate(EmojiIndex index, CharSequence message, StringBuilder out, boolean useShortcuts, String[] emojiTexts,
+	                      int colorLength, boolean allowDisabled, int[] usage) {
+		EmojiMatcher matcher = index.getMatcher(useShortcuts);
+		int[] glyphs = GLYPHS.get();
+		usage[EMOJIS_USED] = 0;
+		usage[SHORTCUTS_USED] = 0;
+		usage[ESCAPES_USED] = 0;
+		
+		int outStart = out.length();
+		boolean translated = false;
+		int position = 0; // From the start, a link or verbatim region can start before the first shortcut or emoji
+		int matched = 0; // Where the last match ended
+		int copied = 0; // How much of the message is in the translated message
+		int emojisUsed = 0;
+		int shortcutsUsed = 0;
+		int escapesUsed = 0;
+		
+		long match;
+		while ((match = matcher.find(message, position, message.length())) != EmojiMatcher.NO_MATCH) {
+			int start = EmojiMatcher.matchStart(match);
+			int pattern = EmojiMatcher.matchPattern(match);
+			int end = start + matcher.getPatternLength(pattern);
+			
+			if (pattern >= index.getDisabledStart() && pattern < index.getShortcutStart()) { // Disabled characters and protected text are kept as-is
+				if (pattern >= index.getProtectedStart()) { // Skip the whole link, verbatim region or color code
+					end = index.getProtectedEnd(message, pattern, end);
+				}
+				if (!allowDisabled && (pattern < index.getProtectedStart() || index.containsDisabledCharacter(message, start, end))) {
+					out.setLength(outStart);
+					return DISABLED;
+				}
+				position = end;
+				matched = end;
+				continue;
+			}
+			
+			translated = true;
+			if (pattern < index.getDisabledStart()) { // Emoji shortcode
+				out.append(message, copied, start);
+				appendEmoji(index, out, pattern, emojiTexts, message, colorLength);
+				glyphs = addGlyph(glyphs, emojisUsed++, index.getGlyph(pattern));
+			} else if (start > matched && message.charAt(start - 1) == '\\') { // Escaped shortcut, remove the backslash and keep the shortcut
+				out.append(message, copied, start - 1).append(message, start, end);
+				escapesUsed++;
+			} else { // Shortcut
+				int shortcut = pattern - index.getShortcutStart();
+				out.append(message, copied, start);
+				if (index.getShortcutEmoji(shortcut) != -1) {
+					appendEmoji(index, out, index.getShortcutEmoji(shortcut), emojiTexts, message, colorLength);
+					glyphs = addGlyph(glyphs, emojisUsed++, index.getGlyph(index.getShortcutEmoji(shortcut)));
+				} else { // The shortcut's emoji isn't enabled
+					out.append(index.getShortcutReplacement(shortcut));
+				}
+				shortcutsUsed++;
+			}
+			position = end;
+			matched = end;
+			copied = end;
+		}
+		
+		if (!translated) { // Nothing to translate
+			return UNCHANGED;
+		}
+		out.append(message, copied, message.length());
+		usage[EMOJIS_USED] = emojisUsed;
+		usage[SHORTCUTS_USED] = shortcutsUsed;
+		usage[ESCAPES_USED] = escapesUsed;
+		return TRANSLATED;
+	}
+	
+	/**
+	 * Stores the specified glyph offset in the specified glyphs array, growing it (and this thread's {@link #GLYPHS} array) if it's full.
+	 *
+	 * @param glyphs The glyphs array.
+	 * @param position The position to store the glyph offset at.
+	 * @param glyph The glyph offset.
+	 * @return The glyphs array, which is a new array if it grew.
+	 */
+	private static int[] addGlyph(int[] glyphs, int position, int glyph) {
+		if (position == glyphs.length) {
+			glyphs = Arrays.copyOf(glyphs, glyphs.length * 2);
+			GLYPHS.set(glyphs);
+		}
+		glyphs[position] = glyph;
+		return glyphs;
+	}
+	
+	/**
+	 * Appends the specified emoji, with its coloring.
+	 *
+	 * @param index The {@link EmojiIndex} being translated with.
+	 * @param out The builder to append the emoji to.
+	 * @param pattern The emoji pattern index.
+	 * @param emojiTexts The text to use for each emoji, or null to use the plain emoji characters.
+	 * @param message The message being translated, which the chat color is copied from.
+	 * @param colorLength How many characters from the start of the message to put after the emoji.
+	 */
+	private void appendEmoji(EmojiIndex index, StringBuilder out, int pattern, String[] emojiTexts, CharSequence message, int colorLength) {
+		if (emojiTexts == null) {
+			out.append(index.getEmojiCharacter(pattern));
+		} else {
+			out.append(emojiTexts[pattern]).append(message, 0, colorLength);
+		}
+	}
+	
+	/**
+	 * Replaces shorthand ("shortcuts" in config) with correct emoji shortcuts, in one pass over the message.
+	 * Overlapping shortcuts are resolved leftmost-longest (i.e. "&lt;/3" wins over "&lt;3"), emoji shortcuts, disabled
+	 * characters, links, verbatim regions and color codes are kept as-is, and shortcuts escaped with a backslash have the backslash removed.
+	 *
+	 * @param message The original message.
+	 * @return The message with correct emoji shortcuts, or the same message if there weren't any shortcuts.
+	 */
+	public String translateShorthand(String message) {
+		LatencyRecorder latency = stats.getLatency();
+		long timingStart = latency.start();
+		EmojiIndex index = this.index; // Use the same index for the whole message
+		EmojiMatcher matcher = index.getMatcher(true);
+		StringBuilder replaced = null;
+		int position = 0;
+		int matched = 0; // Where the last match ended
+		int copied = 0; // How much of the message is in the replaced message
+		int shortcutsUsed = 0;
+		int escapesUsed = 0;
+		
+		long match;
+		while ((match = matcher.find(message, position, message.length())) != EmojiMatcher.NO_MATCH) {
+			int start = EmojiMatcher.matchStart(match);
+			int pattern = EmojiMatcher.matchPattern(match);
+			int end = start + matcher.getPatternLength(pattern);
+			if (pattern < index.getShortcutStart()) { // Emoji shortcuts, disabled characters and protected text are kept as-is
+				if (pattern >= index.getProtectedStart()) {
+					end = index.getProtectedEnd(message, pattern, end);
+				}
+				position = end;
+				matched = end;
+				continue;
+			}
+			
+			if (replaced == null) {
+				replaced = new StringBuilder(message.length() + 16);
+			}
+			if (start > matched && message.charAt(start - 1) == '\\') { // Escaped shortcut, remove the backslash and keep the shortcut
+				replaced.append(message, copied, start - 1).append(message, start, end);
+				escapesUsed++;
+			} else {
+				replaced.append(message, copied, start).append(index.getShortcutReplacement(pattern - index.getShortcutStart()));
+				shortcutsUsed++;
+			}
+			position = end;
+			matched = end;
+			copied = end;
+		}
+		
+		if (replaced == null) { // No shortcuts
+			latency.record(LatencyStage.SHORTHAND, EmojiSurface.CHAT, timingStart);
+			return message;
+		}
+		addUsage(EmojiSurface.CHAT, 0, shortcutsUsed, escapesUsed, null, false);
+		String translated = replaced.append(message, copied, message.length()).toString();
+		latency.record(LatencyStage.SHORTHAND, EmojiSurface.CHAT, timingStart);
+		return translated;
+	}
+	
+	/**
+	 * Checks if the specified message contains a disabled character, if enabled.
+	 *
+	 * @param message The message to check.
+	 * @return True if the message contains a disabled character, false otherwise.
+	 */
+	public boolean containsDisabledCharacter(String message) {
+		LatencyRecorder latency = stats.getLatency();
+		long start = latency.start();
+		boolean containsDisabled = index.containsDisabledCharacter(message);
+		latency.record(LatencyStage.DISABLED_CHECK, EmojiSurface.CHAT, start);
+		return containsDisabled;
+	}
+	
+	/**
+	 * Gets the {@link EmojiPackVariant} being used.
+	 *
+	 * @return The {@link EmojiPackVariant} being used.
+	 */
+	public EmojiPackVariant getPackVariant() {
+		return index.getPackVariant();
+	}
+}
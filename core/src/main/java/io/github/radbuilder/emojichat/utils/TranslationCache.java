@@ -0,0 +1,388 @@
+package io.github.radbuilder.emojichat.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded, least-recently-used cache of translated messages, so repeated messages (broadcasts, auto messages,
+ * spam waves) are only translated once.
+ * <p>
+ * The cache is split into segments that are locked separately, and is bounded by both the number of messages and
+ * the number of characters stored. Entries remember the {@link EmojiIndex} they were translated with, so a reload
+ * never returns a translation made with old data, even if it races with the cache being cleared.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class TranslationCache {
+	/**
+	 * Messages longer than this aren't cached, as they're rarely repeated.
+	 */
+	public static final int MAX_MESSAGE_LENGTH = 256;
+	/**
+	 * The number of segments, which must be a power of two.
+	 */
+	private static final int SEGMENT_COUNT = 16;
+	/**
+	 * The average number of characters (message and translation) allowed per cached message.
+	 */
+	private static final int AVERAGE_WEIGHT = 128;
+	/**
+	 * The maximum number of cached messages.
+	 */
+	private final int maxSize;
+	/**
+	 * The cache segments, chosen by the message hash.
+	 */
+	private final Segment[] segments;
+	
+	/**
+	 * Creates a translation cache.
+	 *
+	 * @param maxSize The maximum number of cached messages.
+	 */
+	public TranslationCache(int maxSize) {
+		this.maxSize = maxSize;
+		
+		int segmentSize = Math.max(1, maxSize / SEGMENT_COUNT);
+		segments = new Segment[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			segments[i] = new Segment(segmentSize, segmentSize * AVERAGE_WEIGHT);
+		}
+	}
+	
+	/**
+	 * Gets the cached translation of the specified message.
+	 *
+	 * @param message The message.
+	 * @param context The {@link TranslationContext} it's translated for.
+	 * @param index The {@link EmojiIndex} it's translated with.
+	 * @return The cached translation, or null if there isn't one for the message, context and index.
+	 */
+	Entry get(String message, TranslationContext context, EmojiIndex index) {
+		if (message.length() > MAX_MESSAGE_LENGTH) {
+			return null;
+		}
+		
+		Segment segment = getSegment(message);
+		synchronized (segment) {
+			Entry entry = segment.get(new Key(message, context));
+			if (entry == null || entry.index != index) {
+				segment.misses++;
+				return null;
+			}
+			segment.hits++;
+			return entry;
+		}
+	}
+	
+	/**
+	 * Caches the translation of the specified message, evicting the least recently used translations if needed.
+	 *
+	 * @param message The message.
+	 * @param context The {@link TranslationContext} it was translated for.
+	 * @param entry The translation.
+	 */
+	void put(String message, TranslationContext context, Entry entry) {
+		if (message.length() > MAX_MESSAGE_LENGTH) {
+			return;
+		}
+		
+		Segment segment = getSegment(message);
+		synchronized (segment) {
+			Entry previous = segment.put(new Key(message, context), entry);
+			if (previous != null) {
+				segment.weight -= previous.weight;
+			}
+			segment.weight += entry.weight;
+			
+			// Evict the least recently used translations until the segment is back under its limits
+			Iterator<Entry> iterator = segment.values().iterator();
+			while (segment.size() > 1 && (segment.size() > segment.maxSize || segment.weight > segment.maxWeight)) {
+				segment.weight -= iterator.next().weight;
+				iterator.remove();
+				segment.evictions++;
+			}
+		}
+	}
+	
+	/**
+	 * Removes every cached translation. The hit, miss and eviction counts are kept.
+	 */
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+				segment.weight = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the maximum number of cached messages.
+	 *
+	 * @return The maximum number of cached messages.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+	
+	/**
+	 * Gets the number of cached messages.
+	 *
+	 * @return The number of cached messages.
+	 */
+	public int getSize() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Gets how many times a translation was found in the cache.
+	 *
+	 * @return The number of cache hits.
+	 */
+	public long getHits() {
+		long hits = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				hits += segment.hits;
+			}
+		}
+		return hits;
+	}
+	
+	/**
+	 * Gets how many times a translation wasn't found in the cache.
+	 *
+	 * @return The number of cache misses.
+	 */
+	public long getMisses() {
+		long misses = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				misses += segment.misses;
+			}
+		}
+		return misses;
+	}
+	
+	/**
+	 * Gets how many translations were removed to make room for new ones.
+	 *
+	 * @return The number of cache evictions.
+	 */
+	public long getEvictions() {
+		long evictions = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				evictions += segment.evictions;
+			}
+		}
+		return evictions;
+	}
+	
+	/**
+	 * Gets the segment the specified message is cached in.
+	 *
+	 * @param message The message.
+	 * @return The segment for the message.
+	 */
+	private Segment getSegment(String message) {
+		int hash = message.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+	}
+	
+	/**
+	 * A cached translation.
+	 */
+	static class Entry {
+		/**
+		 * The {@link EmojiIndex} the message was translated with.
+		 */
+		private final EmojiIndex index;
+		/**
+		 * The translated message, the original message if nothing was translated, or null if it contains a disabled emoji character.
+		 */
+		private final String translated;
+		/**
+		 * If nothing in the message was translated.
+		 */
+		private final boolean unchanged;
+		/**
+		 * The number of emojis used in the message.
+		 */
+		private final int emojisUsed;
+		/**
+		 * The number of shortcuts used in the message.
+		 */
+		private final int shortcutsUsed;
+		/**
+		 * The number of escapes used in the message.
+		 */
+		private final int escapesUsed;
+		/**
+		 * The glyph offsets of the emojis used in the message, in order.
+		 */
+		private final int[] glyphs;
+		/**
+		 * The number of characters this entry keeps in memory.
+		 */
+		private final int weight;
+		
+		/**
+		 * Creates a cached translation.
+		 *
+		 * @param index The {@link EmojiIndex} the message was translated with.
+		 * @param message The original message.
+		 * @param translated The translated message, the original message if nothing was translated, or null if it contains a disabled emoji character.
+		 * @param emojisUsed The number of emojis used in the message.
+		 * @param shortcutsUsed The number of shortcuts used in the message.
+		 * @param escapesUsed The number of escapes used in the message.
+		 * @param glyphs The glyph offsets of the emojis used in the message, in order.
+		 */
+		Entry(EmojiIndex index, String message, String translated, int emojisUsed, int shortcutsUsed, int escapesUsed, int[] glyphs) {
+			this.index = index;
+			this.translated = translated;
+			this.unchanged = translated == message;
+			this.emojisUsed = emojisUsed;
+			this.shortcutsUsed = shortcutsUsed;
+			this.escapesUsed = escapesUsed;
+			this.glyphs = glyphs;
+			this.weight = message.length() + (translated == null || unchanged ? 0 : translated.length());
+		}
+		
+		/**
+		 * Gets the translated message.
+		 *
+		 * @param message The original message, returned if nothing was translated.
+		 * @return The translated message, or null if it contains a disabled emoji character.
+		 */
+		String getTranslated(String message) {
+			return unchanged ? message : translated;
+		}
+		
+		/**
+		 * Gets the number of emojis used in the message.
+		 *
+		 * @return The number of emojis used.
+		 */
+		int getEmojisUsed() {
+			return emojisUsed;
+		}
+		
+		/**
+		 * Gets the number of shortcuts used in the message.
+		 *
+		 * @return The number of shortcuts used.
+		 */
+		int getShortcutsUsed() {
+			return shortcutsUsed;
+		}
+		
+		/**
+		 * Gets the number of escapes used in the message.
+		 *
+		 * @return The number of escapes used.
+		 */
+		int getEscapesUsed() {
+			return escapesUsed;
+		}
+		
+		/**
+		 * Gets the glyph offsets of the emojis used in the message. The array must not be modified.
+		 *
+		 * @return The glyph offsets, in order.
+		 */
+		int[] getGlyphs() {
+			return glyphs;
+		}
+	}
+	
+	/**
+	 * A cache key: the message and the {@link TranslationContext} it's translated for.
+	 */
+	private static class Key {
+		/**
+		 * The message.
+		 */
+		private final String message;
+		/**
+		 * The {@link TranslationContext} the message is translated for.
+		 */
+		private final TranslationContext context;
+		
+		/**
+		 * Creates a cache key.
+		 *
+		 * @param message The message.
+		 * @param context The {@link TranslationContext} the message is translated for.
+		 */
+		private Key(String message, TranslationContext context) {
+			this.message = message;
+			this.context = context;
+		}
+		
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key && ((Key) other).context == context && ((Key) other).message.equals(message);
+		}
+		
+		@Override
+		public int hashCode() {
+			return message.hashCode() * 31 + System.identityHashCode(context);
+		}
+	}
+	
+	/**
+	 * One separately locked part of the cache, kept in least to most recently used order.
+	 */
+	private static class Segment extends LinkedHashMap<Key, Entry> {
+		/**
+		 * The serialization version, segments are never serialized but LinkedHashMap is Serializable.
+		 */
+		private static final long serialVersionUID = 1L;
+		/**
+		 * The maximum number of cached messages in this segment.
+		 */
+		private final int maxSize;
+		/**
+		 * The maximum number of characters cached in this segment.
+		 */
+		private final int maxWeight;
+		/**
+		 * The number of characters cached in this segment.
+		 */
+		private int weight;
+		/**
+		 * The number of cache hits in this segment.
+		 */
+		private long hits;
+		/**
+		 * The number of cache misses in this segment.
+		 */
+		private long misses;
+		/**
+		 * The number of cache evictions in this segment.
+		 */
+		private long evictions;
+		
+		/**
+		 * Creates a cache segment.
+		 *
+		 * @param maxSize The maximum number of cached messages in this segment.
+		 * @param maxWeight The maximum number of characters cached in this segment.
+		 */
+		private Segment(int maxSize, int maxWeight) {
+			super(16, 0.75F, true); // Access order, so the first entry is the least recently used
+			this.maxSize = maxSize;
+			this.maxWeight = maxWeight;
+		}
+	}
+}
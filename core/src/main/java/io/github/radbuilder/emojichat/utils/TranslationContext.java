@@ -0,0 +1,72 @@
+package io.github.radbuilder.emojichat.utils;
+
+/**
+ * How a message should be translated: which {@link EmojiSurface} it's for, and if shortcuts should be translated.
+ * <p>
+ * There's only one context per combination, so getting one with {@link #of(EmojiSurface, boolean)} doesn't create anything.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class TranslationContext {
+	/**
+	 * Every context, indexed by surface ordinal * 2, plus 1 if shortcuts are used.
+	 */
+	private static final TranslationContext[] CONTEXTS = new TranslationContext[EmojiSurface.values().length * 2];
+	/**
+	 * The {@link EmojiSurface} the message is for.
+	 */
+	private final EmojiSurface surface;
+	/**
+	 * If shortcuts should be translated.
+	 */
+	private final boolean useShortcuts;
+	
+	static {
+		for (EmojiSurface surface : EmojiSurface.values()) {
+			CONTEXTS[surface.ordinal() * 2] = new TranslationContext(surface, false);
+			CONTEXTS[surface.ordinal() * 2 + 1] = new TranslationContext(surface, true);
+		}
+	}
+	
+	/**
+	 * Creates a translation context.
+	 *
+	 * @param surface The {@link EmojiSurface} the message is for.
+	 * @param useShortcuts If shortcuts should be translated.
+	 */
+	private TranslationContext(EmojiSurface surface, boolean useShortcuts) {
+		this.surface = surface;
+		this.useShortcuts = useShortcuts;
+	}
+	
+	/**
+	 * Gets the translation context for the specified surface.
+	 *
+	 * @param surface The {@link EmojiSurface} the message is for.
+	 * @param useShortcuts If shortcuts should be translated.
+	 * @return The translation context.
+	 */
+	public static TranslationContext of(EmojiSurface surface, boolean useShortcuts) {
+		return CONTEXTS[surface.ordinal() * 2 + (useShortcuts ? 1 : 0)];
+	}
+	
+	/**
+	 * Gets the {@link EmojiSurface} the message is for.
+	 *
+	 * @return The {@link EmojiSurface} the message is for.
+	 */
+	public EmojiSurface getSurface() {
+		return surface;
+	}
+	
+	/**
+	 * If shortcuts should be translated.
+	 *
+	 * @return True if shortcuts should be translated, false otherwise.
+	 */
+	public boolean useShortcuts() {
+		return useShortcuts;
+	}
+}
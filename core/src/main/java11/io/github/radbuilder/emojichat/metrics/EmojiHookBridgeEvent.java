@@ -0,0 +1,40 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for a message passed between Minecraft and another plugin through a hook.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@Name("io.github.radbuilder.emojichat.EmojiHookBridge")
+@Label("Emoji Hook Bridge")
+@Category("EmojiChat")
+@Description("A message EmojiChat passed between Minecraft and another plugin")
+class EmojiHookBridgeEvent extends jdk.jfr.Event {
+	/**
+	 * The name of the hook.
+	 */
+	@Label("Hook")
+	String hook;
+	/**
+	 * The surface the message came from.
+	 */
+	@Label("Surface")
+	String surface;
+	/**
+	 * If the message is going to Minecraft, rather than from it.
+	 */
+	@Label("To Minecraft")
+	boolean toMinecraft;
+	/**
+	 * The length of the message before it was converted.
+	 */
+	@Label("Message Length")
+	int messageLength;
+}
@@ -0,0 +1,35 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for a config and emoji data reload.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@Name("io.github.radbuilder.emojichat.EmojiReload")
+@Label("Emoji Reload")
+@Category("EmojiChat")
+@Description("An EmojiChat config and emoji data reload")
+class EmojiReloadEvent extends jdk.jfr.Event {
+	/**
+	 * The number of enabled emojis after the reload.
+	 */
+	@Label("Emojis")
+	int emojis;
+	/**
+	 * The number of shortcuts after the reload.
+	 */
+	@Label("Shortcuts")
+	int shortcuts;
+	/**
+	 * The number of emoji data changes, or -1 if the reload failed.
+	 */
+	@Label("Changes")
+	int changes;
+}
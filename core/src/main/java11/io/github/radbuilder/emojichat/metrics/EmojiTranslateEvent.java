@@ -0,0 +1,35 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for a translated message.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@Name("io.github.radbuilder.emojichat.EmojiTranslate")
+@Label("Emoji Translate")
+@Category("EmojiChat")
+@Description("A message translated by EmojiChat")
+class EmojiTranslateEvent extends jdk.jfr.Event {
+	/**
+	 * The surface the message was translated for.
+	 */
+	@Label("Surface")
+	String surface;
+	/**
+	 * The length of the message.
+	 */
+	@Label("Message Length")
+	int messageLength;
+	/**
+	 * The number of emojis (from shortcodes or shortcuts) and escapes translated.
+	 */
+	@Label("Matches")
+	int matches;
+}
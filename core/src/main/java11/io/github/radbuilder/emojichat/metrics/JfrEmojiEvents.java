@@ -0,0 +1,153 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Emits EmojiChat's Java Flight Recorder events. Loaded by {@link EmojiEvents#create()} on Java 11 and above.
+ * <p>
+ * Events are only created while a recording is running, which is tracked with a {@link FlightRecorderListener}, so
+ * without a recording this costs the same as {@link EmojiEvents}. Each event is begun and ended with JFR's own
+ * timestamps, so its duration is the event's built-in duration, and it's only committed if it's enabled in the recording.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class JfrEmojiEvents extends EmojiEvents {
+	/**
+	 * If a JFR recording is running.
+	 */
+	private volatile boolean recording;
+	
+	/**
+	 * Creates the JFR events emitter, which starts watching for recordings.
+	 */
+	public JfrEmojiEvents() {
+		FlightRecorder.addListener(new FlightRecorderListener() {
+			@Override
+			public void recorderInitialized(FlightRecorder recorder) { // Also called straight away if JFR was already started
+				updateRecording(recorder);
+			}
+			
+			@Override
+			public void recordingStateChanged(Recording changed) {
+				updateRecording(FlightRecorder.getFlightRecorder());
+			}
+		});
+	}
+	
+	/**
+	 * Checks if any recording is running.
+	 *
+	 * @param recorder The flight recorder.
+	 */
+	private void updateRecording(FlightRecorder recorder) {
+		boolean running = false;
+		for (Recording existing : recorder.getRecordings()) {
+			if (existing.getState() == RecordingState.RUNNING) {
+				running = true;
+				break;
+			}
+		}
+		recording = running;
+	}
+	
+	@Override
+	public Object startTranslate() {
+		return recording ? begin(new EmojiTranslateEvent()) : null;
+	}
+	
+	@Override
+	public void translate(EmojiSurface surface, int messageLength, int matches, Object started) {
+		if (started == null) {
+			return;
+		}
+		EmojiTranslateEvent event = (EmojiTranslateEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.surface = surface.name();
+			event.messageLength = messageLength;
+			event.matches = matches;
+			event.commit();
+		}
+	}
+	
+	@Override
+	public Object startReload() {
+		return recording ? begin(new EmojiReloadEvent()) : null;
+	}
+	
+	@Override
+	public void reload(int emojis, int shortcuts, int changes, Object started) {
+		if (started == null) {
+			return;
+		}
+		EmojiReloadEvent event = (EmojiReloadEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.emojis = emojis;
+			event.shortcuts = shortcuts;
+			event.changes = changes;
+			event.commit();
+		}
+	}
+	
+	@Override
+	public Object startHookBridge() {
+		return recording ? begin(new EmojiHookBridgeEvent()) : null;
+	}
+	
+	@Override
+	public void hookBridge(String hook, EmojiSurface surface, boolean toMinecraft, int messageLength, Object started) {
+		if (started == null) {
+			return;
+		}
+		EmojiHookBridgeEvent event = (EmojiHookBridgeEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.hook = hook;
+			event.surface = surface.name();
+			event.toMinecraft = toMinecraft;
+			event.messageLength = messageLength;
+			event.commit();
+		}
+	}
+	
+	@Override
+	public Object startResourcePackSend() {
+		return recording ? begin(new ResourcePackSendEvent()) : null;
+	}
+	
+	@Override
+	public void resourcePackSend(String player, String reason, Object started) {
+		if (started == null) {
+			return;
+		}
+		ResourcePackSendEvent event = (ResourcePackSendEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.player = player;
+			event.reason = reason;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Begins the specified event if it's enabled in the recording, so JFR times it.
+	 *
+	 * @param event The event to begin.
+	 * @return The event, or null if it isn't enabled.
+	 */
+	private static Event begin(Event event) {
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+}
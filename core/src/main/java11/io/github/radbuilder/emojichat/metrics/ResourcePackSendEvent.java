@@ -0,0 +1,30 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JFR event for the resource pack being sent to a player.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+@Name("io.github.radbuilder.emojichat.ResourcePackSend")
+@Label("Resource Pack Send")
+@Category("EmojiChat")
+@Description("The EmojiChat resource pack being sent to a player")
+class ResourcePackSendEvent extends jdk.jfr.Event {
+	/**
+	 * The name of the player.
+	 */
+	@Label("Player")
+	String player;
+	/**
+	 * Why the pack was sent, i.e. "join" or "command".
+	 */
+	@Label("Reason")
+	String reason;
+}
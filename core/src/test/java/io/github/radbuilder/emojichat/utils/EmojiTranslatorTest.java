@@ -0,0 +1,158 @@
+package io.github.radbuilder.emojichat.utils;
+
+import io.github.radbuilder.emojichat.metrics.EmojiStats;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the {@link EmojiTranslator} on the cases where one pass translates differently than replacing one shortcut at
+ * a time: overlapping shortcuts, escapes, color codes, links and verbatim regions.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiTranslatorTest {
+	/**
+	 * Where the translator counts what it translated.
+	 */
+	private EmojiStats stats;
+	/**
+	 * The translator, with the shortcuts from {@link #getShortcuts()} and ` as the verbatim region marker.
+	 */
+	private EmojiTranslator translator;
+	
+	/**
+	 * Loads the translator with the shortcuts from {@link #getShortcuts()}, without fix-emoji-coloring or the cache.
+	 */
+	@Before
+	public void setUp() {
+		stats = new EmojiStats();
+		translator = new EmojiTranslator(stats, null, Logger.getLogger("EmojiTranslatorTest"));
+		translator.load(EmojiPackVariant.CHINESE, getShortcuts(), Collections.emptyList(), Collections.singletonMap("`", "`"), false, 0);
+	}
+	
+	/**
+	 * Gets the shortcuts to test with, which are some of the default ones.
+	 *
+	 * @return The shortcuts, mapped to their emoji shortcodes.
+	 */
+	private static Map<String, String> getShortcuts() {
+		Map<String, String> shortcuts = new HashMap<>();
+		shortcuts.put("<3", ":heart:");
+		shortcuts.put("</3", ":broken_heart:");
+		shortcuts.put(":)", ":grinning:");
+		shortcuts.put("8)", ":sunglasses:");
+		shortcuts.put(":P", ":yum:");
+		shortcuts.put(":/", ":confused:");
+		return shortcuts;
+	}
+	
+	/**
+	 * Gets the emoji character for the specified shortcode.
+	 *
+	 * @param shortcode The shortcode, i.e. :heart:
+	 * @return The emoji character, as a string.
+	 */
+	private String emoji(String shortcode) {
+		return translator.getEmojis().get(shortcode).toString();
+	}
+	
+	/**
+	 * &lt;/3 is the broken heart, not &lt; followed by /3, and &lt;3 next to it is still the heart.
+	 */
+	@Test
+	public void brokenHeartIsNotAHeart() {
+		assertEquals(emoji(":broken_heart:") + " " + emoji(":heart:"), translator.translate("</3 <3", EmojiSurface.CHAT, true));
+		assertEquals(2L, stats.getShortcutsUsed().get(EmojiSurface.CHAT));
+		assertEquals(2L, stats.getEmojisUsed().get(EmojiSurface.CHAT));
+		assertEquals(emoji(":heart:") + emoji(":broken_heart:"), translator.translate("<3</3", EmojiSurface.CHAT, true));
+		assertEquals(":broken_heart: :heart:", translator.translateShorthand("</3 <3"));
+	}
+	
+	/**
+	 * A shortcut escaped with a backslash is kept as text without the backslash, and counted as an escape.
+	 */
+	@Test
+	public void escapedShortcutIsKept() {
+		assertEquals(":) " + emoji(":grinning:"), translator.translate("\\:) :)", EmojiSurface.CHAT, true));
+		assertEquals(1L, stats.getEscapesUsed().get(EmojiSurface.CHAT));
+		assertEquals(1L, stats.getShortcutsUsed().get(EmojiSurface.CHAT));
+		assertEquals(":) :grinning:", translator.translateShorthand("\\:) :)"));
+	}
+	
+	/**
+	 * A backslash that's part of a shortcut doesn't escape the shortcut right after it.
+	 */
+	@Test
+	public void backslashInShortcutDoesNotEscape() {
+		Map<String, String> shortcuts = getShortcuts();
+		shortcuts.put(":\\", ":confused:");
+		translator.load(EmojiPackVariant.CHINESE, shortcuts, Collections.emptyList(), Collections.emptyMap(), false, 0);
+		assertEquals(emoji(":confused:") + emoji(":grinning:"), translator.translate(":\\:)", EmojiSurface.CHAT, true));
+		assertEquals(0L, stats.getEscapesUsed().get(EmojiSurface.CHAT));
+	}
+	
+	/**
+	 * Color codes are copied as-is, so &amp;8) is a color code followed by ), not &amp; followed by the 8) shortcut.
+	 * A shortcut right after a color code is still translated.
+	 */
+	@Test
+	public void colorCodeIsNotAShortcut() {
+		assertEquals("&8) " + emoji(":sunglasses:"), translator.translate("&8) 8)", EmojiSurface.CHAT, true));
+		assertEquals("§a" + emoji(":sunglasses:"), translator.translate("§a8)", EmojiSurface.CHAT, true)); // The color code ends before 8)
+		assertEquals("&8) :sunglasses:", translator.translateShorthand("&8) 8)"));
+	}
+	
+	/**
+	 * Links are copied as-is up to the next whitespace, and what's after them is still translated.
+	 */
+	@Test
+	public void linkIsCopied() {
+		assertEquals("https://example.com/:P:/ " + emoji(":yum:"), translator.translate("https://example.com/:P:/ :P", EmojiSurface.CHAT, true));
+		assertEquals("http://example.com/:heart: " + emoji(":heart:"), translator.translate("http://example.com/:heart: :heart:", EmojiSurface.CHAT, false));
+		assertEquals("https://example.com/:P :yum:", translator.translateShorthand("https://example.com/:P :P"));
+	}
+	
+	/**
+	 * Verbatim regions are copied as-is, and a start marker without an end marker only protects itself.
+	 */
+	@Test
+	public void verbatimRegionIsCopied() {
+		assertEquals("`:) :heart:` " + emoji(":grinning:"), translator.translate("`:) :heart:` :)", EmojiSurface.CHAT, true));
+		assertEquals("`" + emoji(":grinning:"), translator.translate("`:)", EmojiSurface.CHAT, true));
+	}
+	
+	/**
+	 * A message with a disabled emoji character is blocked without counting anything, and a shortcut for a disabled
+	 * emoji becomes its shortcode.
+	 */
+	@Test
+	public void disabledEmojiIsBlocked() {
+		String heart = emoji(":heart:");
+		translator.load(EmojiPackVariant.CHINESE, getShortcuts(), Collections.singletonList(":heart:"), Collections.emptyMap(), false, 0);
+		assertNull(translator.translate(":) " + heart, EmojiSurface.CHAT, true));
+		assertNull(translator.translate("https://example.com/" + heart, EmojiSurface.CHAT, true));
+		assertEquals(0L, stats.getShortcutsUsed().get(EmojiSurface.CHAT));
+		assertEquals(":heart: " + emoji(":grinning:"), translator.translate("<3 :)", EmojiSurface.CHAT, true));
+	}
+	
+	/**
+	 * A message without anything to translate is returned as-is, even if it has a link or a color code.
+	 */
+	@Test
+	public void nothingToTranslate() {
+		String message = "&ahello https://example.com/";
+		assertSame(message, translator.translate(message, EmojiSurface.CHAT, true));
+		assertSame(message, translator.translateShorthand(message));
+	}
+}
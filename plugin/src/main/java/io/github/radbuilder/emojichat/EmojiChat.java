@@ -1,14 +1,25 @@
 package io.github.radbuilder.emojichat;
 
 import io.github.radbuilder.emojichat.hooks.*;
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
 import io.github.radbuilder.emojichat.metrics.MetricsHandler;
+import io.github.radbuilder.emojichat.metrics.OpenMetricsExporter;
 import io.github.radbuilder.emojichat.utils.EmojiChatConfigUpdater;
+import io.github.radbuilder.emojichat.utils.EmojiChatSettings;
 import io.github.radbuilder.emojichat.utils.EmojiChatUpdateChecker;
 import io.github.radbuilder.emojichat.utils.EmojiHandler;
+import io.github.radbuilder.emojichat.utils.PermissionCache;
 import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.PluginDescriptionFile;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,7 +27,7 @@ import java.util.List;
  * EmojiChat main class.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.0
  */
 public class EmojiChat extends JavaPlugin {
@@ -24,6 +35,14 @@ public class EmojiChat extends JavaPlugin {
 	 * The emoji handler that stores emoji data.
 	 */
 	private EmojiHandler emojiHandler;
+	/**
+	 * The config values used while handling events, replaced on every reload.
+	 */
+	private volatile EmojiChatSettings settings;
+	/**
+	 * Held while reloading, so the config, the emoji data and the {@link #settings} always come from the same config.yml.
+	 */
+	private final Object reloadLock = new Object();
 	/**
 	 * The EmojiChat GUI.
 	 */
@@ -40,6 +59,44 @@ public class EmojiChat extends JavaPlugin {
 	 * The metrics data handler.
 	 */
 	private MetricsHandler metricsHandler;
+	/**
+	 * The snapshots of each online player's EmojiChat permissions.
+	 */
+	private PermissionCache permissionCache;
+	/**
+	 * The config.yml watcher, or null if auto-reload-config is disabled.
+	 */
+	private EmojiChatConfigWatcher configWatcher;
+	/**
+	 * The metrics endpoint, or null if metrics-endpoint is disabled.
+	 */
+	private OpenMetricsExporter metricsExporter;
+	/**
+	 * The task that saves changed player settings every 5 seconds.
+	 */
+	private BukkitTask playerSettingsTask;
+	/**
+	 * The task that saves a snapshot of the emoji usage histogram every 10 minutes.
+	 */
+	private BukkitTask emojiUsageTask;
+	
+	/**
+	 * Creates EmojiChat, which is done by the server when loading the plugin.
+	 */
+	public EmojiChat() {
+	}
+	
+	/**
+	 * Creates EmojiChat outside of a server, i.e. for the benchmarks. Can't be used while a server is running.
+	 *
+	 * @param loader The plugin loader.
+	 * @param description The plugin.yml contents.
+	 * @param dataFolder The folder the config and player settings are kept in.
+	 * @param file The plugin jar.
+	 */
+	protected EmojiChat(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+		super(loader, description, dataFolder, file);
+	}
 	
 	@Override
 	public void onEnable() {
@@ -50,17 +107,34 @@ public class EmojiChat extends JavaPlugin {
 		}
 		
 		enabledHooks = new ArrayList<>();
+		metricsHandler = new MetricsHandler(this); // Creates the metrics handler for metrics gathering, which the emoji handler counts into
 		emojiChatGui = new EmojiChatGui(this);
 		updateChecker = new EmojiChatUpdateChecker(this);
 		emojiHandler = new EmojiHandler(this);
+		settings = new EmojiChatSettings(getConfig(), emojiHandler.getPackVariant());
+		permissionCache = new PermissionCache();
 		
 		loadHooks(); // Load plugin hooks
 		
-		metricsHandler = new MetricsHandler(this); // Creates the metrics handler for metrics gathering
+		// Carry on counting emoji usage from the last snapshot, and save a new snapshot every 10 minutes
+		try {
+			metricsHandler.getEmojiUsage().load(new File(getDataFolder(), "emoji-usage.txt"), emojiHandler.getListedShortcodes());
+		} catch (IOException e) {
+			getLogger().warning("Couldn't load emoji-usage.txt, starting the emoji usage counts from 0: " + e.getMessage());
+		}
+		emojiUsageTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, this::saveEmojiUsage, 20L * 600L, 20L * 600L);
 		
 		// Register the chat listener
 		Bukkit.getPluginManager().registerEvents(new EmojiChatListener(this), this);
 		
+		// Load the permissions and settings of players who are already online (i.e. after a plugin reload), and save changed settings in batches
+		for (Player player : Bukkit.getOnlinePlayers()) {
+			permissionCache.refresh(player);
+			long generation = emojiHandler.getPlayerSettings().startLoading(player.getUniqueId());
+			Bukkit.getScheduler().runTaskAsynchronously(this, () -> emojiHandler.getPlayerSettings().load(player.getUniqueId(), generation));
+		}
+		playerSettingsTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, emojiHandler.getPlayerSettings()::flush, 20L * 5L, 20L * 5L);
+		
 		// Register the "emojichat" and "ec" commands
 		EmojiChatCommand emojiChatCommand = new EmojiChatCommand(this);
 		EmojiChatTabComplete emojiChatTabComplete = new EmojiChatTabComplete();
@@ -68,6 +142,9 @@ public class EmojiChat extends JavaPlugin {
 		getCommand("emojichat").setTabCompleter(emojiChatTabComplete);
 		getCommand("ec").setExecutor(emojiChatCommand);
 		getCommand("ec").setTabCompleter(emojiChatTabComplete);
+		
+		updateConfigWatcher(); // Watch config.yml if auto-reload-config is enabled
+		updateMetricsExporter(); // Serve the metrics endpoint if metrics-endpoint is enabled
 	}
 	
 	@Override
@@ -76,10 +153,109 @@ public class EmojiChat extends JavaPlugin {
 			hook.disable();
 		}
 		enabledHooks.clear();
-		emojiHandler.disable();
+		if (configWatcher != null) {
+			configWatcher.stop();
+			configWatcher = null;
+		}
+		if (metricsExporter != null) {
+			metricsExporter.stop();
+			metricsExporter = null;
+		}
+		playerSettingsTask.cancel();
+		emojiUsageTask.cancel();
+		saveEmojiUsage();
+		emojiHandler.disable(); // Also saves the player settings that changed since the last batch
 		updateChecker.cancelUpdateTask();
 	}
 	
+	/**
+	 * Saves a snapshot of the emoji usage histogram to emoji-usage.txt.
+	 */
+	private void saveEmojiUsage() {
+		try {
+			metricsHandler.getEmojiUsage().save(new File(getDataFolder(), "emoji-usage.txt"), emojiHandler.getListedShortcodes());
+		} catch (IOException e) {
+			getLogger().warning("Couldn't save emoji-usage.txt: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Reloads the config and the emoji data on an async worker, so the main thread never waits for it. The new emoji data
+	 * is swapped in once it's built, and reloads (from /emojichat reload and the config watcher) run one at a time, so the
+	 * settings published last are always from the config loaded last.
+	 *
+	 * @param sender Who to tell when the reload is done.
+	 */
+	void reload(CommandSender sender) {
+		Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
+			EmojiEvents events = metricsHandler.getEvents();
+			Object timedEvent = events.startReload();
+			List<String> changes;
+			try {
+				synchronized (reloadLock) {
+					reloadConfig();
+					changes = emojiHandler.load(this);
+					settings = new EmojiChatSettings(getConfig(), emojiHandler.getPackVariant());
+					metricsHandler.getLatency().setEnabled(settings.latencyStats());
+				}
+				events.reload(emojiHandler.getEmojis().size(), emojiHandler.getShortcuts().size(), changes.size(), timedEvent);
+			} catch (Exception e) {
+				events.reload(emojiHandler.getEmojis().size(), emojiHandler.getShortcuts().size(), -1, timedEvent);
+				getLogger().warning("An error occured while reloading. More info below.");
+				e.printStackTrace();
+				Bukkit.getScheduler().runTask(this, () -> sender.sendMessage(ChatColor.RED + "Oops, EmojiChat couldn't reload. Check the console for more info."));
+				return;
+			}
+			
+			Bukkit.getScheduler().runTask(this, () -> {
+				updateConfigWatcher();
+				updateMetricsExporter();
+				if (changes.isEmpty()) {
+					sender.sendMessage(ChatColor.GREEN + "EmojiChat config reloaded, no emoji changes.");
+				} else {
+					sender.sendMessage(ChatColor.GREEN + "EmojiChat config reloaded, changed: " + ChatColor.AQUA + String.join(", ", changes) + ChatColor.GREEN + ".");
+				}
+			});
+		});
+	}
+	
+	/**
+	 * Starts or stops the {@link #configWatcher}, depending on auto-reload-config.
+	 */
+	private void updateConfigWatcher() {
+		boolean autoReload = settings.autoReloadConfig();
+		if (autoReload && configWatcher == null) {
+			try {
+				configWatcher = new EmojiChatConfigWatcher(this);
+			} catch (IOException e) {
+				getLogger().warning("Couldn't watch config.yml for changes, use /emojichat reload instead: " + e.getMessage());
+			}
+		} else if (!autoReload && configWatcher != null) {
+			configWatcher.stop();
+			configWatcher = null;
+		}
+	}
+	
+	/**
+	 * Starts, restarts or stops the {@link #metricsExporter}, depending on metrics-endpoint and metrics-endpoint-port.
+	 */
+	private void updateMetricsExporter() {
+		boolean serve = settings.metricsEndpoint();
+		int port = settings.getMetricsEndpointPort();
+		if (metricsExporter != null && (!serve || metricsExporter.getPort() != port)) {
+			metricsExporter.stop();
+			metricsExporter = null;
+		}
+		if (serve && metricsExporter == null) {
+			try {
+				metricsExporter = new OpenMetricsExporter(this, port);
+				getLogger().info("Serving metrics at http://127.0.0.1:" + port + "/metrics");
+			} catch (IOException e) {
+				getLogger().warning("Couldn't serve metrics on port " + port + ", change metrics-endpoint-port: " + e.getMessage());
+			}
+		}
+	}
+	
 	/**
 	 * Hooks into available plugins.
 	 */
@@ -121,6 +297,24 @@ public class EmojiChat extends JavaPlugin {
 		return metricsHandler;
 	}
 	
+	/**
+	 * Gets the {@link #permissionCache}.
+	 *
+	 * @return The {@link #permissionCache}.
+	 */
+	public PermissionCache getPermissionCache() {
+		return permissionCache;
+	}
+	
+	/**
+	 * Gets the {@link #settings}.
+	 *
+	 * @return The current {@link EmojiChatSettings}.
+	 */
+	public EmojiChatSettings getSettings() {
+		return settings;
+	}
+	
 	/**
 	 * Gets the emoji handler.
 	 *
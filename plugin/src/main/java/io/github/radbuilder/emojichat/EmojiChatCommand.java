@@ -1,16 +1,27 @@
 package io.github.radbuilder.emojichat;
 
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
+import io.github.radbuilder.emojichat.metrics.EmojiUsageHistogram;
+import io.github.radbuilder.emojichat.metrics.LatencyHistogram;
+import io.github.radbuilder.emojichat.metrics.LatencyRecorder;
+import io.github.radbuilder.emojichat.metrics.LatencyStage;
+import io.github.radbuilder.emojichat.metrics.MetricsHandler;
+import io.github.radbuilder.emojichat.utils.EmojiIndex;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.TranslationCache;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.Map;
+
 /**
  * EmojiChat command class.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.0
  */
 class EmojiChatCommand implements CommandExecutor {
@@ -50,6 +61,8 @@ class EmojiChatCommand implements CommandExecutor {
 				sender.sendMessage(ChatColor.GREEN + "/emojichat reload: " + ChatColor.AQUA + "Reloads the EmojiChat config.");
 				sender.sendMessage(ChatColor.GREEN + "/emojichat toggle: " + ChatColor.AQUA + "Toggles emoji shortcuts on or off.");
 				sender.sendMessage(ChatColor.GREEN + "/emojichat list: " + ChatColor.AQUA + "Lists all of the enabled emojis.");
+				sender.sendMessage(ChatColor.GREEN + "/emojichat stats [top [n]]: " + ChatColor.AQUA + "Shows emoji usage and latency, or the n most used emojis.");
+				sender.sendMessage(ChatColor.GREEN + "/emojichat stats <on|off|reset>: " + ChatColor.AQUA + "Turns latency timing on or off, or resets it.");
 				return true;
 			case "resourcepack":
 				if (!sender.hasPermission("emojichat.see")) {
@@ -58,7 +71,11 @@ class EmojiChatCommand implements CommandExecutor {
 				}
 				
 				if (sender instanceof Player) {
-					((Player) sender).setResourcePack(plugin.getEmojiHandler().getPackVariant().getUrl(plugin.getConfig().getString("pack-quality")));
+					EmojiEvents events = plugin.getMetricsHandler().getEvents();
+					Object timedEvent = events.startResourcePackSend();
+					((Player) sender).setResourcePack(plugin.getSettings().getPackUrl());
+					events.resourcePackSend(sender.getName(), "command", timedEvent);
+					plugin.getMetricsHandler().addResourcePackSent(((Player) sender).getUniqueId());
 					sender.sendMessage(ChatColor.GREEN + "Sent the EmojiChat ResourcePack.");
 					sender.sendMessage(ChatColor.AQUA + "If you still can't see emojis, make sure the settings for this server (on the server list) have the resource pack option set to prompt or enabled.");
 				}
@@ -69,9 +86,8 @@ class EmojiChatCommand implements CommandExecutor {
 					return true;
 				}
 				
-				plugin.reloadConfig();
-				plugin.getEmojiHandler().load(plugin);
-				sender.sendMessage(ChatColor.GREEN + "EmojiChat config reloaded.");
+				sender.sendMessage(ChatColor.AQUA + "Reloading the EmojiChat config...");
+				plugin.reload(sender);
 				return true;
 			case "toggle":
 				if (!sender.hasPermission("emojichat.toggle")) {
@@ -93,16 +109,106 @@ class EmojiChatCommand implements CommandExecutor {
 				}
 				if (!(sender instanceof Player)) { // Send chat version if the sender isn't a player
 					sender.sendMessage(ChatColor.AQUA + "---------- EmojiChat List ----------");
-					for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-						sender.sendMessage(ChatColor.AQUA + key + " " + ChatColor.RESET + plugin.getEmojiHandler().getEmojis().get(key));
+					Map<String, Character> emojis = plugin.getEmojiHandler().getEmojis();
+					for (String key : emojis.keySet()) {
+						sender.sendMessage(ChatColor.AQUA + key + " " + ChatColor.RESET + emojis.get(key));
 					}
 				} else { // Send GUI version
 					((Player) sender).openInventory(plugin.emojiChatGui.getInventory(0));
 				}
 				return true;
+			case "stats":
+				if (!sender.hasPermission("emojichat.stats")) {
+					sender.sendMessage(ChatColor.RED + "You need " + ChatColor.GOLD + "emojichat.stats" + ChatColor.RED + " to use this command.");
+					return true;
+				}
+				
+				MetricsHandler metricsHandler = plugin.getMetricsHandler();
+				LatencyRecorder latency = metricsHandler.getLatency();
+				if (args.length > 1 && (args[1].equalsIgnoreCase("on") || args[1].equalsIgnoreCase("off"))) {
+					latency.setEnabled(args[1].equalsIgnoreCase("on"));
+					sender.sendMessage(ChatColor.AQUA + "Latency timing is now " + (latency.isEnabled() ? ChatColor.GREEN + "enabled" : ChatColor.RED + "disabled")
+							+ ChatColor.AQUA + " until the next reload.");
+					return true;
+				}
+				if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+					latency.reset();
+					sender.sendMessage(ChatColor.GREEN + "Reset the latency stats.");
+					return true;
+				}
+				if (args.length > 1 && args[1].equalsIgnoreCase("top")) {
+					int limit = 10;
+					if (args.length > 2) {
+						try {
+							limit = Math.max(1, Math.min(50, Integer.parseInt(args[2])));
+						} catch (NumberFormatException e) {
+							sender.sendMessage(ChatColor.RED + "'" + args[2] + "' isn't a number. Use " + ChatColor.GOLD + "/emojichat stats top [n]" + ChatColor.RED + ".");
+							return true;
+						}
+					}
+					
+					EmojiIndex index = plugin.getEmojiHandler().getIndex();
+					EmojiUsageHistogram emojiUsage = metricsHandler.getEmojiUsage();
+					int[] top = emojiUsage.getTop(limit, index);
+					sender.sendMessage(ChatColor.AQUA + "---------- EmojiChat Top " + limit + " ----------");
+					if (top.length == 0) {
+						sender.sendMessage(ChatColor.AQUA + "No emojis have been used yet.");
+					}
+					for (int rank = 0; rank < top.length; rank++) {
+						char emoji = index.getGlyphCharacter(top[rank]);
+						sender.sendMessage(ChatColor.GREEN + "#" + (rank + 1) + " " + ChatColor.RESET + emoji + " " + ChatColor.AQUA
+								+ index.getShortcode(emoji) + ChatColor.GREEN + " x" + emojiUsage.get(top[rank]));
+					}
+					return true;
+				}
+				
+				sender.sendMessage(ChatColor.AQUA + "---------- EmojiChat Stats ----------");
+				for (EmojiSurface surface : EmojiSurface.values()) {
+					sender.sendMessage(ChatColor.GREEN + surface.name().toLowerCase() + ": " + ChatColor.AQUA + metricsHandler.getEmojisUsed().get(surface) + " emojis, "
+							+ metricsHandler.getShortcutsUsed().get(surface) + " shortcuts, " + metricsHandler.getEscapesUsed().get(surface) + " escapes");
+				}
+				sender.sendMessage(ChatColor.GREEN + "Fast path: " + ChatColor.AQUA + metricsHandler.getFastPathPercentage() + "% of messages");
+				TranslationCache cache = plugin.getEmojiHandler().getCache();
+				if (cache != null) {
+					sender.sendMessage(ChatColor.GREEN + "Cache: " + ChatColor.AQUA + cache.getSize() + "/" + cache.getMaxSize() + " messages, " + cache.getHits() + " hits, "
+							+ cache.getMisses() + " misses, " + cache.getEvictions() + " evictions");
+				}
+				
+				if (!latency.isEnabled()) {
+					sender.sendMessage(ChatColor.AQUA + "Latency timing is off. Use " + ChatColor.GREEN + "/emojichat stats on" + ChatColor.AQUA + " to turn it on.");
+				}
+				for (LatencyStage stage : LatencyStage.values()) {
+					for (EmojiSurface surface : EmojiSurface.values()) {
+						LatencyHistogram histogram = latency.getHistogram(stage, surface);
+						long count = histogram.getCount();
+						if (count == 0L) { // Only show what was timed
+							continue;
+						}
+						sender.sendMessage(ChatColor.GREEN + surface.name().toLowerCase() + " " + stage.getDisplayName() + ": " + ChatColor.AQUA
+								+ "p50 " + formatNanos(histogram.getPercentile(0.5D)) + ", p99 " + formatNanos(histogram.getPercentile(0.99D))
+								+ ", p999 " + formatNanos(histogram.getPercentile(0.999D)) + ", " + String.format("%.1f", latency.getThroughput(histogram)) + "/s (" + count + ")");
+					}
+				}
+				sender.sendMessage(ChatColor.AQUA + "Use " + ChatColor.GREEN + "/emojichat stats top [n]" + ChatColor.AQUA + " for the most used emojis.");
+				return true;
 			default:
 				sender.sendMessage(ChatColor.RED + "Unknown sub-command '" + args[0] + "'. Use " + ChatColor.GOLD + "/emojichat help" + ChatColor.RED + " for help.");
 				return true;
 		}
 	}
+	
+	/**
+	 * Formats the specified duration for /emojichat stats, i.e. 850ns, 12.3µs or 1.5ms.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The formatted duration.
+	 */
+	private String formatNanos(long nanos) {
+		if (nanos < 1000L) {
+			return nanos + "ns";
+		} else if (nanos < 1000000L) {
+			return String.format("%.1fµs", nanos / 1000D);
+		}
+		return String.format("%.1fms", nanos / 1000000D);
+	}
 }
@@ -0,0 +1,108 @@
+package io.github.radbuilder.emojichat;
+
+import org.bukkit.Bukkit;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches config.yml and reloads EmojiChat when it changes, if auto-reload-config is enabled.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+class EmojiChatConfigWatcher implements Runnable {
+	/**
+	 * How long config.yml has to stay unchanged before reloading, as editors often save more than once.
+	 */
+	private static final long DEBOUNCE_MILLIS = 1000L;
+	/**
+	 * EmojiChat main class instance.
+	 */
+	private final EmojiChat plugin;
+	/**
+	 * The watch service for the plugin data folder.
+	 */
+	private final WatchService watchService;
+	/**
+	 * The thread waiting for changes.
+	 */
+	private final Thread thread;
+	
+	/**
+	 * Starts watching config.yml.
+	 *
+	 * @param plugin The EmojiChat main class instance.
+	 * @throws IOException If the data folder can't be watched.
+	 */
+	EmojiChatConfigWatcher(EmojiChat plugin) throws IOException {
+		this.plugin = plugin;
+		
+		watchService = FileSystems.getDefault().newWatchService();
+		plugin.getDataFolder().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+		thread = new Thread(this, "EmojiChat config watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@Override
+	public void run() {
+		try {
+			while (true) {
+				if (!isConfigChanged(watchService.take())) {
+					continue;
+				}
+				
+				// Wait until config.yml stops changing
+				WatchKey key;
+				while ((key = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+					isConfigChanged(key);
+				}
+				
+				plugin.getLogger().info("config.yml changed, reloading...");
+				plugin.reload(Bukkit.getConsoleSender());
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Stopped
+		}
+	}
+	
+	/**
+	 * Checks if the specified watch key has changes to config.yml, and resets it.
+	 *
+	 * @param key The watch key.
+	 * @return True if config.yml changed, false otherwise.
+	 */
+	private boolean isConfigChanged(WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) { // Events were lost, so config.yml might have changed
+				changed = true;
+			} else if (event.context() instanceof Path && ((Path) event.context()).getFileName().toString().equals("config.yml")) {
+				changed = true;
+			}
+		}
+		key.reset();
+		return changed;
+	}
+	
+	/**
+	 * Stops watching config.yml.
+	 */
+	void stop() {
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			// Already closed
+		}
+		thread.interrupt();
+	}
+}
@@ -10,12 +10,13 @@ import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * EmojiChat gui class.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.2
  */
 class EmojiChatGui {
@@ -42,19 +43,20 @@ class EmojiChatGui {
 	Inventory getInventory(int page) {
 		Inventory gui = Bukkit.createInventory(null, 54, ChatColor.DARK_AQUA + "Emoji List Page " + (page + 1));
 		Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-			List<String> keyList = new ArrayList<>(plugin.getEmojiHandler().getEmojis().keySet());
+			Map<String, Character> emojis = plugin.getEmojiHandler().getEmojis(); // Use the same emojis for the whole page
+			List<String> keyList = new ArrayList<>(emojis.keySet());
 			for (int inventoryPosition = 0, emojiMapPosition = page * 54; inventoryPosition < 54 && emojiMapPosition < keyList.size(); inventoryPosition++, emojiMapPosition++) {
 				if (inventoryPosition == 45 && page != 0) { // Add a back button if they're not on the first page
 					addBackArrow(gui);
 					emojiMapPosition--;
 				} else if (emojiMapPosition == keyList.size() - 1) { // On the last page, not full of items
 					addBackArrow(gui);
-					addItem(gui, keyList, emojiMapPosition);
+					addItem(gui, emojis, keyList, emojiMapPosition);
 				} else if (inventoryPosition == 53 && emojiMapPosition != keyList.size() - 1) { // Add a next button if they're not on the last page
 					addNextArrow(gui);
 					emojiMapPosition--;
 				} else { // Add the emoji list item
-					addItem(gui, keyList, emojiMapPosition);
+					addItem(gui, emojis, keyList, emojiMapPosition);
 				}
 			}
 			keyList.clear();
@@ -92,14 +94,15 @@ class EmojiChatGui {
 	 * Adds an EmojiList item to the gui specified.
 	 *
 	 * @param gui The gui {@link org.bukkit.inventory.Inventory}.
+	 * @param emojis The emoji map, {@link EmojiHandler#getEmojis()}.
 	 * @param keyList The list of emoji keys.
-	 * @param emojiMapPosition The current position in the emoji map, {@link EmojiHandler#getEmojis()}.
+	 * @param emojiMapPosition The current position in the emoji map.
 	 */
-	private void addItem(Inventory gui, List<String> keyList, int emojiMapPosition) {
+	private void addItem(Inventory gui, Map<String, Character> emojis, List<String> keyList, int emojiMapPosition) {
 		ItemStack stack = new ItemStack(Material.PAPER, 1);
 		ItemMeta meta = stack.getItemMeta();
 		String key = keyList.get(emojiMapPosition);
-		meta.setDisplayName(ChatColor.AQUA + key + ChatColor.RESET + " " + plugin.getEmojiHandler().getEmojis().get(key));
+		meta.setDisplayName(ChatColor.AQUA + key + ChatColor.RESET + " " + emojis.get(key));
 		stack.setItemMeta(meta);
 		gui.addItem(stack);
 	}
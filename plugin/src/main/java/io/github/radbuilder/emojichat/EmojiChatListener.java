@@ -1,5 +1,12 @@
 package io.github.radbuilder.emojichat;
 
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
+import io.github.radbuilder.emojichat.metrics.LatencyRecorder;
+import io.github.radbuilder.emojichat.metrics.LatencyStage;
+import io.github.radbuilder.emojichat.utils.EmojiChatSettings;
+import io.github.radbuilder.emojichat.utils.EmojiPermission;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.PlayerSettingsStore;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
@@ -10,14 +17,17 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.SignChangeEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerResourcePackStatusEvent;
 
 /**
  * EmojiChat listener class.
  *
  * @author RadBuilder
- * @version 1.8.2
+ * @version 1.9
  * @since 1.0
  */
 class EmojiChatListener implements Listener {
@@ -25,10 +35,6 @@ class EmojiChatListener implements Listener {
 	 * EmojiChat main class instance.
 	 */
 	private final EmojiChat plugin;
-	/**
-	 * If EmojiChat should automatically download the ResourcePack for the player.
-	 */
-	private final boolean autoDownloadResourcePack;
 	
 	/**
 	 * Creates the EmojiChat listener class with the main class instance.
@@ -37,12 +43,17 @@ class EmojiChatListener implements Listener {
 	 */
 	EmojiChatListener(EmojiChat plugin) {
 		this.plugin = plugin;
-		autoDownloadResourcePack = plugin.getConfig().getBoolean("download-resourcepack");
 	}
 	
 	@EventHandler
 	void onJoin(PlayerJoinEvent event) {
 		Player player = event.getPlayer();
+		plugin.getPermissionCache().refresh(player); // Check the player's permissions once, instead of on every message
+		
+		// Load the player's settings (i.e. shortcuts toggled off) without blocking the main thread
+		PlayerSettingsStore playerSettings = plugin.getEmojiHandler().getPlayerSettings();
+		long generation = playerSettings.startLoading(player.getUniqueId());
+		Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> playerSettings.load(player.getUniqueId(), generation));
 		
 		// Send the player an alert if there's an update available
 		if (player.hasPermission("emojichat.updates") && plugin.updateChecker.updateAvailable) {
@@ -51,107 +62,132 @@ class EmojiChatListener implements Listener {
 					+ ChatColor.AQUA + ". Latest version: " + ChatColor.GOLD + plugin.updateChecker.latestVersion + ChatColor.AQUA + ".");
 		}
 		
-		if (!autoDownloadResourcePack) // If auto downloading of the ResourcePack is disabled
+		EmojiChatSettings settings = plugin.getSettings();
+		if (!settings.downloadResourcePack()) // If auto downloading of the ResourcePack is disabled
 			return;
 		
 		// Send the player the resource pack
 		Bukkit.getScheduler().runTaskLater(plugin, () -> {
-			if (player.hasPermission("emojichat.see")) { // If the player can see emojis
+			if (plugin.getPermissionCache().has(player, EmojiPermission.SEE)) { // If the player can see emojis
+				EmojiEvents events = plugin.getMetricsHandler().getEvents();
+				Object timedEvent = events.startResourcePackSend();
 				try {
-					player.setResourcePack(plugin.getEmojiHandler().getPackVariant().getUrl(plugin.getConfig().getString("pack-quality")), plugin.getEmojiHandler().getPackVariant().getHash(plugin.getConfig().getString("pack-quality"))); // If the Spigot version supports loading cached versions
+					player.setResourcePack(settings.getPackUrl(), settings.getPackHash()); // If the Spigot version supports loading cached versions
 				} catch (Exception | NoSuchMethodError e) {
-					player.setResourcePack(plugin.getEmojiHandler().getPackVariant().getUrl(plugin.getConfig().getString("pack-quality"))); // If the Spigot version doesn't support loading cached versions
+					player.setResourcePack(settings.getPackUrl()); // If the Spigot version doesn't support loading cached versions
 				}
+				events.resourcePackSend(player.getName(), "join", timedEvent);
+				plugin.getMetricsHandler().addResourcePackSent(player.getUniqueId());
 			}
 		}, 20L); // Give time for the player to join
 	}
 	
+	@EventHandler
+	void onQuit(PlayerQuitEvent event) {
+		plugin.getEmojiHandler().getPlayerSettings().unload(event.getPlayer().getUniqueId());
+		plugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
+		plugin.getMetricsHandler().removeResourcePackPending(event.getPlayer().getUniqueId());
+	}
+	
+	@EventHandler
+	void onResourcePackStatus(PlayerResourcePackStatusEvent event) {
+		plugin.getMetricsHandler().addResourcePackStatus(event.getPlayer().getUniqueId(), event.getStatus()); // Only counted if EmojiChat sent the pack
+	}
+	
+	@EventHandler
+	void onWorldChange(PlayerChangedWorldEvent event) {
+		plugin.getPermissionCache().refresh(event.getPlayer()); // Permissions can be different per world
+	}
+	
 	@EventHandler(priority = EventPriority.HIGH)
 	void onChat(AsyncPlayerChatEvent event) {
-		if (!event.getPlayer().hasPermission("emojichat.use") || !event.getPlayer().hasPermission("emojichat.use.chat"))
-			return; // Don't do anything if they don't have permission
-		
-		String message = event.getMessage();
-		
-		// Checks if the user disabled shortcuts via /emojichat toggle
-		if (!plugin.getEmojiHandler().hasShortcutsOff(event.getPlayer())) {
-			message = plugin.getEmojiHandler().translateShorthand(message);
-		}
-		
-		// Replace shortcuts with emojis
-		message = plugin.getEmojiHandler().toEmojiFromChat(message);
-		
-		// If the message contains a disabled character
-		if (plugin.getEmojiHandler().containsDisabledCharacter(message)) {
-			event.setCancelled(true);
-			event.getPlayer().sendMessage(ChatColor.RED + "Oops! You can't use disabled emoji characters!");
-			return;
+		LatencyRecorder latency = plugin.getMetricsHandler().getLatency();
+		long start = latency.start();
+		try {
+			if (!plugin.getPermissionCache().has(event.getPlayer(), EmojiPermission.USE, EmojiPermission.USE_CHAT))
+				return; // Don't do anything if they don't have permission
+			
+			// Replace shortcuts with emojis, unless the user disabled shortcuts via /emojichat toggle
+			String message = plugin.getEmojiHandler().translate(event.getMessage(), EmojiSurface.CHAT, !plugin.getEmojiHandler().hasShortcutsOff(event.getPlayer()));
+			
+			// If the message contains a disabled character
+			if (message == null) {
+				event.setCancelled(true);
+				event.getPlayer().sendMessage(ChatColor.RED + "Oops! You can't use disabled emoji characters!");
+				return;
+			}
+			
+			event.setMessage(message);
+		} finally {
+			latency.record(LatencyStage.LISTENER, EmojiSurface.CHAT, start);
 		}
-		
-		event.setMessage(message);
 	}
 	
 	@EventHandler(priority = EventPriority.HIGH)
 	void onSignChange(SignChangeEvent event) {
-		if (!event.getPlayer().hasPermission("emojichat.use") || !event.getPlayer().hasPermission("emojichat.use.sign"))
-			return; // Don't do anything if they don't have permission
-		
-		if (!plugin.getConfig().getBoolean("emojis-on-signs")) // Feature is disabled
-			return;
-		
-		for (int i = 0; i < 4; i++) {
-			String line = event.getLine(i);
+		LatencyRecorder latency = plugin.getMetricsHandler().getLatency();
+		long start = latency.start();
+		try {
+			if (!plugin.getPermissionCache().has(event.getPlayer(), EmojiPermission.USE, EmojiPermission.USE_SIGN))
+				return; // Don't do anything if they don't have permission
+			
+			if (!plugin.getSettings().emojisOnSigns()) // Feature is disabled
+				return;
 			
 			// Checks if the user disabled shortcuts via /emojichat toggle
-			if (!plugin.getEmojiHandler().hasShortcutsOff(event.getPlayer())) {
-				line = plugin.getEmojiHandler().translateShorthand(line);
+			boolean useShortcuts = !plugin.getEmojiHandler().hasShortcutsOff(event.getPlayer());
+			
+			for (int i = 0; i < 4; i++) {
+				// Replace shortcuts with emojis
+				String line = plugin.getEmojiHandler().translate(event.getLine(i), EmojiSurface.SIGN, useShortcuts);
+				
+				// If the message contains a disabled character
+				if (line == null) {
+					event.setCancelled(true);
+					event.getPlayer().sendMessage(ChatColor.RED + "Oops! You can't use disabled emoji characters!");
+					return;
+				}
+				
+				event.setLine(i, line);
+			}
+		} finally {
+			latency.record(LatencyStage.LISTENER, EmojiSurface.SIGN, start);
+		}
+	}
+	
+	@EventHandler(priority = EventPriority.HIGH)
+	void onCommandPreProcess(PlayerCommandPreprocessEvent event) {
+		LatencyRecorder latency = plugin.getMetricsHandler().getLatency();
+		long start = latency.start();
+		try {
+			if (!plugin.getPermissionCache().has(event.getPlayer(), EmojiPermission.USE, EmojiPermission.USE_COMMAND))
+				return; // Don't do anything if they don't have permission
+			
+			EmojiChatSettings settings = plugin.getSettings();
+			if (!settings.emojisInCommands()) // Feature is disabled
+				return;
+			
+			String command = event.getMessage();
+			
+			// only-command-list is enabled and the command-list doesn't contain the command being ran
+			if (settings.onlyCommandList() && !settings.isInCommandList(command)) {
+				return;
 			}
 			
-			// Replace shortcuts with emojis
-			line = plugin.getEmojiHandler().toEmojiFromSign(line);
+			// Replace shortcuts with emojis, unless the user disabled shortcuts via /emojichat toggle
+			command = plugin.getEmojiHandler().translate(command, EmojiSurface.COMMAND, !plugin.getEmojiHandler().hasShortcutsOff(event.getPlayer()));
 			
 			// If the message contains a disabled character
-			if (plugin.getEmojiHandler().containsDisabledCharacter(line)) {
+			if (command == null) {
 				event.setCancelled(true);
 				event.getPlayer().sendMessage(ChatColor.RED + "Oops! You can't use disabled emoji characters!");
 				return;
 			}
 			
-			event.setLine(i, line);
-		}
-	}
-	
-	@EventHandler(priority = EventPriority.HIGH)
-	void onCommandPreProcess(PlayerCommandPreprocessEvent event) {
-		if (!event.getPlayer().hasPermission("emojichat.use") || !event.getPlayer().hasPermission("emojichat.use.command"))
-			return; // Don't do anything if they don't have permission
-		
-		if (!plugin.getConfig().getBoolean("emojis-in-commands")) // Feature is disabled
-			return;
-		
-		String command = event.getMessage();
-		
-		// only-command-list is enabled and the command-list doesn't contain the command being ran
-		if (plugin.getConfig().getBoolean("only-command-list") && !plugin.getConfig().getStringList("command-list").contains(command.split(" ")[0].toLowerCase())) {
-			return;
+			event.setMessage(command);
+		} finally {
+			latency.record(LatencyStage.LISTENER, EmojiSurface.COMMAND, start);
 		}
-		
-		// Checks if the user disabled shortcuts via /emojichat toggle
-		if (!plugin.getEmojiHandler().hasShortcutsOff(event.getPlayer())) {
-			command = plugin.getEmojiHandler().translateShorthand(command);
-		}
-		
-		// Replace shortcuts with emojis
-		command = plugin.getEmojiHandler().toEmoji(command);
-		
-		// If the message contains a disabled character
-		if (plugin.getEmojiHandler().containsDisabledCharacter(command)) {
-			event.setCancelled(true);
-			event.getPlayer().sendMessage(ChatColor.RED + "Oops! You can't use disabled emoji characters!");
-			return;
-		}
-		
-		event.setMessage(command);
 	}
 	
 	@EventHandler
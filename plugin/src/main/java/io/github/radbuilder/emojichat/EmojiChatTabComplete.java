@@ -14,14 +14,14 @@ import java.util.List;
  * EmojiChat tab completer.
  *
  * @author RadBuilder
- * @version 1.7
+ * @version 1.9
  * @since 1.7
  */
 class EmojiChatTabComplete implements TabCompleter {
 	/**
 	 * The list of /emojichat sub-commands.
 	 */
-	private final List<String> SUB_COMMANDS = new ArrayList<>(Arrays.asList("help", "resourcepack", "reload", "toggle", "list"));
+	private final List<String> SUB_COMMANDS = new ArrayList<>(Arrays.asList("help", "resourcepack", "reload", "toggle", "list", "stats"));
 	
 	@Override
 	public List<String> onTabComplete(CommandSender sender, Command command, String s, String[] args) {
@@ -6,13 +6,15 @@ import github.scarsz.discordsrv.api.Subscribe;
 import github.scarsz.discordsrv.api.events.DiscordGuildMessagePostProcessEvent;
 import github.scarsz.discordsrv.api.events.GameChatMessagePreProcessEvent;
 import io.github.radbuilder.emojichat.EmojiChat;
-import org.apache.commons.lang.StringUtils;
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
+import io.github.radbuilder.emojichat.utils.EmojiPermission;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
 
 /**
  * DiscordSRV hook.
  *
  * @author RadBuilder
- * @version 1.7
+ * @version 1.9
  * @since 1.4
  */
 public class DiscordSrvHook implements EmojiChatHook {
@@ -39,18 +41,16 @@ public class DiscordSrvHook implements EmojiChatHook {
 	
 	@Subscribe(priority = ListenerPriority.HIGHEST)
 	public void onChatMessageFromInGame(GameChatMessagePreProcessEvent event) { // From in-game to Discord
-		if (!event.getPlayer().hasPermission("emojichat.use"))
+		if (!plugin.getPermissionCache().has(event.getPlayer(), EmojiPermission.USE))
 			return; // Don't do anything if they don't have permission
 		
-		String message = event.getMessage();
-		
 		// Replace emojis with shortcuts
-		for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-			// Don't count metrics as it's already counted in the normal chat listener
-			message = message.replace(plugin.getEmojiHandler().getEmojis().get(key).toString(), key);
-		}
-		
-		event.setMessage(message);
+		// Don't count metrics as it's already counted in the normal chat listener
+		EmojiEvents events = plugin.getMetricsHandler().getEvents();
+		Object timedEvent = events.startHookBridge();
+		String message = event.getMessage();
+		event.setMessage(plugin.getEmojiHandler().fromEmoji(message));
+		events.hookBridge(getName(), EmojiSurface.CHAT, false, message.length(), timedEvent);
 	}
 	
 	@Subscribe(priority = ListenerPriority.HIGHEST)
@@ -58,11 +58,12 @@ public class DiscordSrvHook implements EmojiChatHook {
 		// TODO: Add permission checking for Discord
 		String message = event.getProcessedMessage();
 		
-		// Replace shortcuts with emojis
-		for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-			plugin.getMetricsHandler().addEmojiUsed(StringUtils.countMatches(message, key)); // Count metrics
-			message = message.replace(key, plugin.getEmojiHandler().getEmojis().get(key).toString());
-		}
+		// Replace shortcuts with emojis, counting metrics
+		EmojiEvents events = plugin.getMetricsHandler().getEvents();
+		Object timedEvent = events.startHookBridge();
+		int messageLength = message.length();
+		message = plugin.getEmojiHandler().toEmoji(message, EmojiSurface.DISCORD);
+		events.hookBridge(getName(), EmojiSurface.DISCORD, true, messageLength, timedEvent);
 		
 		event.setProcessedMessage(message);
 	}
@@ -4,7 +4,9 @@ import com.rezzedup.discordsrv.staffchat.events.DiscordStaffChatMessageEvent;
 import com.rezzedup.discordsrv.staffchat.events.PlayerStaffChatMessageEvent;
 import com.vdurmont.emoji.EmojiParser;
 import io.github.radbuilder.emojichat.EmojiChat;
-import org.apache.commons.lang.StringUtils;
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
+import io.github.radbuilder.emojichat.utils.EmojiPermission;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
 import org.bukkit.ChatColor;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -15,7 +17,7 @@ import org.bukkit.event.Listener;
  * DiscordSRV Staff Chat hook.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.8.3
  */
 public class DiscordSrvStaffChatHook implements EmojiChatHook, Listener {
@@ -42,36 +44,30 @@ public class DiscordSrvStaffChatHook implements EmojiChatHook, Listener {
 	@EventHandler(priority = EventPriority.HIGH)
 	public void onDiscordStaffChat(DiscordStaffChatMessageEvent event) {
 		// TODO: Add permission checking for Discord
+		EmojiEvents events = plugin.getMetricsHandler().getEvents();
+		Object timedEvent = events.startHookBridge();
+		int messageLength = event.getText().length();
 		String message = EmojiParser.parseToAliases(event.getText()); // Call emoji translation before staff chat plugin does
 		
-		// Replace shortcuts with emojis
-		for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-			plugin.getMetricsHandler().addEmojiUsed(StringUtils.countMatches(message, key)); // Count metrics
-			message = message.replace(key, plugin.getEmojiHandler().getEmojis().get(key).toString());
-		}
+		// Replace shortcuts with emojis, counting metrics
+		message = plugin.getEmojiHandler().toEmoji(message, EmojiSurface.STAFF_CHAT);
 		event.setText(message);
+		events.hookBridge(getName(), EmojiSurface.STAFF_CHAT, true, messageLength, timedEvent);
 	}
 	
 	@EventHandler(priority = EventPriority.HIGH)
 	public void onMinecraftStaffChat(PlayerStaffChatMessageEvent event) {
-		if (!event.getAuthor().hasPermission("emojichat.use"))
+		if (!plugin.getPermissionCache().has(event.getAuthor(), EmojiPermission.USE))
 			return; // Don't do anything if they don't have permission
 		
-		String message = event.getText();
-		
-		// Checks if the user disabled shortcuts via /emojichat toggle
-		if (!plugin.getEmojiHandler().hasShortcutsOff(event.getAuthor())) {
-			message = plugin.getEmojiHandler().translateShorthand(message);
-		}
-		
-		// Replace shortcuts with emojis
-		for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-			// Metrics counted later
-			message = message.replace(key, plugin.getEmojiHandler().getEmojis().get(key).toString());
-		}
+		// Replace shortcuts with emojis, unless the user disabled shortcuts via /emojichat toggle
+		EmojiEvents events = plugin.getMetricsHandler().getEvents();
+		Object timedEvent = events.startHookBridge();
+		String message = plugin.getEmojiHandler().translate(event.getText(), EmojiSurface.STAFF_CHAT, !plugin.getEmojiHandler().hasShortcutsOff(event.getAuthor()));
+		events.hookBridge(getName(), EmojiSurface.STAFF_CHAT, false, event.getText().length(), timedEvent);
 		
 		// If the message contains a disabled character
-		if (plugin.getEmojiHandler().containsDisabledCharacter(message)) {
+		if (message == null) {
 			event.setCancelled(true);
 			event.getAuthor().sendMessage(ChatColor.RED + "Oops! You can't use disabled emoji characters!");
 			return;
@@ -3,11 +3,13 @@ package io.github.radbuilder.emojichat.hooks;
 import be.maximvdw.placeholderapi.PlaceholderAPI;
 import io.github.radbuilder.emojichat.EmojiChat;
 
+import java.util.Map;
+
 /**
  * MVdWPlaceholderAPI hook.
  *
  * @author RadBuilder
- * @version 1.7
+ * @version 1.9
  * @since 1.4
  */
 public class MVdWPlaceholderApiHook implements EmojiChatHook {
@@ -22,8 +24,9 @@ public class MVdWPlaceholderApiHook implements EmojiChatHook {
 	 * @param plugin The EmojiChat main class instance.
 	 */
 	public MVdWPlaceholderApiHook(EmojiChat plugin) {
-		for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-			PlaceholderAPI.registerStaticPlaceholders(plugin, key.replace(":", ""), plugin.getEmojiHandler().getEmojis().get(key).toString());
+		Map<String, Character> emojis = plugin.getEmojiHandler().getEmojis();
+		for (String key : emojis.keySet()) {
+			PlaceholderAPI.registerStaticPlaceholders(plugin, key.replace(":", ""), emojis.get(key).toString());
 		}
 		
 		plugin.getLogger().info("Hooked " + getName());
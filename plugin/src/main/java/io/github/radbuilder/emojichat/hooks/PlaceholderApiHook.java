@@ -1,6 +1,8 @@
 package io.github.radbuilder.emojichat.hooks;
 
 import io.github.radbuilder.emojichat.EmojiChat;
+import io.github.radbuilder.emojichat.utils.EmojiIndex;
+import io.github.radbuilder.emojichat.utils.EmojiPermission;
 import me.clip.placeholderapi.PlaceholderAPI;
 import me.clip.placeholderapi.PlaceholderHook;
 import org.bukkit.entity.Player;
@@ -9,7 +11,7 @@ import org.bukkit.entity.Player;
  * PlaceholderAPI hook.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.4
  */
 public class PlaceholderApiHook implements EmojiChatHook {
@@ -32,12 +34,13 @@ public class PlaceholderApiHook implements EmojiChatHook {
 		PlaceholderAPI.registerPlaceholderHook("EmojiChat", new PlaceholderHook() {
 			@Override
 			public String onPlaceholderRequest(Player player, String identifier) {
-				if (player != null && !player.hasPermission("emojichat.use")) // Make sure the player, if specified, has permission to use emojis
+				if (player != null && !plugin.getPermissionCache().has(player, EmojiPermission.USE)) // Make sure the player, if specified, has permission to use emojis
 					return "No Permission";
-				if (plugin.getEmojiHandler().getEmojis().containsKey(":" + identifier + ":")) {
-					return plugin.getEmojiHandler().getEmojis().get(":" + identifier + ":").toString();
+				if (identifier.startsWith("top_")) { // The most used emojis, i.e. %emojichat_top_1%
+					return getTopEmoji(identifier.substring(4));
 				}
-				return null;
+				Character emoji = plugin.getEmojiHandler().getEmojis().get(":" + identifier + ":");
+				return emoji == null ? null : emoji.toString();
 			}
 		});
 		
@@ -45,6 +48,23 @@ public class PlaceholderApiHook implements EmojiChatHook {
 		enabled = true;
 	}
 	
+	/**
+	 * Gets the emoji at the specified rank in the emoji usage histogram.
+	 *
+	 * @param rank The rank, starting at 1 for the most used emoji.
+	 * @return The emoji, an empty string if fewer emojis than that were used, or null if the rank isn't a number.
+	 */
+	private String getTopEmoji(String rank) {
+		EmojiIndex index = plugin.getEmojiHandler().getIndex();
+		int glyph;
+		try {
+			glyph = plugin.getMetricsHandler().getEmojiUsage().getRanked(Integer.parseInt(rank), index);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+		return glyph == -1 ? "" : String.valueOf(index.getGlyphCharacter(glyph));
+	}
+	
 	@Override
 	public boolean isEnabled() {
 		return enabled;
@@ -7,13 +7,14 @@ import de.Linus122.TelegramComponents.Chat;
 import de.Linus122.TelegramComponents.ChatMessageToMc;
 import de.Linus122.TelegramComponents.ChatMessageToTelegram;
 import io.github.radbuilder.emojichat.EmojiChat;
-import org.apache.commons.lang.StringUtils;
+import io.github.radbuilder.emojichat.metrics.EmojiEvents;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
 
 /**
  * TelegramChat hook.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.7
  */
 public class TelegramChatHook implements EmojiChatHook {
@@ -33,21 +34,24 @@ public class TelegramChatHook implements EmojiChatHook {
 			@Override
 			public void onSendToTelegram(ChatMessageToTelegram chat) {
 				// Replace emojis with shortcuts
-				for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-					// Don't count metrics as it's already counted in the normal chat listener
-					chat.text = chat.text.replace(plugin.getEmojiHandler().getEmojis().get(key).toString(), key);
-				}
+				// Don't count metrics as it's already counted in the normal chat listener
+				EmojiEvents events = plugin.getMetricsHandler().getEvents();
+				Object timedEvent = events.startHookBridge();
+				int messageLength = chat.text.length();
+				chat.text = plugin.getEmojiHandler().fromEmoji(chat.text);
+				events.hookBridge(getName(), EmojiSurface.CHAT, false, messageLength, timedEvent);
 			}
 			
 			@Override
 			public void onSendToMinecraft(ChatMessageToMc chatMessageToMc) {
 				String message = chatMessageToMc.getContent();
 				
-				// Replace shortcuts with emojis
-				for (String key : plugin.getEmojiHandler().getEmojis().keySet()) {
-					plugin.getMetricsHandler().addEmojiUsed(StringUtils.countMatches(message, key)); // Count metrics
-					message = message.replace(key, plugin.getEmojiHandler().getEmojis().get(key).toString());
-				}
+				// Replace shortcuts with emojis, counting metrics
+				EmojiEvents events = plugin.getMetricsHandler().getEvents();
+				Object timedEvent = events.startHookBridge();
+				int messageLength = message.length();
+				message = plugin.getEmojiHandler().toEmoji(message, EmojiSurface.TELEGRAM);
+				events.hookBridge(getName(), EmojiSurface.TELEGRAM, true, messageLength, timedEvent);
 				
 				chatMessageToMc.setContent(message);
 			}
@@ -2,30 +2,45 @@ package io.github.radbuilder.emojichat.metrics;
 
 import io.github.radbuilder.emojichat.EmojiChat;
 import io.github.radbuilder.emojichat.hooks.EmojiChatHook;
+import io.github.radbuilder.emojichat.utils.EmojiChatSettings;
+
+import org.bukkit.event.player.PlayerResourcePackStatusEvent;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * Metrics handler class.
+ * Metrics handler class, which reports the {@link EmojiStats} and the config to bStats, and counts resource pack responses.
  *
  * @author RadBuilder
- * @version 1.8.3
+ * @version 1.9
  * @since 1.4
  */
-public class MetricsHandler {
+public class MetricsHandler extends EmojiStats {
+	/**
+	 * The messages translated at the last fast path report. Only written by the thread reporting metrics.
+	 */
+	private long reportedMessagesTranslated;
 	/**
-	 * The number of emojis used.
+	 * The fast paths taken at the last fast path report. Only written by the thread reporting metrics.
 	 */
-	private int emojisUsed;
+	private long reportedFastPathsTaken;
 	/**
-	 * The number of shortcuts used.
+	 * The number of times the resource pack was sent.
 	 */
-	private int shortcutsUsed;
+	private final LongAdder resourcePacksSent;
 	/**
-	 * The number of escapes used.
+	 * The number of resource pack responses from players EmojiChat sent the pack to, by status ordinal.
 	 */
-	private int escapesUsed;
+	private final LongAdder[] resourcePackStatuses;
+	/**
+	 * The players EmojiChat sent the pack to who haven't finished loading or declined it yet, so responses to other plugins' packs aren't counted.
+	 */
+	private final Set<UUID> resourcePacksPending;
 	/**
 	 * The {@link MetricsLevel} being used.
 	 */
@@ -37,9 +52,13 @@ public class MetricsHandler {
 	 * @param plugin The EmojiChat main class instance.
 	 */
 	public MetricsHandler(EmojiChat plugin) {
-		emojisUsed = 0;
-		shortcutsUsed = 0;
-		escapesUsed = 0;
+		getLatency().setEnabled(plugin.getConfig().getBoolean("latency-stats"));
+		resourcePacksSent = new LongAdder();
+		resourcePackStatuses = new LongAdder[PlayerResourcePackStatusEvent.Status.values().length];
+		for (int i = 0; i < resourcePackStatuses.length; i++) {
+			resourcePackStatuses[i] = new LongAdder();
+		}
+		resourcePacksPending = ConcurrentHashMap.newKeySet();
 		
 		try {
 			metricsLevel = MetricsLevel.valueOf(plugin.getConfig().getString("metrics-collection"));
@@ -56,28 +75,28 @@ public class MetricsHandler {
 		switch (metricsLevel) {
 			case FULL:
 				// If fix-emoji-coloring is being used
-				metrics.addCustomChart(new Metrics.SimplePie("usingFixEmojiColoring", () -> Boolean.toString(plugin.getConfig().getBoolean("fix-emoji-coloring"))));
+				metrics.addCustomChart(new Metrics.SimplePie("usingFixEmojiColoring", () -> Boolean.toString(plugin.getSettings().fixEmojiColoring())));
 				
 				// If disable-emojis is being used
-				metrics.addCustomChart(new Metrics.SimplePie("usingDisableEmojis", () -> Boolean.toString(plugin.getConfig().getBoolean("disable-emojis"))));
+				metrics.addCustomChart(new Metrics.SimplePie("usingDisableEmojis", () -> Boolean.toString(plugin.getSettings().disableEmojis())));
 				
 				// If download-resourcepack is being used
-				metrics.addCustomChart(new Metrics.SimplePie("usingDownloadResourcePack", () -> Boolean.toString(plugin.getConfig().getBoolean("download-resourcepack"))));
+				metrics.addCustomChart(new Metrics.SimplePie("usingDownloadResourcePack", () -> Boolean.toString(plugin.getSettings().downloadResourcePack())));
 				
 				// If emojis-on-signs is being used
-				metrics.addCustomChart(new Metrics.SimplePie("usingEmojisOnSigns", () -> Boolean.toString(plugin.getConfig().getBoolean("emojis-on-signs"))));
+				metrics.addCustomChart(new Metrics.SimplePie("usingEmojisOnSigns", () -> Boolean.toString(plugin.getSettings().emojisOnSigns())));
 				
 				// If emojis-in-commands is being used
-				metrics.addCustomChart(new Metrics.SimplePie("usingEmojisInCommands", () -> Boolean.toString(plugin.getConfig().getBoolean("emojis-in-commands"))));
+				metrics.addCustomChart(new Metrics.SimplePie("usingEmojisInCommands", () -> Boolean.toString(plugin.getSettings().emojisInCommands())));
 				
 				// If only-command-list is being used
-				metrics.addCustomChart(new Metrics.SimplePie("usingOnlyCommandList", () -> Boolean.toString(plugin.getConfig().getBoolean("only-command-list"))));
+				metrics.addCustomChart(new Metrics.SimplePie("usingOnlyCommandList", () -> Boolean.toString(plugin.getSettings().onlyCommandList())));
 				
 				// What commands are listed under command-list, if any
 				metrics.addCustomChart(new Metrics.AdvancedPie("commandList", () -> {
 					Map<String, Integer> commandList = new HashMap<>();
-					for (String command : plugin.getConfig().getStringList("command-list")) {
-						commandList.put(command.toLowerCase(), 1);
+					for (String command : plugin.getSettings().getCommandList()) { // Already lowercase
+						commandList.put(command, 1);
 					}
 					if (commandList.isEmpty()) {
 						commandList.put("None", 1);
@@ -88,10 +107,11 @@ public class MetricsHandler {
 				// What emojis are listed under disabled-emojis, if any
 				metrics.addCustomChart(new Metrics.AdvancedPie("disabledEmojis", () -> {
 					Map<String, Integer> disabledEmojis = new HashMap<>();
-					if (!plugin.getConfig().getBoolean("disable-emojis") || plugin.getConfig().getStringList("disabled-emojis").isEmpty()) { // If there aren't any disabled emojis, add "None"
+					EmojiChatSettings settings = plugin.getSettings(); // One snapshot, so both checks see the same config
+					if (!settings.disableEmojis() || settings.getDisabledEmojis().isEmpty()) { // If there aren't any disabled emojis, add "None"
 						disabledEmojis.put("None", 1);
 					} else {
-						plugin.getConfig().getStringList("disabled-emojis").forEach(s -> disabledEmojis.put(s, 1));
+						settings.getDisabledEmojis().forEach(s -> disabledEmojis.put(s, 1));
 					}
 					return disabledEmojis;
 				}));
@@ -110,31 +130,31 @@ public class MetricsHandler {
 				}));
 			case BASIC:
 				// The number of emojis used
-				metrics.addCustomChart(new Metrics.SingleLineChart("emojisUsed", () -> {
-					int temp = emojisUsed;
-					emojisUsed = 0; // Reset the number of emojis used when this is called
-					return temp;
-				}));
+				metrics.addCustomChart(new Metrics.SingleLineChart("emojisUsed", () -> (int) getEmojisUsed().sumSinceLastReport())); // The emojis used since the last report
 				
 				// The number of shortcuts used
-				metrics.addCustomChart(new Metrics.SingleLineChart("shortcutsUsed", () -> {
-					int temp = shortcutsUsed;
-					shortcutsUsed = 0; // Reset the number of shortcuts used when this is called
-					return temp;
-				}));
+				metrics.addCustomChart(new Metrics.SingleLineChart("shortcutsUsed", () -> (int) getShortcutsUsed().sumSinceLastReport())); // The shortcuts used since the last report
 
 				// The number of escapes used
-				metrics.addCustomChart(new Metrics.SingleLineChart("escapesUsed", () -> {
-					int temp = escapesUsed;
-					escapesUsed = 0; // Reset the number of escapes used when this is called
-					return temp;
-				}));
+				metrics.addCustomChart(new Metrics.SingleLineChart("escapesUsed", () -> (int) getEscapesUsed().sumSinceLastReport())); // The escapes used since the last report
 
+				// The percentage of translated messages that took the fast path
+				metrics.addCustomChart(new Metrics.SingleLineChart("fastPathPercentage", () -> {
+					// Only report what changed since the last report, the totals are kept for /emojichat stats and the metrics endpoint
+					long totalTranslated = getMessagesTranslated();
+					long totalFastPaths = getFastPathsTaken();
+					long translated = totalTranslated - reportedMessagesTranslated;
+					long fastPaths = totalFastPaths - reportedFastPathsTaken;
+					reportedMessagesTranslated = totalTranslated;
+					reportedFastPathsTaken = totalFastPaths;
+					return translated == 0 ? 0 : (int) (fastPaths * 100L / translated);
+				}));
+				
 				// Which pack variant is being used
-				metrics.addCustomChart(new Metrics.SimplePie("packVariant", () -> String.valueOf(plugin.getConfig().getInt("pack-variant"))));
+				metrics.addCustomChart(new Metrics.SimplePie("packVariant", () -> String.valueOf(plugin.getSettings().getPackVariantId())));
 				
 				// Which pack quality is being used
-				metrics.addCustomChart(new Metrics.SimplePie("packQuality", () -> plugin.getConfig().getString("pack-quality")));
+				metrics.addCustomChart(new Metrics.SimplePie("packQuality", () -> plugin.getSettings().getPackQuality()));
 			default:
 				metrics.addCustomChart(new Metrics.SimplePie("metricsCollection", () -> metricsLevel.name().toLowerCase()));
 				break;
@@ -142,31 +162,55 @@ public class MetricsHandler {
 	}
 	
 	/**
-	 * Adds the specified number of emojis used to {@link #emojisUsed}.
+	 * Counts the resource pack as sent to the specified player.
 	 *
-	 * @param emojisUsed The number of emojis used to add to {@link #emojisUsed}.
+	 * @param uuid The player's UUID.
 	 */
-	public void addEmojiUsed(int emojisUsed) {
-		this.emojisUsed += emojisUsed;
+	public void addResourcePackSent(UUID uuid) {
+		resourcePacksSent.increment();
+		resourcePacksPending.add(uuid);
 	}
 	
 	/**
-	 * Adds the specified number of shortcuts used to {@link #shortcutsUsed}.
+	 * Counts the specified player's response to the resource pack, if EmojiChat sent it to them.
 	 *
-	 * @param shortcutsUsed The number of shortcuts used to add to {@link #shortcutsUsed}.
+	 * @param uuid The player's UUID.
+	 * @param status The player's response.
 	 */
-	public void addShortcutUsed(int shortcutsUsed) {
-		this.shortcutsUsed += shortcutsUsed;
+	public void addResourcePackStatus(UUID uuid, PlayerResourcePackStatusEvent.Status status) {
+		boolean pending = status == PlayerResourcePackStatusEvent.Status.ACCEPTED ? resourcePacksPending.contains(uuid) : resourcePacksPending.remove(uuid);
+		if (pending) {
+			resourcePackStatuses[status.ordinal()].increment();
+		}
 	}
-
+	
+	/**
+	 * Stops waiting for the specified player's response to the resource pack, i.e. when they leave.
+	 *
+	 * @param uuid The player's UUID.
+	 */
+	public void removeResourcePackPending(UUID uuid) {
+		resourcePacksPending.remove(uuid);
+	}
+	
 	/**
-	 * Adds the specified number of escapes used to {@link #escapesUsed}.
+	 * Gets the number of times the resource pack was sent since the plugin was enabled.
 	 *
-	 * @param escapesUsed The number of escapes used to add to {@link #escapesUsed}.
+	 * @return The number of times the resource pack was sent.
 	 */
-    public void addEscapesUsed(int escapesUsed) {
-    	this.escapesUsed += escapesUsed;
-    }
+	public long getResourcePacksSent() {
+		return resourcePacksSent.sum();
+	}
+	
+	/**
+	 * Gets the number of the specified resource pack responses since the plugin was enabled.
+	 *
+	 * @param status The response.
+	 * @return The number of responses.
+	 */
+	public long getResourcePackStatuses(PlayerResourcePackStatusEvent.Status status) {
+		return resourcePackStatuses[status.ordinal()].sum();
+	}
 }
 
 /**
@@ -0,0 +1,256 @@
+package io.github.radbuilder.emojichat.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.radbuilder.emojichat.EmojiChat;
+import io.github.radbuilder.emojichat.utils.EmojiIndex;
+import io.github.radbuilder.emojichat.utils.EmojiSurface;
+import io.github.radbuilder.emojichat.utils.TranslationCache;
+import org.bukkit.event.player.PlayerResourcePackStatusEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the {@link MetricsHandler} counters, emoji usage, cache stats, resource pack responses and latency histograms
+ * in the OpenMetrics text format (which Prometheus scrapes) at http://127.0.0.1:&lt;port&gt;/metrics, if metrics-endpoint is enabled.
+ * <p>
+ * Every value is read from the same lock-free counters the chat path adds to, so a scrape never blocks a message.
+ * Requests are handled one at a time on a daemon thread.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class OpenMetricsExporter {
+	/**
+	 * The OpenMetrics text format content type.
+	 */
+	private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+	/**
+	 * The latency histogram bucket bounds, in nanoseconds.
+	 */
+	private static final long[] LATENCY_BOUNDS = {1000L, 2500L, 5000L, 10000L, 25000L, 50000L, 100000L, 250000L, 500000L,
+			1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 50000000L, 100000000L};
+	/**
+	 * EmojiChat main class instance.
+	 */
+	private final EmojiChat plugin;
+	/**
+	 * The HTTP server.
+	 */
+	private final HttpServer server;
+	/**
+	 * The thread handling requests.
+	 */
+	private final ExecutorService executor;
+	/**
+	 * The port being served on.
+	 */
+	private final int port;
+	
+	/**
+	 * Starts serving the metrics endpoint on the specified localhost port.
+	 *
+	 * @param plugin The EmojiChat main class instance.
+	 * @param port The port to serve on.
+	 * @throws IOException If the port can't be bound.
+	 */
+	public OpenMetricsExporter(EmojiChat plugin, int port) throws IOException {
+		this.plugin = plugin;
+		this.port = port;
+		
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", this::handle);
+		executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "EmojiChat metrics endpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.start();
+	}
+	
+	/**
+	 * Stops serving the metrics endpoint.
+	 */
+	public void stop() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Gets the port being served on.
+	 *
+	 * @return The port.
+	 */
+	public int getPort() {
+		return port;
+	}
+	
+	/**
+	 * Responds to a scrape with the current metrics.
+	 *
+	 * @param exchange The HTTP request and response.
+	 * @throws IOException If the response can't be sent.
+	 */
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			
+			byte[] body = render().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+			if (exchange.getRequestMethod().equals("HEAD")) {
+				exchange.sendResponseHeaders(200, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * Renders every metric in the OpenMetrics text format.
+	 *
+	 * @return The rendered metrics.
+	 */
+	String render() {
+		MetricsHandler metricsHandler = plugin.getMetricsHandler();
+		StringBuilder out = new StringBuilder(8192);
+		
+		// Usage counters, by surface
+		writeSurfaceCounter(out, "emojichat_emojis_used", "Emojis used.", metricsHandler.getEmojisUsed());
+		writeSurfaceCounter(out, "emojichat_shortcuts_used", "Shortcuts used.", metricsHandler.getShortcutsUsed());
+		writeSurfaceCounter(out, "emojichat_escapes_used", "Escaped shortcuts used.", metricsHandler.getEscapesUsed());
+		writeHeader(out, "emojichat_messages_translated", "counter", "Messages translated.");
+		out.append("emojichat_messages_translated_total ").append(metricsHandler.getMessagesTranslated()).append('\n');
+		writeHeader(out, "emojichat_fast_paths", "counter", "Messages translated that had nothing to translate.");
+		out.append("emojichat_fast_paths_total ").append(metricsHandler.getFastPathsTaken()).append('\n');
+		
+		// Per-emoji usage
+		EmojiIndex index = plugin.getEmojiHandler().getIndex();
+		EmojiUsageHistogram emojiUsage = metricsHandler.getEmojiUsage();
+		writeHeader(out, "emojichat_emoji_usage", "counter", "Times each emoji was used.");
+		for (int glyph : emojiUsage.getTop(Integer.MAX_VALUE, index)) { // Only enabled emojis
+			out.append("emojichat_emoji_usage_total{shortcode=\"");
+			appendEscaped(out, index.getShortcode(index.getGlyphCharacter(glyph)));
+			out.append("\"} ").append(emojiUsage.get(glyph)).append('\n');
+		}
+		
+		// Translation cache
+		TranslationCache cache = plugin.getEmojiHandler().getCache();
+		if (cache != null) {
+			writeHeader(out, "emojichat_cache_hits", "counter", "Translation cache hits.");
+			out.append("emojichat_cache_hits_total ").append(cache.getHits()).append('\n');
+			writeHeader(out, "emojichat_cache_misses", "counter", "Translation cache misses.");
+			out.append("emojichat_cache_misses_total ").append(cache.getMisses()).append('\n');
+			writeHeader(out, "emojichat_cache_evictions", "counter", "Translation cache evictions.");
+			out.append("emojichat_cache_evictions_total ").append(cache.getEvictions()).append('\n');
+			writeHeader(out, "emojichat_cache_size", "gauge", "Messages in the translation cache.");
+			out.append("emojichat_cache_size ").append(cache.getSize()).append('\n');
+		}
+		
+		// Resource pack delivery
+		writeHeader(out, "emojichat_resource_packs_sent", "counter", "Times the resource pack was sent.");
+		out.append("emojichat_resource_packs_sent_total ").append(metricsHandler.getResourcePacksSent()).append('\n');
+		writeHeader(out, "emojichat_resource_pack_responses", "counter", "Player responses to the resource pack.");
+		for (PlayerResourcePackStatusEvent.Status status : PlayerResourcePackStatusEvent.Status.values()) {
+			out.append("emojichat_resource_pack_responses_total{status=\"").append(status.name().toLowerCase()).append("\"} ")
+					.append(metricsHandler.getResourcePackStatuses(status)).append('\n');
+		}
+		
+		// Latency histograms, only the ones that were timed
+		LatencyRecorder latency = metricsHandler.getLatency();
+		writeHeader(out, "emojichat_latency_seconds", "histogram", "How long each stage of handling a message took, if latency-stats is enabled.");
+		for (LatencyStage stage : LatencyStage.values()) {
+			for (EmojiSurface surface : EmojiSurface.values()) {
+				LatencyHistogram histogram = latency.getHistogram(stage, surface);
+				long count = histogram.getCount();
+				if (count == 0L) {
+					continue;
+				}
+				String labels = "stage=\"" + stage.name().toLowerCase() + "\",surface=\"" + surface.name().toLowerCase() + "\"";
+				for (long bound : LATENCY_BOUNDS) {
+					out.append("emojichat_latency_seconds_bucket{").append(labels).append(",le=\"").append(toSeconds(bound)).append("\"} ")
+							.append(Math.min(count, histogram.getCountAtOrBelow(bound))).append('\n');
+				}
+				out.append("emojichat_latency_seconds_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+				out.append("emojichat_latency_seconds_count{").append(labels).append("} ").append(count).append('\n');
+				out.append("emojichat_latency_seconds_sum{").append(labels).append("} ").append(toSeconds(histogram.getSum())).append('\n');
+			}
+		}
+		
+		out.append("# EOF\n");
+		return out.toString();
+	}
+	
+	/**
+	 * Writes a counter with one sample per {@link EmojiSurface}.
+	 *
+	 * @param out The builder to write to.
+	 * @param name The metric name, without the _total suffix.
+	 * @param help The metric description.
+	 * @param counter The {@link SurfaceCounter} to write.
+	 */
+	private void writeSurfaceCounter(StringBuilder out, String name, String help, SurfaceCounter counter) {
+		writeHeader(out, name, "counter", help);
+		for (EmojiSurface surface : EmojiSurface.values()) {
+			out.append(name).append("_total{surface=\"").append(surface.name().toLowerCase()).append("\"} ").append(counter.get(surface)).append('\n');
+		}
+	}
+	
+	/**
+	 * Writes the TYPE and HELP lines of a metric.
+	 *
+	 * @param out The builder to write to.
+	 * @param name The metric name.
+	 * @param type The metric type, i.e. counter.
+	 * @param help The metric description.
+	 */
+	private void writeHeader(StringBuilder out, String name, String type, String help) {
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+	}
+	
+	/**
+	 * Appends the specified label value, escaping backslashes, quotes and newlines.
+	 *
+	 * @param out The builder to append to.
+	 * @param value The label value.
+	 */
+	private void appendEscaped(StringBuilder out, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char character = value.charAt(i);
+			if (character == '\\' || character == '"') {
+				out.append('\\').append(character);
+			} else if (character == '\n') {
+				out.append("\\n");
+			} else {
+				out.append(character);
+			}
+		}
+	}
+	
+	/**
+	 * Converts the specified nanoseconds to seconds.
+	 *
+	 * @param nanos The duration in nanoseconds.
+	 * @return The duration in seconds.
+	 */
+	private String toSeconds(long nanos) {
+		return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+	}
+}
@@ -17,14 +17,14 @@ import java.util.List;
  * EmojiChat config updater.
  *
  * @author RadBuilder
- * @version 1.8
+ * @version 1.9
  * @since 1.5
  */
 public class EmojiChatConfigUpdater {
 	/**
 	 * The current config version number.
 	 */
-	private final int CONFIG_VERSION = 5;
+	private final int CONFIG_VERSION = 6;
 	
 	/**
 	 * Creates the EmojiChat config updater with the main class instance.
@@ -72,6 +72,14 @@ public class EmojiChatConfigUpdater {
 		int packVariant = config.contains("pack-variant") ? config.getInt("pack-variant") : 1;
 		boolean disableEmojis = config.contains("disable-emojis") ? config.getBoolean("disable-emojis") : true;
 		
+		// Config v6 values
+		int translationCacheSize = config.contains("translation-cache-size") ? config.getInt("translation-cache-size") : 0;
+		boolean autoReloadConfig = config.contains("auto-reload-config") ? config.getBoolean("auto-reload-config") : false;
+		List<String> verbatimRegions = config.contains("verbatim-regions") ? config.getStringList("verbatim-regions") : new ArrayList<>();
+		boolean latencyStats = config.contains("latency-stats") ? config.getBoolean("latency-stats") : false;
+		boolean metricsEndpoint = config.contains("metrics-endpoint") ? config.getBoolean("metrics-endpoint") : false;
+		int metricsEndpointPort = config.contains("metrics-endpoint-port") ? config.getInt("metrics-endpoint-port") : 9225;
+		
 		// Config lines
 		List<String> configLines = new ArrayList<>();
 		configLines.add("# Configuration file for EmojiChat by RadBuilder");
@@ -224,6 +232,35 @@ public class EmojiChatConfigUpdater {
 			configLines.add("- ':face_vomiting:'");
 		}
 		configLines.add("");
+		configLines.add("# Text between these markers is sent as-is, without emojis or shortcuts. Each entry is the start marker and the end");
+		configLines.add("# marker separated by a space, or a single marker used for both. For example, '`' keeps `:)` as :) in chat.");
+		configLines.add("# Links (http:// and https://) and color codes (i.e. &8) are always sent as-is.");
+		if (verbatimRegions.isEmpty()) {
+			configLines.add("verbatim-regions: []");
+		} else {
+			configLines.add("verbatim-regions:");
+			for (String verbatimRegion : verbatimRegions) {
+				configLines.add("- '" + verbatimRegion + "'");
+			}
+		}
+		configLines.add("");
+		configLines.add("# How many translated messages to remember, so repeated messages (broadcasts, auto messages, spam) are only translated once.");
+		configLines.add("# Translating is cheap, so this only helps servers where most messages with emojis are repeated. The cache is cleared on");
+		configLines.add("# /emojichat reload. 0 (the default) disables the cache, 1000 is a good size if you enable it.");
+		configLines.add("translation-cache-size: " + translationCacheSize);
+		configLines.add("");
+		configLines.add("# If EmojiChat should reload by itself when this file is saved, the same as using /emojichat reload.");
+		configLines.add("auto-reload-config: " + autoReloadConfig);
+		configLines.add("");
+		configLines.add("# If EmojiChat should time how long it takes to handle chat, signs and commands, shown with /emojichat stats.");
+		configLines.add("# Can also be switched with /emojichat stats on|off, and costs nothing while off.");
+		configLines.add("latency-stats: " + latencyStats);
+		configLines.add("");
+		configLines.add("# If EmojiChat should serve its stats (emoji usage, cache hit rates, resource pack responses and latencies, if enabled)");
+		configLines.add("# for Prometheus at http://127.0.0.1:<metrics-endpoint-port>/metrics. It's only reachable from this machine.");
+		configLines.add("metrics-endpoint: " + metricsEndpoint);
+		configLines.add("metrics-endpoint-port: " + metricsEndpointPort);
+		configLines.add("");
 		configLines.add("# The config version, used to be able to update your config when future versions come out.");
 		configLines.add("# Don't change this, or you'll experience issues with EmojiChat.");
 		configLines.add("config-version: " + CONFIG_VERSION);
@@ -0,0 +1,301 @@
+package io.github.radbuilder.emojichat.utils;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable snapshot of the config values read while handling events, so listeners don't go through
+ * {@link FileConfiguration} (and copy lists) on every chat message, sign or command. A new snapshot is made on every load.
+ * The metrics charts read it too, so they never see a config that's being reloaded.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class EmojiChatSettings {
+	/**
+	 * If emoji coloring should be fixed.
+	 */
+	private final boolean fixEmojiColoring;
+	/**
+	 * If the {@link #disabledEmojis} should be disabled.
+	 */
+	private final boolean disableEmojis;
+	/**
+	 * The disabled emoji shortcodes, as listed in the config.
+	 */
+	private final List<String> disabledEmojis;
+	/**
+	 * If the resource pack should be sent to players when they join.
+	 */
+	private final boolean downloadResourcePack;
+	/**
+	 * If emojis should be displayed on signs.
+	 */
+	private final boolean emojisOnSigns;
+	/**
+	 * If commands should have emojis.
+	 */
+	private final boolean emojisInCommands;
+	/**
+	 * If emojis should only work with commands in the {@link #commandList}.
+	 */
+	private final boolean onlyCommandList;
+	/**
+	 * If config.yml should be watched and reloaded when it changes.
+	 */
+	private final boolean autoReloadConfig;
+	/**
+	 * If the metrics endpoint should be served.
+	 */
+	private final boolean metricsEndpoint;
+	/**
+	 * The localhost port to serve the metrics endpoint on.
+	 */
+	private final int metricsEndpointPort;
+	/**
+	 * If translation latency should be recorded.
+	 */
+	private final boolean latencyStats;
+	/**
+	 * The lowercase commands emojis are allowed in if {@link #onlyCommandList} is enabled.
+	 */
+	private final Set<String> commandList;
+	/**
+	 * The {@link #commandList}, indexed by command length, so commands are matched without copying them.
+	 */
+	private final String[][] commandsByLength;
+	/**
+	 * The pack variant id, as set in the config.
+	 */
+	private final int packVariantId;
+	/**
+	 * The pack quality, as set in the config.
+	 */
+	private final String packQuality;
+	/**
+	 * The resource pack URL, or null if the pack variant is invalid.
+	 */
+	private final String packUrl;
+	/**
+	 * The resource pack SHA1 hash, or null if the pack variant is invalid.
+	 */
+	private final byte[] packHash;
+	
+	/**
+	 * Reads the settings from the specified config.
+	 *
+	 * @param config The EmojiChat config.
+	 * @param packVariant The {@link EmojiPackVariant} being used, or null if it's invalid.
+	 */
+	public EmojiChatSettings(FileConfiguration config, EmojiPackVariant packVariant) {
+		fixEmojiColoring = config.getBoolean("fix-emoji-coloring");
+		disableEmojis = config.getBoolean("disable-emojis");
+		disabledEmojis = Collections.unmodifiableList(new ArrayList<>(config.getStringList("disabled-emojis")));
+		downloadResourcePack = config.getBoolean("download-resourcepack");
+		emojisOnSigns = config.getBoolean("emojis-on-signs");
+		emojisInCommands = config.getBoolean("emojis-in-commands");
+		onlyCommandList = config.getBoolean("only-command-list");
+		autoReloadConfig = config.getBoolean("auto-reload-config");
+		metricsEndpoint = config.getBoolean("metrics-endpoint");
+		metricsEndpointPort = config.getInt("metrics-endpoint-port", 9225);
+		latencyStats = config.getBoolean("latency-stats");
+		
+		HashSet<String> commands = new HashSet<>();
+		int longestCommand = 0;
+		for (String command : config.getStringList("command-list")) {
+			String lowercaseCommand = command.toLowerCase();
+			commands.add(lowercaseCommand);
+			longestCommand = Math.max(longestCommand, lowercaseCommand.length());
+		}
+		commandList = Collections.unmodifiableSet(commands);
+		commandsByLength = new String[longestCommand + 1][];
+		for (int length = 0; length <= longestCommand; length++) {
+			List<String> sameLength = new ArrayList<>();
+			for (String command : commands) {
+				if (command.length() == length) {
+					sameLength.add(command);
+				}
+			}
+			commandsByLength[length] = sameLength.toArray(new String[0]);
+		}
+		
+		packVariantId = config.getInt("pack-variant");
+		packQuality = config.getString("pack-quality", "SD");
+		packUrl = packVariant == null ? null : packVariant.getUrl(packQuality);
+		packHash = packVariant == null ? null : packVariant.getHash(packQuality);
+	}
+	
+	/**
+	 * If emoji coloring should be fixed.
+	 *
+	 * @return True if emoji coloring should be fixed, false otherwise.
+	 */
+	public boolean fixEmojiColoring() {
+		return fixEmojiColoring;
+	}
+	
+	/**
+	 * If the disabled emojis should be disabled.
+	 *
+	 * @return True if the disabled emojis should be disabled, false otherwise.
+	 */
+	public boolean disableEmojis() {
+		return disableEmojis;
+	}
+	
+	/**
+	 * Gets the disabled emoji shortcodes, as listed in the config.
+	 *
+	 * @return The unmodifiable list of disabled emoji shortcodes.
+	 */
+	public List<String> getDisabledEmojis() {
+		return disabledEmojis;
+	}
+	
+	/**
+	 * If the resource pack should be sent to players when they join.
+	 *
+	 * @return True if the resource pack should be sent, false otherwise.
+	 */
+	public boolean downloadResourcePack() {
+		return downloadResourcePack;
+	}
+	
+	/**
+	 * If emojis should be displayed on signs.
+	 *
+	 * @return True if emojis should be displayed on signs, false otherwise.
+	 */
+	public boolean emojisOnSigns() {
+		return emojisOnSigns;
+	}
+	
+	/**
+	 * If commands should have emojis.
+	 *
+	 * @return True if commands should have emojis, false otherwise.
+	 */
+	public boolean emojisInCommands() {
+		return emojisInCommands;
+	}
+	
+	/**
+	 * If emojis should only work with commands in the command list.
+	 *
+	 * @return True if only commands in the command list should have emojis, false otherwise.
+	 */
+	public boolean onlyCommandList() {
+		return onlyCommandList;
+	}
+	
+	/**
+	 * If config.yml should be watched and reloaded when it changes.
+	 *
+	 * @return True if config.yml should be reloaded when it changes, false otherwise.
+	 */
+	public boolean autoReloadConfig() {
+		return autoReloadConfig;
+	}
+	
+	/**
+	 * If the metrics endpoint should be served.
+	 *
+	 * @return True if the metrics endpoint should be served, false otherwise.
+	 */
+	public boolean metricsEndpoint() {
+		return metricsEndpoint;
+	}
+	
+	/**
+	 * Gets the localhost port to serve the metrics endpoint on.
+	 *
+	 * @return The port.
+	 */
+	public int getMetricsEndpointPort() {
+		return metricsEndpointPort;
+	}
+	
+	/**
+	 * If translation latency should be recorded.
+	 *
+	 * @return True if translation latency should be recorded, false otherwise.
+	 */
+	public boolean latencyStats() {
+		return latencyStats;
+	}
+	
+	/**
+	 * Gets the commands emojis are allowed in if only-command-list is enabled.
+	 *
+	 * @return The unmodifiable set of lowercase commands.
+	 */
+	public Set<String> getCommandList() {
+		return commandList;
+	}
+	
+	/**
+	 * Checks if the specified command message (i.e. "/msg player hi") starts with a command in the command list,
+	 * ignoring case. The command is compared in place, without splitting or copying the message.
+	 *
+	 * @param message The command message.
+	 * @return True if the command is in the command list, false otherwise.
+	 */
+	public boolean isInCommandList(String message) {
+		int end = message.indexOf(' ');
+		if (end == -1) {
+			end = message.length();
+		}
+		if (end >= commandsByLength.length) { // Longer than every command in the list
+			return false;
+		}
+		
+		for (String command : commandsByLength[end]) {
+			if (message.regionMatches(true, 0, command, 0, end)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Gets the pack variant id, as set in the config.
+	 *
+	 * @return The pack variant id.
+	 */
+	public int getPackVariantId() {
+		return packVariantId;
+	}
+	
+	/**
+	 * Gets the pack quality, as set in the config.
+	 *
+	 * @return The pack quality, i.e. SD.
+	 */
+	public String getPackQuality() {
+		return packQuality;
+	}
+	
+	/**
+	 * Gets the resource pack URL for the pack variant and quality being used.
+	 *
+	 * @return The resource pack URL, or null if the pack variant is invalid.
+	 */
+	public String getPackUrl() {
+		return packUrl;
+	}
+	
+	/**
+	 * Gets the resource pack SHA1 hash for the pack variant and quality being used. The array must not be modified.
+	 *
+	 * @return The resource pack SHA1 hash, or null if the pack variant is invalid.
+	 */
+	public byte[] getPackHash() {
+		return packHash;
+	}
+}
@@ -0,0 +1,63 @@
+package io.github.radbuilder.emojichat.utils;
+
+/**
+ * The EmojiChat permissions checked while handling messages, which are cached per player by the {@link PermissionCache}.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum EmojiPermission {
+	/**
+	 * Allows using emojis anywhere.
+	 */
+	USE("emojichat.use"),
+	/**
+	 * Allows using emojis in chat.
+	 */
+	USE_CHAT("emojichat.use.chat"),
+	/**
+	 * Allows using emojis on signs.
+	 */
+	USE_SIGN("emojichat.use.sign"),
+	/**
+	 * Allows using emojis in commands.
+	 */
+	USE_COMMAND("emojichat.use.command"),
+	/**
+	 * Allows seeing emojis, which is who gets the resource pack.
+	 */
+	SEE("emojichat.see");
+	
+	/**
+	 * The permission node.
+	 */
+	private final String node;
+	
+	/**
+	 * Creates a new EmojiChat permission with the specified node.
+	 *
+	 * @param node The permission node.
+	 */
+	EmojiPermission(String node) {
+		this.node = node;
+	}
+	
+	/**
+	 * Gets the permission node.
+	 *
+	 * @return The permission node.
+	 */
+	public String getNode() {
+		return node;
+	}
+	
+	/**
+	 * Gets the permission's bit in a player's permission snapshot.
+	 *
+	 * @return The permission's bit.
+	 */
+	int getMask() {
+		return 1 << ordinal();
+	}
+}
@@ -0,0 +1,138 @@
+package io.github.radbuilder.emojichat.utils;
+
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of each online player's {@link EmojiPermission}s as one bitmask, so handling a message costs one map lookup
+ * instead of several permission checks (which can be slow with permission plugins calculating contexts).
+ * <p>
+ * Snapshots are taken on join and world change, and taken again once they're older than {@link #TTL_NANOS}, which is how
+ * changes made by permission plugins (which don't have a common event) are picked up. Only {@link #refresh(Player)} adds
+ * snapshots, so a check after a player left (i.e. from an async chat thread or a hook) is answered without caching it.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class PermissionCache {
+	/**
+	 * How long a snapshot is used before the permissions are checked again.
+	 */
+	private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(5L);
+	/**
+	 * The permission snapshots of online players, by UUID.
+	 */
+	private final ConcurrentHashMap<UUID, Snapshot> snapshots;
+	
+	/**
+	 * Creates the permission cache.
+	 */
+	public PermissionCache() {
+		snapshots = new ConcurrentHashMap<>();
+	}
+	
+	/**
+	 * Checks if the specified player has the specified permission.
+	 *
+	 * @param player The player to check.
+	 * @param permission The permission to check.
+	 * @return True if the player has the permission, false otherwise.
+	 */
+	public boolean has(Player player, EmojiPermission permission) {
+		int mask = permission.getMask();
+		return (getPermissions(player) & mask) == mask;
+	}
+	
+	/**
+	 * Checks if the specified player has both of the specified permissions, i.e. {@link EmojiPermission#USE} and
+	 * {@link EmojiPermission#USE_CHAT}, with one lookup.
+	 *
+	 * @param player The player to check.
+	 * @param permission The first permission to check.
+	 * @param otherPermission The second permission to check.
+	 * @return True if the player has both permissions, false otherwise.
+	 */
+	public boolean has(Player player, EmojiPermission permission, EmojiPermission otherPermission) {
+		int mask = permission.getMask() | otherPermission.getMask();
+		return (getPermissions(player) & mask) == mask;
+	}
+	
+	/**
+	 * Takes a new snapshot of the specified player's permissions, i.e. when they join or change worlds.
+	 *
+	 * @param player The player to take a snapshot of.
+	 */
+	public void refresh(Player player) {
+		snapshots.put(player.getUniqueId(), new Snapshot(player));
+	}
+	
+	/**
+	 * Removes the snapshot of the specified player, i.e. when they leave.
+	 *
+	 * @param uuid The player's UUID.
+	 */
+	public void invalidate(UUID uuid) {
+		snapshots.remove(uuid);
+	}
+	
+	/**
+	 * Removes every snapshot, so every player's permissions are checked again.
+	 */
+	public void clear() {
+		snapshots.clear();
+	}
+	
+	/**
+	 * Gets the specified player's permission bitmask, taking a new snapshot if it's too old. Players without a snapshot
+	 * (who left, or haven't joined yet) have their permissions checked without caching them.
+	 *
+	 * @param player The player to get the permissions of.
+	 * @return The player's permission bitmask.
+	 */
+	private int getPermissions(Player player) {
+		Snapshot snapshot = snapshots.get(player.getUniqueId());
+		if (snapshot == null) {
+			return new Snapshot(player).permissions;
+		}
+		if (System.nanoTime() - snapshot.taken > TTL_NANOS) {
+			Snapshot oldSnapshot = snapshot;
+			snapshot = new Snapshot(player);
+			snapshots.replace(player.getUniqueId(), oldSnapshot, snapshot); // Never adds the player back if they left meanwhile
+		}
+		return snapshot.permissions;
+	}
+	
+	/**
+	 * A player's permissions at one point in time.
+	 */
+	private static class Snapshot {
+		/**
+		 * The bitmask of {@link EmojiPermission}s the player had.
+		 */
+		private final int permissions;
+		/**
+		 * When the snapshot was taken, from {@link System#nanoTime()}.
+		 */
+		private final long taken;
+		
+		/**
+		 * Takes a snapshot of the specified player's permissions.
+		 *
+		 * @param player The player to take a snapshot of.
+		 */
+		private Snapshot(Player player) {
+			int permissions = 0;
+			for (EmojiPermission permission : EmojiPermission.values()) {
+				if (player.hasPermission(permission.getNode())) {
+					permissions |= permission.getMask();
+				}
+			}
+			this.permissions = permissions;
+			taken = System.nanoTime();
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package io.github.radbuilder.emojichat.utils;
+
+/**
+ * The per-player settings stored in the {@link PlayerSettingsStore}. Each setting is one bit of the player's flags,
+ * so new settings only need a new constant.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public enum PlayerSetting {
+	/**
+	 * If the player turned emoji shortcuts off with /emojichat toggle.
+	 */
+	SHORTCUTS_OFF("shortcuts-off");
+	
+	/**
+	 * The setting's path in the player's settings file.
+	 */
+	private final String path;
+	
+	/**
+	 * Creates a new player setting with the specified path.
+	 *
+	 * @param path The setting's path in the player's settings file.
+	 */
+	PlayerSetting(String path) {
+		this.path = path;
+	}
+	
+	/**
+	 * Gets the setting's path in the player's settings file.
+	 *
+	 * @return The setting's path.
+	 */
+	public String getPath() {
+		return path;
+	}
+	
+	/**
+	 * Gets the setting's bit in the player's flags.
+	 *
+	 * @return The setting's bit.
+	 */
+	int getMask() {
+		return 1 << ordinal();
+	}
+}
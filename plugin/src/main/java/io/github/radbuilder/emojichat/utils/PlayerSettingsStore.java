@@ -0,0 +1,222 @@
+package io.github.radbuilder.emojichat.utils;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * The per-player {@link PlayerSetting}s of online players, saved in one small file per player.
+ * <p>
+ * Lookups are a single concurrent map read, so they're safe and cheap from async chat threads. A player's settings are
+ * loaded (off the main thread) when they join, and changes are saved in batches by {@link #flush()} instead of on every change.
+ * Each join gets a new load generation, so a load that finishes after the player left (or rejoined) is dropped.
+ *
+ * @author RadBuilder
+ * @version 1.9
+ * @since 1.9
+ */
+public class PlayerSettingsStore {
+	/**
+	 * The flags of online players, by UUID. Players without an entry have every setting off.
+	 */
+	private final ConcurrentHashMap<UUID, Integer> flags;
+	/**
+	 * Changed flags that haven't been saved yet, by UUID.
+	 */
+	private final ConcurrentHashMap<UUID, Integer> pending;
+	/**
+	 * The load generation of each online player, by UUID, from {@link #startLoading(UUID)}.
+	 */
+	private final ConcurrentHashMap<UUID, Long> generations;
+	/**
+	 * The last load generation given out.
+	 */
+	private final AtomicLong lastGeneration;
+	/**
+	 * The folder the player settings files are saved in.
+	 */
+	private final File folder;
+	/**
+	 * The logger to warn with if settings can't be saved.
+	 */
+	private final Logger logger;
+	
+	/**
+	 * Creates the player settings store.
+	 *
+	 * @param folder The folder the player settings files are saved in.
+	 * @param logger The logger to warn with if settings can't be saved.
+	 */
+	public PlayerSettingsStore(File folder, Logger logger) {
+		this.folder = folder;
+		this.logger = logger;
+		
+		flags = new ConcurrentHashMap<>();
+		pending = new ConcurrentHashMap<>();
+		generations = new ConcurrentHashMap<>();
+		lastGeneration = new AtomicLong();
+	}
+	
+	/**
+	 * Checks if the specified player has the specified setting on.
+	 *
+	 * @param uuid The player's UUID.
+	 * @param setting The setting to check.
+	 * @return True if the setting is on, false otherwise (or if the player's settings haven't loaded yet).
+	 */
+	public boolean has(UUID uuid, PlayerSetting setting) {
+		Integer playerFlags = flags.get(uuid);
+		return playerFlags != null && (playerFlags & setting.getMask()) != 0;
+	}
+	
+	/**
+	 * Toggles the specified setting for the specified player. The change is saved on the next {@link #flush()}.
+	 *
+	 * @param uuid The player's UUID.
+	 * @param setting The setting to toggle.
+	 * @return True if the setting is now on, false otherwise.
+	 */
+	public boolean toggle(UUID uuid, PlayerSetting setting) {
+		int playerFlags = flags.compute(uuid, (key, oldFlags) -> {
+			int newFlags = (oldFlags == null ? 0 : oldFlags) ^ setting.getMask();
+			pending.put(key, newFlags); // Inside compute, so toggles for the same player are queued in order
+			return newFlags;
+		});
+		return (playerFlags & setting.getMask()) != 0;
+	}
+	
+	/**
+	 * Starts loading the settings of the specified player, i.e. when they join. Call this on the main thread, then
+	 * {@link #load(UUID, long)} off it with the returned generation.
+	 *
+	 * @param uuid The player's UUID.
+	 * @return The load generation to pass to {@link #load(UUID, long)}.
+	 */
+	public long startLoading(UUID uuid) {
+		long generation = lastGeneration.incrementAndGet();
+		generations.put(uuid, generation);
+		return generation;
+	}
+	
+	/**
+	 * Loads the settings of the specified player. This reads the player's file, so it should be called off the main thread.
+	 * Nothing is loaded if the player left, or joined again, since the specified generation was started.
+	 *
+	 * @param uuid The player's UUID.
+	 * @param generation The load generation from {@link #startLoading(UUID)}.
+	 */
+	public void load(UUID uuid, long generation) {
+		Integer pendingFlags = pending.get(uuid); // Changed but not saved yet, i.e. the player rejoined right away
+		int playerFlags = pendingFlags == null ? read(uuid) : pendingFlags;
+		if (playerFlags == 0) {
+			return;
+		}
+		generations.computeIfPresent(uuid, (key, currentGeneration) -> { // Locks out unload, which removes the generation first
+			if (currentGeneration == generation) {
+				flags.putIfAbsent(uuid, playerFlags); // If a setting was changed while loading, keep that instead
+			}
+			return currentGeneration;
+		});
+	}
+	
+	/**
+	 * Forgets the settings of the specified player, i.e. when they leave. Unsaved changes are still saved on the next {@link #flush()}.
+	 *
+	 * @param uuid The player's UUID.
+	 */
+	public void unload(UUID uuid) {
+		generations.remove(uuid); // First, so a load still running can't add the player back
+		flags.remove(uuid);
+	}
+	
+	/**
+	 * Saves every changed setting. Settings that can't be saved are tried again on the next flush.
+	 */
+	public synchronized void flush() {
+		for (Map.Entry<UUID, Integer> entry : pending.entrySet()) {
+			UUID uuid = entry.getKey();
+			int playerFlags = entry.getValue();
+			try {
+				write(uuid, playerFlags);
+			} catch (IOException e) {
+				logger.warning("Couldn't save the EmojiChat settings of " + uuid + ", trying again later: " + e.getMessage());
+				continue;
+			}
+			pending.remove(uuid, playerFlags); // Unless it changed again while saving
+		}
+	}
+	
+	/**
+	 * Gets the settings file of the specified player.
+	 *
+	 * @param uuid The player's UUID.
+	 * @return The player's settings file.
+	 */
+	private File getFile(UUID uuid) {
+		return new File(folder, uuid + ".yml");
+	}
+	
+	/**
+	 * Reads the flags of the specified player from their settings file.
+	 *
+	 * @param uuid The player's UUID.
+	 * @return The player's flags, or 0 if they don't have a settings file.
+	 */
+	private int read(UUID uuid) {
+		File file = getFile(uuid);
+		if (!file.isFile()) {
+			return 0;
+		}
+		
+		YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
+		int playerFlags = 0;
+		for (PlayerSetting setting : PlayerSetting.values()) {
+			if (config.getBoolean(setting.getPath())) {
+				playerFlags |= setting.getMask();
+			}
+		}
+		return playerFlags;
+	}
+	
+	/**
+	 * Writes the flags of the specified player to their settings file, or deletes it if every setting is off. The file is
+	 * written next to the old one, then moved over it, so a crash while writing never leaves a partial file behind.
+	 *
+	 * @param uuid The player's UUID.
+	 * @param playerFlags The player's flags.
+	 * @throws IOException If the settings couldn't be written.
+	 */
+	private void write(UUID uuid, int playerFlags) throws IOException {
+		File file = getFile(uuid);
+		if (playerFlags == 0) {
+			Files.deleteIfExists(file.toPath());
+			return;
+		}
+		if (!folder.isDirectory() && !folder.mkdirs()) {
+			throw new IOException("Couldn't create " + folder);
+		}
+		
+		YamlConfiguration config = new YamlConfiguration();
+		for (PlayerSetting setting : PlayerSetting.values()) {
+			if ((playerFlags & setting.getMask()) != 0) {
+				config.set(setting.getPath(), true);
+			}
+		}
+		File temporaryFile = new File(folder, file.getName() + ".tmp");
+		config.save(temporaryFile);
+		try {
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(temporaryFile.toPath());
+			throw e;
+		}
+	}
+}